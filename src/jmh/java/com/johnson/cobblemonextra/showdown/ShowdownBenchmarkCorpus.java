@@ -0,0 +1,150 @@
+package com.johnson.cobblemonextra.showdown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试用的Showdown语料生成器
+ * 按目标大小生成与esbuild输出格式相同的 Moves / Learnsets / Items 文件，
+ * 并模拟多个mod：第一个是基础mod（类似GEB），中间的mod一半覆盖已有键一半新增，最后一个是我们的内容
+ */
+public final class ShowdownBenchmarkCorpus {
+
+    /**
+     * 我们自己的文件大小与基础文件的比例（实际资源远小于GEB的文件）
+     */
+    private static final int OUR_SHARE = 20;
+    private static final long SEED = 20241017L;
+
+    private ShowdownBenchmarkCorpus() {
+    }
+
+    /**
+     * 生成一组按优先级升序排列的贡献者内容
+     * @param objectName Moves、Learnsets 或 Items
+     * @param baseBytes 基础mod文件的目标大小
+     * @param mods 贡献者总数（含我们自己），至少为1
+     */
+    public static List<UniversalShowdownMerger.ModFileContent> generate(String objectName, int baseBytes, int mods) {
+        Random random = new Random(SEED);
+        List<UniversalShowdownMerger.ModFileContent> contents = new ArrayList<>(mods);
+        if (mods == 1) {
+            contents.add(new UniversalShowdownMerger.ModFileContent("cobblemonextra",
+                file(objectName, "base", 0, baseBytes, random), 1000));
+            return contents;
+        }
+
+        String base = file(objectName, "base", 0, baseBytes, random);
+        contents.add(new UniversalShowdownMerger.ModFileContent("base_mod", base, 0));
+        int baseEntries = countEntries(base);
+        int modBytes = Math.max(256, baseBytes / OUR_SHARE);
+        for (int i = 1; i < mods - 1; i++) {
+            // 前一半条目覆盖基础文件中的键，后一半是新键
+            contents.add(new UniversalShowdownMerger.ModFileContent("mod_" + i,
+                overlapping(objectName, "mod" + i, baseEntries, modBytes, random), 10 * i));
+        }
+        contents.add(new UniversalShowdownMerger.ModFileContent("cobblemonextra",
+            overlapping(objectName, "extra", baseEntries, modBytes, random), 1000));
+        return contents;
+    }
+
+    /**
+     * 对应对象的文件名
+     */
+    public static String fileName(String objectName) {
+        return switch (objectName) {
+            case "Moves" -> "moves.js";
+            case "Learnsets" -> "learnsets.js";
+            case "Items" -> "items.js";
+            default -> throw new IllegalArgumentException("未知对象: " + objectName);
+        };
+    }
+
+    private static String overlapping(String objectName, String prefix, int baseEntries, int targetBytes, Random random) {
+        StringBuilder content = header(objectName);
+        int index = 0;
+        int half = targetBytes / 2;
+        while (content.length() < half) {
+            appendEntry(content, objectName, keyFor("base", random.nextInt(Math.max(1, baseEntries))), index++, random);
+        }
+        int fresh = 0;
+        while (content.length() < targetBytes) {
+            appendEntry(content, objectName, keyFor(prefix, fresh++), index++, random);
+        }
+        return footer(content, objectName);
+    }
+
+    private static String file(String objectName, String prefix, int firstIndex, int targetBytes, Random random) {
+        StringBuilder content = header(objectName);
+        int index = firstIndex;
+        do {
+            appendEntry(content, objectName, keyFor(prefix, index), index, random);
+            index++;
+        } while (content.length() < targetBytes);
+        return footer(content, objectName);
+    }
+
+    private static StringBuilder header(String objectName) {
+        return new StringBuilder("\"use strict\";\n")
+            .append("Object.defineProperty(exports, \"__esModule\", { value: true });\n")
+            .append("const ").append(objectName).append(" = {\n");
+    }
+
+    private static String footer(StringBuilder content, String objectName) {
+        // esbuild输出的最后一个条目后面带逗号
+        content.append("};\nexports.").append(objectName).append(" = ").append(objectName).append(";\n");
+        return content.toString();
+    }
+
+    private static String keyFor(String prefix, int index) {
+        return prefix + "entry" + index;
+    }
+
+    private static void appendEntry(StringBuilder content, String objectName, String key, int num, Random random) {
+        content.append("  ").append(key).append(": ");
+        switch (objectName) {
+            case "Moves" -> content.append("{\n")
+                .append("    num: ").append(num).append(",\n")
+                .append("    accuracy: ").append(70 + random.nextInt(31)).append(",\n")
+                .append("    basePower: ").append(10 * (1 + random.nextInt(15))).append(",\n")
+                .append("    category: \"Physical\",\n")
+                .append("    name: \"").append(key).append("\",\n")
+                .append("    pp: 15,\n")
+                .append("    priority: 0,\n")
+                .append("    flags: { contact: 1, protect: 1, mirror: 1 },\n")
+                .append("    // 命中后有概率降低目标防御 }\n")
+                .append("    secondary: { chance: ").append(random.nextInt(101)).append(", boosts: { def: -1 } },\n")
+                .append("    desc: \"A move with a \\\"quoted\\\" } brace and a template `${x}`.\",\n")
+                .append("    target: \"normal\",\n")
+                .append("    type: \"Normal\"\n")
+                .append("  },\n");
+            case "Learnsets" -> {
+                content.append("{\n    learnset: {\n");
+                int moves = 4 + random.nextInt(12);
+                for (int m = 0; m < moves; m++) {
+                    content.append("      move").append(random.nextInt(900)).append(": [\"9L")
+                        .append(1 + random.nextInt(99)).append("\", \"9M\"],\n");
+                }
+                content.append("    }\n  },\n");
+            }
+            case "Items" -> content.append("{\n")
+                .append("    name: \"").append(key).append("\",\n")
+                .append("    spritenum: ").append(num % 700).append(",\n")
+                .append("    fling: { basePower: 30 },\n")
+                .append("    onModifyAtkPriority: 1,\n")
+                .append("    onModifyAtk(atk, pokemon) {\n")
+                .append("      if (/^Pikachu/.test(pokemon.species.name)) return this.chainModify(1.5);\n")
+                .append("    },\n")
+                .append("    num: ").append(num).append(",\n")
+                .append("    gen: 9\n")
+                .append("  },\n");
+            default -> throw new IllegalArgumentException("未知对象: " + objectName);
+        }
+    }
+
+    private static int countEntries(String content) {
+        ShowdownObjectScanner.ObjectLiteral object = ShowdownObjectScanner.scan(content).first();
+        return object != null ? object.getEntries().size() : 0;
+    }
+}
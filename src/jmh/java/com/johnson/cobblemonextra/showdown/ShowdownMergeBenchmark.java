@@ -0,0 +1,95 @@
+package com.johnson.cobblemonextra.showdown;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Showdown合并路径基准测试
+ * 不依赖Minecraft/NeoForge运行时，只调用各合并器的纯字符串合并方法：
+ * - universal：UniversalShowdownMerger 的N路优先级合并
+ * - gravels：按优先级逐个调用 GravelsShowdownMerger.mergeJavaScriptContent
+ * - contentMerger：逐个调用 ShowdownContentMerger 的去重追加
+ * - conflictResolver：逐个调用 ShowdownConflictResolver 的对象末尾追加
+ *
+ * 运行：./gradlew jmh -Pjmh.args="-p sizeKb=1024 -p mods=4"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4G"})
+public class ShowdownMergeBenchmark {
+
+    @Param({"Moves", "Learnsets", "Items"})
+    public String objectName;
+
+    @Param({"1", "64", "1024", "20480"})
+    public int sizeKb;
+
+    @Param({"1", "2", "4", "6"})
+    public int mods;
+
+    private List<UniversalShowdownMerger.ModFileContent> contents;
+    private String fileName;
+    // items.js 在 ShowdownContentMerger 中会读取NeoForge配置，这里使用不触发配置替换的文件名
+    private String configFreeFileName;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        contents = ShowdownBenchmarkCorpus.generate(objectName, sizeKb * 1024, mods);
+        fileName = ShowdownBenchmarkCorpus.fileName(objectName);
+        configFreeFileName = "bench-" + fileName;
+    }
+
+    @Benchmark
+    public String universal() {
+        return UniversalShowdownMerger.mergeContents(contents, fileName);
+    }
+
+    @Benchmark
+    public String gravels() {
+        String merged = contents.getFirst().getContent();
+        for (int i = 1; i < contents.size(); i++) {
+            merged = GravelsShowdownMerger.mergeJavaScriptContent(contents.get(i).getContent(), merged, fileName);
+        }
+        return merged;
+    }
+
+    @Benchmark
+    public String contentMerger() {
+        String merged = contents.getFirst().getContent();
+        for (int i = 1; i < contents.size(); i++) {
+            String result = ShowdownContentMerger.mergeJavaScriptObjects(
+                contents.get(i).getContent(), merged, objectName, configFreeFileName);
+            if (result != null) {
+                merged = result;
+            }
+        }
+        return merged;
+    }
+
+    @Benchmark
+    public String conflictResolver() {
+        String merged = contents.getFirst().getContent();
+        for (int i = 1; i < contents.size(); i++) {
+            String ourContent = contents.get(i).getContent();
+            ShowdownObjectScanner.ObjectLiteral ourObject = ShowdownObjectScanner.scan(ourContent).find(objectName);
+            merged = ShowdownConflictResolver.simpleObjectMerge(merged, ourContent, ourObject);
+        }
+        return merged;
+    }
+}
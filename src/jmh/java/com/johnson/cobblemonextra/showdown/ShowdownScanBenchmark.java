@@ -0,0 +1,93 @@
+package com.johnson.cobblemonextra.showdown;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Showdown结构扫描基准测试
+ * - classifyScalar / classifyVector：只建立结构位图索引
+ * - scanScalar：逐字符扫描（原来的扫描路径）
+ * - scanIndexed：向量分类 + 按索引跳过的扫描（启用向量模块时 ShowdownObjectScanner.scan 的路径）
+ *
+ * 输出时间单位为纳秒，bytes 计数器的 ops/ns 即为 GB/s（按文件的UTF-8字节数计算）
+ *
+ * 运行：./gradlew jmh -Pjmh.args="ShowdownScanBenchmark -p sizeKb=20480"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4G", "--add-modules", "jdk.incubator.vector"})
+public class ShowdownScanBenchmark {
+
+    @Param({"Moves", "Learnsets", "Items"})
+    public String objectName;
+
+    @Param({"64", "1024", "20480"})
+    public int sizeKb;
+
+    private String content;
+    private int contentBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (ShowdownStructuralIndex.vector() == null) {
+            throw new IllegalStateException("需要使用 --add-modules jdk.incubator.vector 启动");
+        }
+        content = ShowdownBenchmarkCorpus.generate(objectName, sizeKb * 1024, 1).getFirst().getContent();
+        contentBytes = content.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * 每次调用处理的字节数
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Benchmark
+    public ShowdownStructuralIndex classifyScalar(Bytes counter) {
+        counter.bytes += contentBytes;
+        return ShowdownStructuralIndex.build(content, ShowdownStructuralIndex.scalar());
+    }
+
+    @Benchmark
+    public ShowdownStructuralIndex classifyVector(Bytes counter) {
+        counter.bytes += contentBytes;
+        return ShowdownStructuralIndex.build(content, ShowdownStructuralIndex.vector());
+    }
+
+    @Benchmark
+    public ShowdownObjectScanner.ScanResult scanScalar(Bytes counter) {
+        counter.bytes += contentBytes;
+        return ShowdownObjectScanner.scanScalar(content);
+    }
+
+    @Benchmark
+    public ShowdownObjectScanner.ScanResult scanIndexed(Bytes counter) {
+        counter.bytes += contentBytes;
+        return ShowdownObjectScanner.scan(content, ShowdownStructuralIndex.build(content, ShowdownStructuralIndex.vector()));
+    }
+}
@@ -3,13 +3,16 @@ package com.johnson.cobblemonextra;
 import com.johnson.cobblemonextra.config.CobblemonExtraConfig;
 import com.johnson.cobblemonextra.item.CobblemonExtraItems;
 import com.johnson.cobblemonextra.item.CobblemonExtraCreativeTab;
-import com.johnson.cobblemonextra.showdown.ShowdownDataManager;
 import com.johnson.cobblemonextra.showdown.ShowdownInterceptionManager;
+import com.johnson.cobblemonextra.showdown.ShowdownStartupPipeline;
 import net.neoforged.bus.api.IEventBus;
 import net.neoforged.fml.ModContainer;
 import net.neoforged.fml.common.Mod;
 import net.neoforged.fml.config.ModConfig;
+import net.neoforged.fml.event.config.ModConfigEvent;
 import net.neoforged.fml.event.lifecycle.FMLCommonSetupEvent;
+import net.neoforged.neoforge.common.NeoForge;
+import net.neoforged.neoforge.event.server.ServerAboutToStartEvent;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,6 +25,9 @@ public class CobblemonExtra {
     public CobblemonExtra(IEventBus modEventBus, ModContainer modContainer) {
         LOGGER.info("CobblemonExtra开始初始化...");
 
+        // 启动配置需要在Showdown初始化之前注册（STARTUP类型注册后立即加载）
+        CobblemonExtraConfig.register(modContainer, ModConfig.Type.STARTUP);
+
         // 初始化通用Showdown拦截系统
         LOGGER.info("🚀 初始化通用Showdown拦截系统...");
         try {
@@ -31,20 +37,21 @@ public class CobblemonExtra {
             LOGGER.error("❌ 通用Showdown拦截系统初始化失败", e);
         }
 
-        // 重新启用早期创建，为智能追加提供基础
-        LOGGER.info("正在进行早期Showdown文件创建，为智能追加提供基础...");
+        // Showdown文件不在这里写入：启动流水线在后台预取，收集所有贡献后在加载完成时统一写出一次
         try {
-            ShowdownDataManager.injectShowdown();
-            LOGGER.info("早期Showdown文件创建成功！");
+            ShowdownStartupPipeline.begin();
         } catch (Exception e) {
-            LOGGER.error("早期Showdown文件创建失败，将在后续事件中重试", e);
+            LOGGER.error("Showdown启动流水线初始化失败，将在加载完成时重试", e);
         }
         
         // 注册配置
-        modContainer.registerConfig(ModConfig.Type.CLIENT, CobblemonExtraConfig.CLIENT_SPEC);
+        CobblemonExtraConfig.register(modContainer, ModConfig.Type.COMMON);
         
         // 注册到模组事件总线
         modEventBus.addListener(this::commonSetup);
+        modEventBus.addListener(this::onConfigLoading);
+        modEventBus.addListener(this::onConfigReloading);
+        NeoForge.EVENT_BUS.addListener(this::onServerAboutToStart);
         
         // 注册道具
         CobblemonExtraItems.register(modEventBus);
@@ -69,6 +76,31 @@ public class CobblemonExtra {
         });
     }
     
+    /**
+     * 通用配置在模组构造之后才加载，后台预取的清单检查读到的是默认值，加载后按实际的配置值重新比较
+     */
+    private void onConfigLoading(ModConfigEvent.Loading event) {
+        if (event.getConfig().getSpec() == CobblemonExtraConfig.COMMON_SPEC) {
+            ShowdownStartupPipeline.reloadConfig();
+        }
+    }
+    
+    /**
+     * 配置文件被修改后热重载：只原地更新Showdown文件中的配置值，不需要重启
+     */
+    private void onConfigReloading(ModConfigEvent.Reloading event) {
+        if (event.getConfig().getSpec() == CobblemonExtraConfig.COMMON_SPEC) {
+            ShowdownStartupPipeline.reloadConfig();
+        }
+    }
+    
+    /**
+     * 服务器启动前，确保较晚被拦截的mod的Showdown内容已经写出
+     */
+    private void onServerAboutToStart(ServerAboutToStartEvent event) {
+        ShowdownStartupPipeline.flush();
+    }
+    
     /**
      * 注册携带道具效果
      */
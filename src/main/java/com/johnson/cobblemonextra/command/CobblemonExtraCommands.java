@@ -0,0 +1,44 @@
+package com.johnson.cobblemonextra.command;
+
+import com.johnson.cobblemonextra.CobblemonExtra;
+import com.johnson.cobblemonextra.showdown.ShowdownMergeMetrics;
+import com.mojang.brigadier.Command;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.event.RegisterCommandsEvent;
+
+/**
+ * CobblemonExtra命令
+ * /cobblemonextra showdown stats  查看Showdown合并统计
+ * /cobblemonextra showdown stats reset  清空统计
+ */
+@EventBusSubscriber(modid = CobblemonExtra.MOD_ID)
+public class CobblemonExtraCommands {
+
+    @SubscribeEvent
+    public static void onRegisterCommands(RegisterCommandsEvent event) {
+        event.getDispatcher().register(Commands.literal(CobblemonExtra.MOD_ID)
+            .requires(source -> source.hasPermission(2))
+            .then(Commands.literal("showdown")
+                .then(Commands.literal("stats")
+                    .executes(context -> showStats(context.getSource()))
+                    .then(Commands.literal("reset")
+                        .executes(context -> resetStats(context.getSource()))))));
+    }
+
+    private static int showStats(CommandSourceStack source) {
+        for (String line : ShowdownMergeMetrics.report()) {
+            source.sendSuccess(() -> Component.literal(line), false);
+        }
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static int resetStats(CommandSourceStack source) {
+        ShowdownMergeMetrics.reset();
+        source.sendSuccess(() -> Component.literal("Showdown合并统计已清空"), true);
+        return Command.SINGLE_SUCCESS;
+    }
+}
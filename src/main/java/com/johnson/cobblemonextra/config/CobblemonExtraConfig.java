@@ -1,6 +1,8 @@
 package com.johnson.cobblemonextra.config;
 
 import com.johnson.cobblemonextra.CobblemonExtra;
+import net.neoforged.fml.ModContainer;
+import net.neoforged.fml.config.ModConfig;
 import net.neoforged.neoforge.common.ModConfigSpec;
 import org.apache.commons.lang3.tuple.Pair;
 
@@ -10,10 +12,13 @@ import org.apache.commons.lang3.tuple.Pair;
  */
 public class CobblemonExtraConfig {
     
-    public static class Client {
+    /**
+     * 通用配置（客户端和专用服务器都会加载，Showdown文件在服务器端使用）
+     */
+    public static class Common {
         public final ModConfigSpec.DoubleValue actionHeroMaskPowerMultiplier;
         
-        Client(ModConfigSpec.Builder builder) {
+        Common(ModConfigSpec.Builder builder) {
             builder.comment("动感超人面具配置")
                    .comment("Action Hero Mask Configuration")
                    .push("action_hero_mask");
@@ -31,13 +36,79 @@ public class CobblemonExtraConfig {
         }
     }
     
-    public static final ModConfigSpec CLIENT_SPEC;
-    public static final Client CLIENT;
+    /**
+     * 启动阶段配置（注册后立即加载，模组构造期间即可读取）
+     */
+    public static class Startup {
+        public final ModConfigSpec.IntValue appendQuietPeriodMillis;
+        public final ModConfigSpec.IntValue appendMaxWaitSeconds;
+        public final ModConfigSpec.IntValue streamingMergeBufferKb;
+        public final ModConfigSpec.ConfigValue<String> sharedCacheDir;
+        public final ModConfigSpec.IntValue sharedCacheMaxMb;
+        
+        Startup(ModConfigSpec.Builder builder) {
+            builder.comment("Showdown文件合并配置")
+                   .comment("Showdown File Merge Configuration")
+                   .push("showdown");
+            
+            appendQuietPeriodMillis = builder
+                .comment("其他模组停止写入Showdown目录多久（毫秒）后开始追加我们的内容")
+                .comment("Quiet period (ms) without writes to the showdown folder before our content is appended")
+                .defineInRange("append_quiet_period_ms", 500, 50, 10000);
+            
+            appendMaxWaitSeconds = builder
+                .comment("加载完成后监听Showdown目录的最长时间（秒），超过后不再等待其他模组")
+                .comment("Upper bound (seconds) for watching the showdown folder after load complete")
+                .defineInRange("append_max_wait_seconds", 30, 1, 300);
+            
+            streamingMergeBufferKb = builder
+                .comment("流式合并的缓冲区大小（KB），0表示关闭")
+                .comment("开启后逐个文件流式读取和写出，合并时的内存峰值约为这个值，适合堆内存紧张的服务器")
+                .comment("Buffer size (KB) for the streaming merge mode, 0 disables it")
+                .comment("When enabled, files are merged one at a time through a fixed buffer so peak merge memory stays around this size")
+                .defineInRange("streaming_merge_buffer_kb", 0, 0, 262144);
+            
+            sharedCacheDir = builder
+                .comment("同一台主机上多个服务器实例共用的合并结果缓存目录，留空表示关闭")
+                .comment("只有第一个实例执行合并，其他使用相同整合包和配置的实例直接从缓存解压合并结果")
+                .comment("Host-wide cache directory for merged showdown outputs shared by server instances, empty disables it")
+                .comment("Only the first instance merges; instances with the same modpack and config unpack the cached outputs")
+                .define("shared_cache_dir", "");
+            
+            sharedCacheMaxMb = builder
+                .comment("共享缓存目录的大小上限（MB），超过时淘汰最久未使用的合并结果")
+                .comment("Size limit (MB) of the shared cache directory, least recently used outputs are evicted beyond it")
+                .defineInRange("shared_cache_max_mb", 256, 1, 65536);
+            
+            builder.pop();
+        }
+    }
+    
+    public static final ModConfigSpec COMMON_SPEC;
+    public static final Common COMMON;
+    public static final ModConfigSpec STARTUP_SPEC;
+    public static final Startup STARTUP;
     
     static {
-        final Pair<Client, ModConfigSpec> specPair = new ModConfigSpec.Builder().configure(Client::new);
-        CLIENT_SPEC = specPair.getRight();
-        CLIENT = specPair.getLeft();
+        final Pair<Common, ModConfigSpec> specPair = new ModConfigSpec.Builder().configure(Common::new);
+        COMMON_SPEC = specPair.getRight();
+        COMMON = specPair.getLeft();
+        
+        final Pair<Startup, ModConfigSpec> startupPair = new ModConfigSpec.Builder().configure(Startup::new);
+        STARTUP_SPEC = startupPair.getRight();
+        STARTUP = startupPair.getLeft();
+    }
+    
+    /**
+     * 注册指定类型的配置
+     * 放在这里而不是主类中，主类加载时就不需要解析NeoForge的配置类型（基准测试在没有NeoForge的环境下也会用到主类的LOGGER）
+     */
+    public static void register(ModContainer modContainer, ModConfig.Type type) {
+        switch (type) {
+            case STARTUP -> modContainer.registerConfig(type, STARTUP_SPEC);
+            case COMMON -> modContainer.registerConfig(type, COMMON_SPEC);
+            default -> throw new IllegalArgumentException("未定义的配置类型: " + type);
+        }
     }
     
     /**
@@ -45,13 +116,13 @@ public class CobblemonExtraConfig {
      * 包含范围验证，超出范围时返回默认值
      */
     public static double getActionHeroMaskPowerMultiplier() {
-        double value = CLIENT.actionHeroMaskPowerMultiplier.get();
+        double value = COMMON.actionHeroMaskPowerMultiplier.get();
         
         // 验证范围
         if (value < 1.0 || value > 10.0) {
             CobblemonExtra.LOGGER.warn("动感超人面具威力倍数超出范围: {}，重置为默认值 1.5", value);
             // 重置为默认值
-            CLIENT.actionHeroMaskPowerMultiplier.set(1.5);
+            COMMON.actionHeroMaskPowerMultiplier.set(1.5);
             return 1.5;
         }
         
@@ -64,14 +135,70 @@ public class CobblemonExtraConfig {
      * 在模组启动时调用
      */
     public static void validateAndFixConfig() {
-        double originalValue = CLIENT.actionHeroMaskPowerMultiplier.get();
+        double originalValue = COMMON.actionHeroMaskPowerMultiplier.get();
         double correctedValue = getActionHeroMaskPowerMultiplier();
         
         if (originalValue != correctedValue) {
             CobblemonExtra.LOGGER.info("配置值已修正：动感超人面具威力倍数从 {} 修正为 {}", originalValue, correctedValue);
-            CLIENT.actionHeroMaskPowerMultiplier.set(correctedValue);
+            COMMON.actionHeroMaskPowerMultiplier.set(correctedValue);
         } else {
             CobblemonExtra.LOGGER.info("动感超人面具威力倍数配置：{}", correctedValue);
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 获取追加前的静默时间（毫秒），配置未加载时使用默认值
+     */
+    public static long getAppendQuietPeriodMillis() {
+        try {
+            return STARTUP.appendQuietPeriodMillis.get();
+        } catch (Exception e) {
+            return 500;
+        }
+    }
+    
+    /**
+     * 获取流式合并的缓冲区大小（字节），0表示关闭；配置未加载时关闭
+     */
+    public static long getStreamingMergeBufferBytes() {
+        try {
+            return STARTUP.streamingMergeBufferKb.get() * 1024L;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+    
+    /**
+     * 获取共享缓存目录，未配置或配置未加载时返回空字符串（关闭）
+     */
+    public static String getSharedCacheDir() {
+        try {
+            String dir = STARTUP.sharedCacheDir.get();
+            return dir != null ? dir.trim() : "";
+        } catch (Exception e) {
+            return "";
+        }
+    }
+    
+    /**
+     * 获取共享缓存目录的大小上限（字节），配置未加载时使用默认值
+     */
+    public static long getSharedCacheMaxBytes() {
+        try {
+            return STARTUP.sharedCacheMaxMb.get() * 1024L * 1024L;
+        } catch (Exception e) {
+            return 256L * 1024 * 1024;
+        }
+    }
+    
+    /**
+     * 获取监听Showdown目录的最长时间（秒），配置未加载时使用默认值
+     */
+    public static long getAppendMaxWaitSeconds() {
+        try {
+            return STARTUP.appendMaxWaitSeconds.get();
+        } catch (Exception e) {
+            return 30;
+        }
+    }
+}
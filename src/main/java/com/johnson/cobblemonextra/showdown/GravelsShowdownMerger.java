@@ -1,7 +1,6 @@
 package com.johnson.cobblemonextra.showdown;
 
 import com.johnson.cobblemonextra.CobblemonExtra;
-import com.johnson.cobblemonextra.config.CobblemonExtraConfig;
 
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
@@ -9,9 +8,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
 
 /**
  * Gravels Extended Battles Showdown 合并器
@@ -37,20 +35,30 @@ public class GravelsShowdownMerger {
      */
     public static String mergeJavaScriptContent(String ourContent, String gravelsContent, String fileName) {
         try {
-            // 自动检测对象名称
-            String objectName = detectObjectName(ourContent);
-            if (objectName == null) {
-                // 如果自动检测失败，尝试使用硬编码的备用方案
-                objectName = getObjectName(fileName);
+            // 我们的原始资源直接使用预编译索引，否则只扫描一次我们的内容，自动检测对象名称
+            ShowdownObjectScanner.ObjectLiteral ourObject;
+            try (ShowdownMergeMetrics.Timer timer = ShowdownMergeMetrics.time(ShowdownMergeMetrics.Phase.PARSE, fileName, CobblemonExtra.MOD_ID)) {
+                ourObject = ShowdownBundledIndex.indexed(fileName, ourContent);
+                if (ourObject == null) {
+                    ShowdownObjectScanner.ScanResult ourScan = ShowdownObjectScanner.scan(ourContent);
+                    ourObject = ourScan.first();
+                    if (ourObject == null) {
+                        // 如果自动检测失败，尝试使用硬编码的备用方案
+                        String objectName = getObjectName(fileName);
+                        ourObject = objectName != null ? ourScan.find(objectName) : null;
+                    }
+                }
+                timer.bytes(ourContent.length());
             }
 
-            if (objectName == null) {
+            if (ourObject == null) {
                 CobblemonExtra.LOGGER.warn("无法确定对象名，使用我们的内容覆盖: {}", fileName);
                 return ourContent;
             }
+            CobblemonExtra.LOGGER.debug("自动检测到对象名称: {}", ourObject.getName());
 
             // 使用简单而可靠的合并方法
-            return simpleMergeJavaScriptFiles(ourContent, gravelsContent, objectName, fileName);
+            return simpleMergeJavaScriptFiles(ourContent, ourObject, gravelsContent, fileName);
 
         } catch (Exception e) {
             CobblemonExtra.LOGGER.error("合并 JavaScript 内容时发生错误: {}", fileName, e);
@@ -64,55 +72,50 @@ public class GravelsShowdownMerger {
      * 简单直接的 JavaScript 文件合并
      * 策略：在gravels文件的对象结束前插入我们的招式内容
      */
-    private static String simpleMergeJavaScriptFiles(String ourContent, String gravelsContent, String objectName, String fileName) {
+    private static String simpleMergeJavaScriptFiles(String ourContent, ShowdownObjectScanner.ObjectLiteral ourObject,
+                                                     String gravelsContent, String fileName) {
+        String objectName = ourObject.getName();
         try {
-            // 提取我们的纯对象定义（不包含const ObjectName = {和};）
-            String ourObjectDefinitions = extractPureObjectDefinitions(ourContent, objectName);
-            if (ourObjectDefinitions == null || ourObjectDefinitions.trim().isEmpty()) {
+            // 我们的条目（不包含const ObjectName = {和};）
+            if (ourObject.isEmpty()) {
                 CobblemonExtra.LOGGER.warn("无法提取我们的{}定义: {}", objectName, fileName);
                 return gravelsContent;
             }
 
-            // 在gravels文件中找到 }; 的位置（对象结束）
-            int insertPos = gravelsContent.lastIndexOf("};");
-            if (insertPos == -1) {
+            // 在gravels文件中找到对象（结束位置由扫描器给出，不受字符串和注释中的括号影响）
+            ShowdownObjectScanner.ObjectLiteral gravelsObject;
+            try (ShowdownMergeMetrics.Timer timer = ShowdownMergeMetrics.time(ShowdownMergeMetrics.Phase.PARSE, fileName, "gravels_extended_battles")) {
+                gravelsObject = ShowdownObjectScanner.scan(gravelsContent).find(objectName);
+                timer.bytes(gravelsContent.length()).entries(gravelsObject != null ? gravelsObject.getEntries().size() : 0);
+            }
+            if (gravelsObject == null) {
                 CobblemonExtra.LOGGER.warn("无法找到对象结束位置: {}", fileName);
                 return gravelsContent;
             }
 
-            // 构建合并后的内容
-            StringBuilder result = new StringBuilder();
-
-            // 添加gravels内容到 }; 之前
-            String beforeInsert = gravelsContent.substring(0, insertPos);
-
-            // 简单直接：检查对象是否为空（避免耗时的大括号计数）
-            boolean isEmpty = isObjectReallyEmpty(gravelsContent, objectName);
+            // Learnsets中同一物种逐个招式合并，避免重复的物种键
+            if (ShowdownLearnsetMerger.OBJECT_NAME.equals(objectName)) {
+                String merged = ShowdownLearnsetMerger.mergeWithOurs("gravels_extended_battles", gravelsContent, ourContent, fileName);
+                if (merged != null) {
+                    return merged;
+                }
+            }
 
-            if (isEmpty) {
-                // 空对象（只有一层大括号），直接在 { 后添加内容
-                result.append(beforeInsert);
-                result.append("\n  ").append(ourObjectDefinitions);
-                result.append("\n").append(gravelsContent.substring(insertPos));
-                CobblemonExtra.LOGGER.info("检测到空{}对象，直接添加内容", objectName);
-            } else {
-                // 有内容的对象，在最后一个 } 前添加逗号和内容
-                String trimmedBefore = beforeInsert.trim();
-                if (trimmedBefore.endsWith("}")) {
-                    // 最后一个对象没有逗号，需要添加逗号
-                    result.append(beforeInsert.substring(0, beforeInsert.lastIndexOf("}")));
-                    result.append("},\n");
-                } else {
-                    // 已经有逗号或其他情况
-                    result.append(beforeInsert).append(",\n");
+            String result;
+            List<String> ourEntries = new ArrayList<>(ourObject.getEntries().size());
+            try (ShowdownMergeMetrics.Timer timer = ShowdownMergeMetrics.time(ShowdownMergeMetrics.Phase.MERGE, fileName, CobblemonExtra.MOD_ID)) {
+                for (ShowdownObjectScanner.Entry entry : ourObject.getEntries()) {
+                    ourEntries.add(entry.text(ourContent));
                 }
-                result.append(ourObjectDefinitions);
-                result.append("\n").append(gravelsContent.substring(insertPos));
-                CobblemonExtra.LOGGER.info("检测到有内容的{}对象，添加逗号", objectName);
+                result = ShowdownObjectScanner.appendEntries(gravelsContent, gravelsObject, ourEntries);
+                timer.bytes(result.length()).entries(ourEntries.size());
             }
+            ShowdownMergeMetrics.recordEntries(fileName, CobblemonExtra.MOD_ID, ourEntries.size(), 0);
+            CobblemonExtra.LOGGER.info("{}对象{}，追加 {} 项", objectName,
+                gravelsObject.isEmpty() ? "为空" : "有内容", ourEntries.size());
 
             CobblemonExtra.LOGGER.info("✅ 成功将我们的{}插入到gravels的{}对象中: {}", objectName, objectName, fileName);
-            return result.toString();
+            return result;
 
         } catch (Exception e) {
             CobblemonExtra.LOGGER.error("合并失败: {}", fileName, e);
@@ -120,124 +123,6 @@ public class GravelsShowdownMerger {
         }
     }
 
-    /**
-     * 提取纯对象定义（不包含const ObjectName = {和};）
-     */
-    private static String extractPureObjectDefinitions(String content, String objectName) {
-        try {
-            // 找到 const ObjectName = { 的位置
-            String startPattern = "const " + objectName + " = {";
-            int startPos = content.indexOf(startPattern);
-            if (startPos == -1) {
-                CobblemonExtra.LOGGER.warn("未找到对象定义: {}", objectName);
-                return null;
-            }
-
-            // 跳过开头的 {
-            startPos += startPattern.length();
-
-            // 找到最后的 }; 位置
-            int endPos = content.lastIndexOf("};");
-            if (endPos == -1 || endPos <= startPos) {
-                CobblemonExtra.LOGGER.warn("未找到对象结束: {}", objectName);
-                return null;
-            }
-
-            // 提取中间的内容
-            String objectDefinitions = content.substring(startPos, endPos).trim();
-
-            // 清理开头和结尾的换行符
-            if (objectDefinitions.startsWith("\n")) {
-                objectDefinitions = objectDefinitions.substring(1);
-            }
-            if (objectDefinitions.endsWith("\n")) {
-                objectDefinitions = objectDefinitions.substring(0, objectDefinitions.length() - 1);
-            }
-
-            CobblemonExtra.LOGGER.debug("成功提取{}对象定义，长度: {}", objectName, objectDefinitions.length());
-            return objectDefinitions;
-
-        } catch (Exception e) {
-            CobblemonExtra.LOGGER.error("提取{}对象定义失败", objectName, e);
-            return null;
-        }
-    }
-
-
-
-
-
-
-
-    /**
-     * 快速检查对象是否真的为空（避免耗时的字符遍历）
-     */
-    private static boolean isObjectReallyEmpty(String content, String objectName) {
-        try {
-            // 直接查找空对象模式
-            String emptyObjectPattern = "const " + objectName + " = {};";
-            boolean hasEmptyPattern = content.contains(emptyObjectPattern);
-
-            if (hasEmptyPattern) {
-                CobblemonExtra.LOGGER.info("检测到{}对象为空（找到空对象模式）", objectName);
-                return true;
-            }
-
-            // 如果没有找到空对象模式，再检查是否包含冒号
-            String objectPattern = "const " + objectName + " = {";
-            int objectStart = content.indexOf(objectPattern);
-            if (objectStart == -1) {
-                return false;
-            }
-
-            int contentStart = objectStart + objectPattern.length();
-            int contentEnd = content.lastIndexOf("};");
-            if (contentEnd == -1 || contentEnd <= contentStart) {
-                return false;
-            }
-
-            String objectContent = content.substring(contentStart, contentEnd).trim();
-            boolean isEmpty = !objectContent.contains(":");
-
-            CobblemonExtra.LOGGER.info("快速检查{}对象是否为空: {} (内容长度: {}, 包含冒号: {})",
-                objectName, isEmpty, objectContent.length(), objectContent.contains(":"));
-
-            return isEmpty;
-
-        } catch (Exception e) {
-            CobblemonExtra.LOGGER.error("快速检查{}对象时发生错误", objectName, e);
-            return false;
-        }
-    }
-
-
-
-    /**
-     * 自动检测JavaScript文件中的对象名称
-     * 通过解析 "const ObjectName = {" 模式来自动识别
-     */
-    private static String detectObjectName(String content) {
-        try {
-            // 查找 const ObjectName = { 模式
-            Pattern pattern = Pattern.compile("const\\s+(\\w+)\\s*=\\s*\\{");
-            Matcher matcher = pattern.matcher(content);
-
-            if (matcher.find()) {
-                String objectName = matcher.group(1);
-                CobblemonExtra.LOGGER.debug("自动检测到对象名称: {}", objectName);
-                return objectName;
-            }
-
-            CobblemonExtra.LOGGER.warn("无法自动检测对象名称，内容预览: {}",
-                content.length() > 100 ? content.substring(0, 100) + "..." : content);
-            return null;
-
-        } catch (Exception e) {
-            CobblemonExtra.LOGGER.error("检测对象名称时发生错误", e);
-            return null;
-        }
-    }
-
     /**
      * 获取对象名称（保留作为备用，但优先使用自动检测）
      */
@@ -272,60 +157,17 @@ public class GravelsShowdownMerger {
     
     /**
      * 读取 gravels_extended_battles 的资源文件
+     * 通过资源索引直接定位 GEB 自己jar中的文件
      */
     private static String readGravelsResource(String fileName) {
         try {
-            // 尝试通过不同的类加载器和路径读取
-            ClassLoader[] classLoaders = {
-                Thread.currentThread().getContextClassLoader(),
-                GravelsShowdownMerger.class.getClassLoader(),
-                ClassLoader.getSystemClassLoader()
-            };
-
-            // 可能的路径
-            String[] possiblePaths = {
-                "/drai/dev/gravelsextendedbattles/" + fileName,
-                "/" + fileName,
-                "drai/dev/gravelsextendedbattles/" + fileName,
-                fileName
-            };
-
-            for (ClassLoader classLoader : classLoaders) {
-                for (String path : possiblePaths) {
-                    try (InputStream stream = classLoader.getResourceAsStream(path)) {
-                        if (stream != null) {
-                            String content = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
-                            CobblemonExtra.LOGGER.info("✅ 成功读取 gravels_extended_battles 的 {} (路径: {}, 类加载器: {}), 大小: {} 字节",
-                                fileName, path, classLoader.getClass().getSimpleName(), content.length());
-                            return content;
-                        }
-                    } catch (Exception e) {
-                        // 静默忽略，继续尝试下一个
-                    }
-                }
-            }
-
-            // 尝试通过 gravels_extended_battles 的类直接读取
-            try {
-                Class<?> gravelsClass = Class.forName("drai.dev.gravelsextendedbattles.GravelsExtendedBattles");
-                for (String path : possiblePaths) {
-                    try (InputStream stream = gravelsClass.getResourceAsStream(path)) {
-                        if (stream != null) {
-                            String content = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
-                            CobblemonExtra.LOGGER.info("✅ 通过 GravelsExtendedBattles 类成功读取 {} (路径: {}), 大小: {} 字节",
-                                fileName, path, content.length());
-                            return content;
-                        }
-                    } catch (Exception e) {
-                        // 静默忽略
-                    }
-                }
-            } catch (ClassNotFoundException e) {
-                CobblemonExtra.LOGGER.warn("❌ 找不到 GravelsExtendedBattles 类: {}", e.getMessage());
+            byte[] data = ShowdownResourceIndex.read("gravels_extended_battles", fileName);
+            if (data == null) {
+                CobblemonExtra.LOGGER.warn("❌ 无法在 gravels_extended_battles 中找到资源文件: {}", fileName);
+                return null;
             }
-
-            CobblemonExtra.LOGGER.warn("❌ 无法在任何路径找到 gravels_extended_battles 的资源文件: {}", fileName);
-            return null;
+            CobblemonExtra.LOGGER.info("✅ 成功读取 gravels_extended_battles 的 {}, 大小: {} 字节", fileName, data.length);
+            return new String(data, StandardCharsets.UTF_8);
 
         } catch (Exception e) {
             CobblemonExtra.LOGGER.warn("❌ 读取 gravels_extended_battles 资源文件时发生错误: {}", fileName, e);
@@ -333,35 +175,21 @@ public class GravelsShowdownMerger {
         }
     }
     
-    /**
-     * 应用 items.js 配置
-     */
-    private static String applyItemsConfig(String content) {
-        try {
-            double powerMultiplier = CobblemonExtraConfig.getActionHeroMaskPowerMultiplier();
-            return content.replaceAll("ACTION_HERO_MASK_POWER_CONFIG", String.valueOf(powerMultiplier));
-        } catch (Exception e) {
-            CobblemonExtra.LOGGER.warn("配置尚未初始化，使用默认值 1.5 for items.js");
-            return content.replaceAll("ACTION_HERO_MASK_POWER_CONFIG", "1.5");
-        }
-    }
-    
     /**
      * 验证 moves.js 文件
      */
     private static void validateMovesFile(Path movesPath) {
         try {
             String content = Files.readString(movesPath);
-            boolean hasActionbeam = content.contains("actionbeam");
-            boolean hasShakingbutt = content.contains("shakingbutt");
+            ShowdownPresenceVerifier verifier = ShowdownPresenceVerifier.bundled();
+            List<String> missing = verifier.missing("moves.js", content);
 
             CobblemonExtra.LOGGER.info("moves.js 验证结果:");
-            CobblemonExtra.LOGGER.info("  - actionbeam: {}", hasActionbeam ? "✅ 存在" : "❌ 缺失");
-            CobblemonExtra.LOGGER.info("  - shakingbutt: {}", hasShakingbutt ? "✅ 存在" : "❌ 缺失");
+            CobblemonExtra.LOGGER.info("  - 我们的招式: {}/{} 存在", verifier.keys("moves.js").size() - missing.size(), verifier.keys("moves.js").size());
             CobblemonExtra.LOGGER.info("  - 文件大小: {} 字节", content.length());
 
-            if (!hasActionbeam || !hasShakingbutt) {
-                CobblemonExtra.LOGGER.error("❌ 关键招式缺失！这可能导致 learnset 错误！");
+            if (!missing.isEmpty()) {
+                CobblemonExtra.LOGGER.error("❌ 关键招式缺失: {}！这可能导致 learnset 错误！", missing);
             }
 
         } catch (Exception e) {
@@ -0,0 +1,156 @@
+package com.johnson.cobblemonextra.showdown;
+
+import com.johnson.cobblemonextra.CobblemonExtra;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 我们自带的Showdown资源
+ * 每个文件只从jar中读取一次，对象和条目的位置直接取自构建时生成的索引（ShowdownIndexFile），不再在运行时扫描
+ * 索引缺失或与资源不一致时（例如IDE直接运行、没有经过processResources），退回到运行时扫描一次
+ */
+public class ShowdownBundledIndex {
+
+    private static volatile Map<String, Bundled> files;
+
+    /**
+     * 我们的原始资源内容（未应用配置），不存在时返回null
+     */
+    public static String content(String fileName) {
+        Bundled bundled = load().get(fileName);
+        return bundled != null ? bundled.content : null;
+    }
+
+    /**
+     * 我们的原始资源的SHA-256（十六进制），不存在时返回null
+     */
+    static String sha256(String fileName) {
+        Bundled bundled = load().get(fileName);
+        return bundled != null ? bundled.sha256 : null;
+    }
+
+    /**
+     * 我们的原始资源中全部有key的条目（按文件中的顺序），不存在时返回空列表
+     */
+    static List<String> keys(String fileName) {
+        Bundled bundled = load().get(fileName);
+        if (bundled == null || bundled.object == null) {
+            return List.of();
+        }
+        List<String> keys = new ArrayList<>(bundled.object.getEntries().size());
+        for (ShowdownObjectScanner.Entry entry : bundled.object.getEntries()) {
+            if (entry.getKey() != null && !entry.getKey().isEmpty()) {
+                keys.add(entry.getKey());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 如果content正是我们的原始资源，直接返回索引中的对象，否则返回null
+     */
+    static ShowdownObjectScanner.ObjectLiteral indexed(String fileName, CharSequence content) {
+        Bundled bundled = load().get(fileName);
+        if (bundled == null || bundled.object == null || !bundled.content.contentEquals(content)) {
+            return null;
+        }
+        return bundled.object;
+    }
+
+    /**
+     * 查找对象：是我们的原始资源时使用索引，否则扫描content
+     */
+    static ShowdownObjectScanner.ObjectLiteral find(String fileName, CharSequence content, String objectName) {
+        ShowdownObjectScanner.ObjectLiteral object = indexed(fileName, content);
+        if (object != null && object.getName().equals(objectName)) {
+            return object;
+        }
+        return ShowdownObjectScanner.scan(content).find(objectName);
+    }
+
+    private static Map<String, Bundled> load() {
+        Map<String, Bundled> loaded = files;
+        if (loaded != null) {
+            return loaded;
+        }
+        synchronized (ShowdownBundledIndex.class) {
+            if (files == null) {
+                files = loadFiles();
+            }
+            return files;
+        }
+    }
+
+    private static Map<String, Bundled> loadFiles() {
+        Map<String, ShowdownIndexFile.FileIndex> index = readIndex();
+        Map<String, Bundled> loaded = new HashMap<>();
+        List<String> scanned = new ArrayList<>();
+
+        for (String fileName : ShowdownDataManager.SHOWDOWN_FILES) {
+            String content = ShowdownDataManager.readResource("/showdown/" + fileName);
+            if (content == null) {
+                continue;
+            }
+            byte[] data = content.getBytes(StandardCharsets.UTF_8);
+            byte[] hash = ShowdownIndexFile.sha256(data);
+
+            ShowdownIndexFile.FileIndex entry = index.get(fileName);
+            ShowdownObjectScanner.ObjectLiteral object;
+            if (entry != null && entry.getByteLength() == data.length && Arrays.equals(entry.getSha256(), hash)) {
+                object = entry.getObject();
+            } else {
+                try (ShowdownMergeMetrics.Timer timer = ShowdownMergeMetrics.time(ShowdownMergeMetrics.Phase.PARSE, fileName, CobblemonExtra.MOD_ID)) {
+                    object = ShowdownObjectScanner.scan(content).first();
+                    timer.bytes(content.length()).entries(object != null ? object.getEntries().size() : 0);
+                }
+                scanned.add(fileName);
+            }
+            loaded.put(fileName, new Bundled(content, HexFormat.of().formatHex(hash), object));
+        }
+
+        if (scanned.isEmpty()) {
+            CobblemonExtra.LOGGER.info("🗂️ 已从预编译索引加载 {} 个Showdown资源", loaded.size());
+        } else {
+            CobblemonExtra.LOGGER.warn("⚠️ Showdown索引缺失或已过期，运行时扫描了: {}", scanned);
+        }
+        return loaded;
+    }
+
+    private static Map<String, ShowdownIndexFile.FileIndex> readIndex() {
+        Map<String, ShowdownIndexFile.FileIndex> index = new HashMap<>();
+        try (InputStream stream = ShowdownBundledIndex.class.getResourceAsStream(ShowdownIndexFile.RESOURCE)) {
+            if (stream == null) {
+                return index;
+            }
+            for (ShowdownIndexFile.FileIndex file : ShowdownIndexFile.read(stream)) {
+                index.put(file.getFileName(), file);
+            }
+        } catch (Exception e) {
+            CobblemonExtra.LOGGER.warn("读取Showdown索引失败: {}", e.getMessage());
+            index.clear();
+        }
+        return index;
+    }
+
+    /**
+     * 单个资源文件
+     */
+    private static class Bundled {
+        private final String content;
+        private final String sha256;
+        private final ShowdownObjectScanner.ObjectLiteral object;
+
+        Bundled(String content, String sha256, ShowdownObjectScanner.ObjectLiteral object) {
+            this.content = content;
+            this.sha256 = sha256;
+            this.object = object;
+        }
+    }
+}
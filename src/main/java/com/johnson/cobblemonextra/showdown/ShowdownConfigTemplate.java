@@ -0,0 +1,301 @@
+package com.johnson.cobblemonextra.showdown;
+
+import com.johnson.cobblemonextra.CobblemonExtra;
+import com.johnson.cobblemonextra.config.CobblemonExtraConfig;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Showdown资源中的配置占位符模板
+ * 每个资源只编译一次，记录所有占位符的位置；渲染时每个值都左补空格到固定宽度，
+ * 并在前面带上以 /*@ 开头、包含占位符名的注释标记，例如 chainModify(ACTION_HERO_MASK_POWER_CONFIG) 渲染后值为 " 1.5"
+ *
+ * 配置热重载时只需在合并后的文件中找到这些标记，原地覆盖后面固定宽度的值，不需要重新合并或重写整个文件
+ */
+public class ShowdownConfigTemplate {
+
+    /**
+     * 所有配置绑定：占位符、清单中的输入名、固定宽度、当前值
+     */
+    static final List<Binding> BINDINGS = List.of(
+        new Binding("ACTION_HERO_MASK_POWER_CONFIG", "power_multiplier", 4, ShowdownConfigTemplate::powerMultiplier)
+    );
+
+    private static final Map<String, ShowdownConfigTemplate> COMPILED = new ConcurrentHashMap<>();
+
+    private final String source;
+    private final List<Slot> slots;
+
+    private ShowdownConfigTemplate(String source, List<Slot> slots) {
+        this.source = source;
+        this.slots = slots;
+    }
+
+    /**
+     * 对内容应用当前配置值；我们的原始资源使用缓存的编译结果
+     */
+    static String apply(String fileName, String content) {
+        ShowdownConfigTemplate template = content.equals(ShowdownBundledIndex.content(fileName))
+            ? COMPILED.computeIfAbsent(fileName, key -> compile(content))
+            : compile(content);
+        if (template.slots.isEmpty()) {
+            return content;
+        }
+        Map<Binding, String> values = currentValues();
+        CobblemonExtra.LOGGER.info("已为'{}'应用配置: {}", fileName, describe(values));
+        return template.render(values);
+    }
+
+    /**
+     * 编译模板：一次记录所有占位符的位置
+     */
+    static ShowdownConfigTemplate compile(String content) {
+        List<Slot> slots = new ArrayList<>();
+        for (Binding binding : BINDINGS) {
+            int index = content.indexOf(binding.placeholder);
+            while (index >= 0) {
+                slots.add(new Slot(binding, index));
+                index = content.indexOf(binding.placeholder, index + binding.placeholder.length());
+            }
+        }
+        slots.sort(Comparator.comparingInt(Slot::getStart));
+        return new ShowdownConfigTemplate(content, slots);
+    }
+
+    /**
+     * 用当前配置值渲染
+     */
+    String render(Map<Binding, String> values) {
+        StringBuilder result = new StringBuilder(source.length() + slots.size() * 32);
+        int cursor = 0;
+        for (Slot slot : slots) {
+            result.append(source, cursor, slot.getStart());
+            result.append(slot.binding.marker()).append(slot.binding.pad(values.get(slot.binding)));
+            cursor = slot.getStart() + slot.binding.placeholder.length();
+        }
+        result.append(source, cursor, source.length());
+        return result.toString();
+    }
+
+    /**
+     * 合并清单中记录的配置输入
+     */
+    static Map<String, String> configInputs() {
+        Map<String, String> inputs = new TreeMap<>();
+        currentValues().forEach((binding, value) -> inputs.put("config." + binding.inputKey, value));
+        return inputs;
+    }
+
+    /**
+     * 把当前配置值原地写入Showdown目录下已合并的文件
+     * @return 更新的位置数；某个需要配置的文件中找不到标记或值放不下固定宽度时返回-1，需要完整合并
+     */
+    static int patchOutputs() throws IOException {
+        Map<Binding, String> values = currentValues();
+        int changed = 0;
+        for (String fileName : ShowdownDataManager.SHOWDOWN_FILES) {
+            String content = ShowdownBundledIndex.content(fileName);
+            if (content == null || COMPILED.computeIfAbsent(fileName, key -> compile(content)).slots.isEmpty()) {
+                continue;
+            }
+            Path path = Paths.get(ShowdownDataManager.getShowdownFolder(), fileName);
+            if (!Files.isRegularFile(path)) {
+                return -1;
+            }
+            int patched = patchFile(path, values);
+            if (patched < 0) {
+                CobblemonExtra.LOGGER.info("⚠️ {} 中没有找到可原地更新的配置值，需要重新合并", fileName);
+                return -1;
+            }
+            changed += patched;
+        }
+        return changed;
+    }
+
+    /**
+     * 原地更新单个文件中的配置值
+     * @return 更新的位置数；找不到标记、已有值不是完整的固定宽度值或新值放不下时返回-1
+     */
+    static int patchFile(Path path, Map<Binding, String> values) throws IOException {
+        byte[] data = Files.readAllBytes(path);
+        List<Long> positions = new ArrayList<>();
+        List<byte[]> patches = new ArrayList<>();
+        boolean found = false;
+
+        for (Binding binding : BINDINGS) {
+            byte[] marker = binding.marker().getBytes(StandardCharsets.US_ASCII);
+            byte[] value = binding.pad(values.get(binding)).getBytes(StandardCharsets.US_ASCII);
+            if (value.length != binding.width) {
+                return -1;
+            }
+            for (int index = indexOf(data, marker, 0); index >= 0; index = indexOf(data, marker, index + marker.length)) {
+                int valueStart = index + marker.length;
+                if (!isRenderedValue(data, valueStart, binding.width)) {
+                    return -1;
+                }
+                found = true;
+                if (!regionEquals(data, valueStart, value)) {
+                    positions.add((long) valueStart);
+                    patches.add(value);
+                }
+            }
+        }
+        if (!found) {
+            return -1;
+        }
+        if (!positions.isEmpty()) {
+            ShowdownFileWriter.patch(path, positions.stream().mapToLong(Long::longValue).toArray(), patches.toArray(new byte[0][]));
+        }
+        return positions.size();
+    }
+
+    private static Map<Binding, String> currentValues() {
+        Map<Binding, String> values = new LinkedHashMap<>();
+        for (Binding binding : BINDINGS) {
+            values.put(binding, binding.value.get());
+        }
+        return values;
+    }
+
+    private static String describe(Map<Binding, String> values) {
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<Binding, String> entry : values.entrySet()) {
+            if (!result.isEmpty()) {
+                result.append(", ");
+            }
+            result.append(entry.getKey().inputKey).append('=').append(entry.getValue());
+        }
+        return result.toString();
+    }
+
+    private static String powerMultiplier() {
+        try {
+            return String.valueOf(CobblemonExtraConfig.getActionHeroMaskPowerMultiplier());
+        } catch (Exception e) {
+            CobblemonExtra.LOGGER.warn("配置尚未初始化，使用默认值 1.5 for items.js");
+            return "1.5";
+        }
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern, int from) {
+        outer:
+        for (int i = from; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 标记后面是否正好是一个固定宽度的值：宽度内只有数字字符，紧跟着的是值的结束符
+     * 比固定宽度更长的值（例如旧版本渲染的 "2.125"）不能原地覆盖，否则会留下多余的字符
+     */
+    private static boolean isRenderedValue(byte[] data, int start, int width) {
+        if (start + width >= data.length) {
+            return false;
+        }
+        for (int i = start; i < start + width; i++) {
+            byte b = data[i];
+            if (b != ' ' && b != '.' && b != '-' && (b < '0' || b > '9')) {
+                return false;
+            }
+        }
+        byte end = data[start + width];
+        return end == ')' || end == ',' || end == ';' || end == ' ' || end == '\t' || end == '\r' || end == '\n';
+    }
+
+    private static boolean regionEquals(byte[] data, int start, byte[] value) {
+        for (int i = 0; i < value.length; i++) {
+            if (data[start + i] != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 一个配置绑定
+     */
+    static class Binding {
+        private final String placeholder;
+        private final String inputKey;
+        private final int width;
+        private final Supplier<String> value;
+
+        Binding(String placeholder, String inputKey, int width, Supplier<String> value) {
+            this.placeholder = placeholder;
+            this.inputKey = inputKey;
+            this.width = width;
+            this.value = value;
+        }
+
+        String marker() {
+            return "/*@" + placeholder + "*/";
+        }
+
+        /**
+         * 左侧补空格到固定宽度（JS允许数字前有空白）
+         * 超出宽度的数字先减少小数位舍入到固定宽度；仍然放不下时原样返回，此时不能原地更新
+         */
+        String pad(String text) {
+            if (text.length() > width) {
+                String rounded = round(text);
+                if (rounded == null) {
+                    CobblemonExtra.LOGGER.warn("⚠️ 配置 {} 的值 {} 超出 {} 位宽度，无法原地更新", inputKey, text, width);
+                    return text;
+                }
+                CobblemonExtra.LOGGER.warn("⚠️ 配置 {} 的值 {} 超出 {} 位宽度，按 {} 处理", inputKey, text, width, rounded);
+                text = rounded;
+            }
+            return " ".repeat(width - text.length()) + text;
+        }
+
+        private String round(String text) {
+            try {
+                BigDecimal number = new BigDecimal(text.trim());
+                for (int scale = Math.max(number.scale(), 0); scale >= 0; scale--) {
+                    String rounded = number.setScale(scale, RoundingMode.HALF_UP).toPlainString();
+                    if (rounded.length() <= width) {
+                        return rounded;
+                    }
+                }
+            } catch (NumberFormatException e) {
+                CobblemonExtra.LOGGER.debug("配置值 {} 不是数字", text);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 模板中的一个占位符位置
+     */
+    private static class Slot {
+        private final Binding binding;
+        private final int start;
+
+        Slot(Binding binding, int start) {
+            this.binding = binding;
+            this.start = start;
+        }
+
+        int getStart() { return start; }
+    }
+}
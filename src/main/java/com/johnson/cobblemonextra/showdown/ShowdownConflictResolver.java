@@ -7,22 +7,31 @@ import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
 import net.neoforged.fml.event.lifecycle.FMLLoadCompleteEvent;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.concurrent.CompletableFuture;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Showdown文件冲突解决器
  * 负责处理与Mega Showdown等其他模组的文件冲突问题
- * 采用延迟加载策略确保我们的文件不被覆盖
+ * 监听Showdown目录，在其他模组写完之后再追加，确保我们的文件不被覆盖
  */
 @EventBusSubscriber(modid = CobblemonExtra.MOD_ID)
 public class ShowdownConflictResolver {
     
-    private static final int DELAY_SECONDS = 5; // 延迟时间，让其他模组先完成操作
-    private static boolean hasExecuted = false;
+    private static final AtomicBoolean hasExecuted = new AtomicBoolean(false);
     
     static {
         CobblemonExtra.LOGGER.info("ShowdownConflictResolver类已加载，事件监听器已注册");
@@ -35,23 +44,132 @@ public class ShowdownConflictResolver {
     @SubscribeEvent(priority = EventPriority.LOWEST)
     public static void onLoadComplete(FMLLoadCompleteEvent event) {
         CobblemonExtra.LOGGER.info("========= 收到 FMLLoadCompleteEvent 事件 =========");
-        if (hasExecuted) {
+        if (!hasExecuted.compareAndSet(false, true)) {
             CobblemonExtra.LOGGER.info("ShowdownConflictResolver已经执行过，跳过");
             return;
         }
-        hasExecuted = true;
+        ShowdownStartupPipeline.awaitPrefetch();
+        
+        if (ShowdownMergeManifest.isUpToDate() && ShowdownMergeManifest.outputsUnchanged()) {
+            CobblemonExtra.LOGGER.info("Showdown文件与合并清单一致且未被其他模组改动，跳过智能追加");
+            // 仍然经过提交点，之后到达的贡献会立即重新提交
+            ShowdownStartupPipeline.commit("load_complete");
+            return;
+        }
         
         CobblemonExtra.LOGGER.info("检测到所有模组加载完成，开始处理Showdown文件冲突...");
         
         CobblemonExtra.LOGGER.info("开始基于内容的智能追加策略...");
         
-        // 延迟执行，让其他模组（如 GEB、Mega Showdown 等）先完成文件操作
-        CompletableFuture.delayedExecutor(DELAY_SECONDS, TimeUnit.SECONDS).execute(() -> {
+        // 监听Showdown目录，等其他模组（如 GEB、Mega Showdown 等）停止写入后到达提交点
+        Thread watcher = new Thread(ShowdownConflictResolver::appendWhenQuiet, "CobblemonExtra-Showdown-Watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+    
+    /**
+     * 用WatchService监听Showdown目录：一段静默时间内没有其他写入就执行追加
+     * 追加后继续监听到最长等待时间，期间若有其他模组覆盖文件会再次检查
+     */
+    private static void appendWhenQuiet() {
+        long quietNanos = TimeUnit.MILLISECONDS.toNanos(CobblemonExtraConfig.getAppendQuietPeriodMillis());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(CobblemonExtraConfig.getAppendMaxWaitSeconds());
+        Path showdownDir = Paths.get(ShowdownDataManager.getShowdownFolder());
+        
+        try {
+            Files.createDirectories(showdownDir);
+        } catch (IOException e) {
+            CobblemonExtra.LOGGER.warn("无法创建Showdown目录，直接执行追加: {}", e.getMessage());
+            runAppend();
+            return;
+        }
+        
+        try (WatchService watchService = showdownDir.getFileSystem().newWatchService()) {
+            showdownDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            
+            long quietUntil = System.nanoTime() + quietNanos;
+            boolean pending = true;
+            while (true) {
+                long now = System.nanoTime();
+                if (pending && (now >= quietUntil || now >= deadline)) {
+                    if (now >= quietUntil) {
+                        CobblemonExtra.LOGGER.info("Showdown目录已静默 {} ms，开始检查和追加 Showdown 内容...",
+                            TimeUnit.NANOSECONDS.toMillis(quietNanos));
+                    } else {
+                        CobblemonExtra.LOGGER.warn("等待其他模组写入Showdown目录超过 {} 秒上限，立即追加",
+                            CobblemonExtraConfig.getAppendMaxWaitSeconds());
+                    }
+                    runAppend();
+                    pending = false;
+                    continue;
+                }
+                if (now >= deadline) {
+                    break;
+                }
+                
+                long waitNanos = (pending ? Math.min(quietUntil, deadline) : deadline) - now;
+                WatchKey key = watchService.poll(waitNanos, TimeUnit.NANOSECONDS);
+                if (key == null) {
+                    continue;
+                }
+                
+                boolean otherWriter = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path changed && isForeignChange(showdownDir.resolve(changed))) {
+                        otherWriter = true;
+                    }
+                }
+                key.reset();
+                
+                if (otherWriter) {
+                    // 有新的写入，重新开始静默计时（去抖）
+                    quietUntil = System.nanoTime() + quietNanos;
+                    pending = true;
+                }
+            }
+            CobblemonExtra.LOGGER.info("停止监听Showdown目录");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            CobblemonExtra.LOGGER.warn("无法监听Showdown目录，直接执行追加: {}", e.getMessage());
+            runAppend();
+        }
+    }
+    
+    /**
+     * 是否是其他模组的写入：忽略我们写入器的临时文件和锁文件（. 开头）、合并清单和合并日志，
+     * 以及仍保持我们写入器刚写到位的状态的文件（按长度和修改时间判断，不依赖清单，提交失败后的回退写入也能识别）
+     */
+    private static boolean isForeignChange(Path changed) {
+        String name = changed.getFileName().toString();
+        if (name.startsWith(".") || name.startsWith(ShowdownMergeManifest.MANIFEST_FILE) || name.equals(ShowdownMergeJournal.JOURNAL_DIR)) {
+            return false;
+        }
+        return !ShowdownFileWriter.isOwnWrite(changed);
+    }
+    
+    /**
+     * 到达启动流水线的提交点：所有贡献合并后每个文件只写一次
+     * 提交失败时回退到逐文件的智能追加
+     */
+    private static void runAppend() {
+        if (ShowdownStartupPipeline.commit("load_complete")) {
+            return;
+        }
+        
+        CobblemonExtra.LOGGER.warn("启动流水线提交失败，回退到逐文件智能追加");
+        ShowdownWriteExecutor.run("conflict_resolver", () -> {
+            ShowdownJfrEvents.InjectionEvent jfrEvent = ShowdownJfrEvents.beginInjection("conflict_resolver", CobblemonExtra.MOD_ID);
             try {
-                CobblemonExtra.LOGGER.info("延迟{}秒后开始检查和追加 Showdown 内容...", DELAY_SECONDS);
+                ShowdownMergeJournal.begin("conflict_resolver");
                 intelligentAppendContent();
+                ShowdownMergeJournal.commit(true);
             } catch (Exception e) {
                 CobblemonExtra.LOGGER.error("智能追加过程中发生错误", e);
+                ShowdownMergeJournal.abort();
+            } finally {
+                ShowdownJfrEvents.commitInjection(jfrEvent, false);
             }
         });
     }
@@ -64,7 +182,7 @@ public class ShowdownConflictResolver {
         try {
             CobblemonExtra.LOGGER.info("开始智能追加Showdown内容...");
             
-            Path showdownDir = Paths.get("showdown/data/mods/cobblemon");
+            Path showdownDir = Paths.get(ShowdownDataManager.getShowdownFolder());
             if (!Files.exists(showdownDir)) {
                 CobblemonExtra.LOGGER.info("Showdown目录不存在，创建基础文件...");
                 ShowdownDataManager.injectShowdown();
@@ -76,7 +194,7 @@ public class ShowdownConflictResolver {
                 appendIfMissingGeneric(fileName);
             }
             
-            CobblemonExtra.LOGGER.info("智能追加完成！");
+            CobblemonExtra.LOGGER.info("智能追加完成！{}", ShowdownFileWriter.getStats());
         } catch (Exception e) {
             CobblemonExtra.LOGGER.error("智能追加过程中发生错误", e);
         }
@@ -97,32 +215,51 @@ public class ShowdownConflictResolver {
                 return;
             }
             
-            // 检查我们的内容是否只是空对象
+            // 检查我们的内容是否只是空对象（只扫描一次我们的内容）
             String objectName = getObjectName(fileName);
-            if (isEmptyObject(ourContent, objectName)) {
+            ShowdownObjectScanner.ObjectLiteral ourObject;
+            try (ShowdownMergeMetrics.Timer timer = ShowdownMergeMetrics.time(ShowdownMergeMetrics.Phase.PARSE, fileName, CobblemonExtra.MOD_ID)) {
+                ourObject = ShowdownBundledIndex.find(fileName, ourContent, objectName);
+                timer.bytes(ourContent.length()).entries(ourObject != null ? ourObject.getEntries().size() : 0);
+            }
+            if (ourObject == null || ourObject.isEmpty()) {
                 CobblemonExtra.LOGGER.debug("我们的{}文件只包含空对象，跳过", fileName);
                 return;
             }
             
             CobblemonExtra.LOGGER.info("检测到{}文件包含实际内容，开始检查是否需要追加", fileName);
             
-            Path filePath = Paths.get("showdown/data/mods/cobblemon/" + fileName);
+            Path filePath = Paths.get(ShowdownDataManager.getShowdownFolder(), fileName);
             
             if (!Files.exists(filePath)) {
                 CobblemonExtra.LOGGER.info("目标文件{}不存在，跳过检查", fileName);
                 return;
             }
             
-            String existingContent = Files.readString(filePath);
+            byte[] existingBytes;
+            try (ShowdownMergeMetrics.Timer timer = ShowdownMergeMetrics.time(ShowdownMergeMetrics.Phase.LOOKUP, fileName, null)) {
+                existingBytes = Files.readAllBytes(filePath);
+                timer.bytes(existingBytes.length);
+            }
+            ShowdownMergeMetrics.recordBytesIn(fileName, null, existingBytes.length);
+            String existingContent = new String(existingBytes, StandardCharsets.UTF_8);
             
-            // 检查是否需要追加我们的内容
-            if (needsOurContent(existingContent, ourContent, objectName)) {
-                CobblemonExtra.LOGGER.info("文件{}中缺少我们的内容，开始追加...", fileName);
+            // 检查是否需要追加我们的内容，只追加缺失的条目
+            Set<String> missing = missingEntries(fileName, existingContent, ourObject);
+            if (!missing.isEmpty()) {
+                CobblemonExtra.LOGGER.info("文件{}中缺少我们的 {} 项内容，开始追加...", fileName, missing.size());
                 
-                String updatedContent = appendToExistingFile(existingContent, ourContent, fileName);
-                Files.write(filePath, updatedContent.getBytes());
+                String updatedContent;
+                try (ShowdownMergeMetrics.Timer timer = ShowdownMergeMetrics.time(ShowdownMergeMetrics.Phase.MERGE, fileName, CobblemonExtra.MOD_ID)) {
+                    updatedContent = simpleObjectMerge(existingContent, ourContent, ourObject, missing);
+                    timer.bytes(updatedContent.length()).entries(missing.size());
+                }
+                ShowdownMergeMetrics.recordEntries(fileName, CobblemonExtra.MOD_ID, missing.size(), ourObject.getEntries().size() - missing.size());
+                // 条目追加在文件末尾的对象中时只原地改写文件尾部
+                ShowdownFileWriter.update(filePath, existingBytes, updatedContent.getBytes(StandardCharsets.UTF_8));
                 CobblemonExtra.LOGGER.info("成功追加内容到{}", fileName);
             } else {
+                ShowdownMergeMetrics.recordEntries(fileName, CobblemonExtra.MOD_ID, 0, ourObject.getEntries().size());
                 CobblemonExtra.LOGGER.info("文件{}中已包含我们的内容，无需追加", fileName);
             }
         } catch (Exception e) {
@@ -131,161 +268,28 @@ public class ShowdownConflictResolver {
     }
     
     /**
-     * 检查我们的内容是否只是空对象
+     * 目标文件中缺失的我们的条目（对所有条目key做一次多模式扫描）
+     * 无法识别key的条目（计算属性等）无法检查，其他条目缺失时随之一起追加
      */
-    private static boolean isEmptyObject(String content, String objectName) {
+    private static Set<String> missingEntries(String fileName, String existingContent, ShowdownObjectScanner.ObjectLiteral ourObject) {
         try {
-            // 提取对象内容
-            String objectContent = extractObjectContent(content, objectName);
-            if (objectContent == null) {
-                return true;
-            }
-            
-            // 检查是否只包含空白字符
-            return objectContent.trim().isEmpty();
-        } catch (Exception e) {
-            CobblemonExtra.LOGGER.debug("检查空对象时发生错误", e);
-            return true;
-        }
-    }
-    
-    /**
-     * 检查目标文件是否需要我们的内容
-     */
-    private static boolean needsOurContent(String existingContent, String ourContent, String objectName) {
-        try {
-            // 提取我们的对象内容中的主要标识符
-            String ourObjectContent = extractObjectContent(ourContent, objectName);
-            if (ourObjectContent == null || ourObjectContent.trim().isEmpty()) {
-                return false;
-            }
-            
-            // 提取我们内容中的第一个主要标识符（属性名）
-            String firstKey = extractFirstKey(ourObjectContent);
-            if (firstKey == null || firstKey.isEmpty()) {
-                CobblemonExtra.LOGGER.debug("无法提取主要标识符，使用简单检查");
-                return !existingContent.contains(ourObjectContent.substring(0, Math.min(50, ourObjectContent.length())));
+            Set<String> missing = new LinkedHashSet<>(ShowdownPresenceVerifier.bundled().missing(fileName, existingContent));
+            if (!missing.isEmpty()) {
+                CobblemonExtra.LOGGER.info("文件{}中缺失的条目: {}", fileName, missing);
             }
-            
-            CobblemonExtra.LOGGER.info("使用标识符'{}'检查文件内容", firstKey);
-            return !existingContent.contains(firstKey);
+            return missing;
         } catch (Exception e) {
             CobblemonExtra.LOGGER.error("检查内容需求时发生错误", e);
-            return false;
-        }
-    }
-    
-    /**
-     * 从对象内容中提取第一个属性名作为标识符
-     */
-    private static String extractFirstKey(String objectContent) {
-        try {
-            // 查找第一个属性名（格式：propertyName: {）
-            java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("([a-zA-Z_][a-zA-Z0-9_]*)\\s*:");
-            java.util.regex.Matcher matcher = pattern.matcher(objectContent);
-            if (matcher.find()) {
-                return matcher.group(1);
-            }
-            return null;
-        } catch (Exception e) {
-            CobblemonExtra.LOGGER.debug("提取第一个属性名时发生错误", e);
-            return null;
+            return Set.of();
         }
     }
 
-    /**
-     * 检查文件是否包含我们的内容，如果没有则追加（保留原方法以防需要）
-     */
-    private static void appendIfMissing(String fileName, String identifier, String contentType) {
-        try {
-            Path filePath = Paths.get("showdown/data/mods/cobblemon/" + fileName);
-            
-            if (!Files.exists(filePath)) {
-                CobblemonExtra.LOGGER.info("文件{}不存在，跳过检查", fileName);
-                return;
-            }
-            
-            String content = Files.readString(filePath);
-            
-            if (identifier.isEmpty() || !content.contains(identifier)) {
-                CobblemonExtra.LOGGER.info("文件{}中缺少我们的{}内容，开始追加...", fileName, contentType);
-                
-                // 获取我们的原始内容
-                String ourContent = getOurContent(fileName);
-                if (ourContent != null && !ourContent.isEmpty()) {
-                    String updatedContent = appendToExistingFile(content, ourContent, fileName);
-                    Files.write(filePath, updatedContent.getBytes());
-                    CobblemonExtra.LOGGER.info("成功追加{}内容到{}", contentType, fileName);
-                } else {
-                    CobblemonExtra.LOGGER.warn("无法获取我们的{}内容，跳过追加", contentType);
-                }
-            } else {
-                CobblemonExtra.LOGGER.info("文件{}中已包含我们的{}内容，无需追加", fileName, contentType);
-            }
-        } catch (Exception e) {
-            CobblemonExtra.LOGGER.error("处理文件{}时发生错误", fileName, e);
-        }
-    }
-    
     /**
      * 获取我们的原始内容（包含配置替换）
      */
     private static String getOurContent(String fileName) {
-        try {
-            java.io.InputStream inputStream = ShowdownConflictResolver.class.getResourceAsStream("/showdown/" + fileName);
-            if (inputStream == null) {
-                return null;
-            }
-            String content = new String(inputStream.readAllBytes());
-            
-            // 对items.js进行特殊处理，替换配置值
-            if ("items.js".equals(fileName)) {
-                try {
-                    double powerMultiplier = CobblemonExtraConfig.getActionHeroMaskPowerMultiplier();
-                    content = content.replaceAll(
-                        "ACTION_HERO_MASK_POWER_CONFIG", 
-                        String.valueOf(powerMultiplier)
-                    );
-                    CobblemonExtra.LOGGER.info("已为'items.js'应用威力倍数配置: {}", powerMultiplier);
-                } catch (Exception e) {
-                    CobblemonExtra.LOGGER.warn("配置尚未初始化，使用默认值 1.5 for items.js");
-                    content = content.replaceAll("ACTION_HERO_MASK_POWER_CONFIG", "1.5");
-                }
-            }
-            
-            return content;
-        } catch (Exception e) {
-            CobblemonExtra.LOGGER.error("读取我们的{}内容时发生错误", fileName, e);
-            return null;
-        }
-    }
-    
-    /**
-     * 将我们的内容追加到现有文件
-     */
-    private static String appendToExistingFile(String existingContent, String ourContent, String fileName) {
-        try {
-            // 简单的追加策略：检查现有文件是否是空对象，如果是则直接替换
-            String objectName = getObjectName(fileName);
-            
-            // 检查是否是空对象 (如 "const Moves = {}")
-            if (existingContent.matches(".*const\\s+" + objectName + "\\s*=\\s*\\{\\s*\\}.*")) {
-                CobblemonExtra.LOGGER.info("检测到空对象，直接替换内容");
-                return existingContent.replaceAll(
-                    "const\\s+" + objectName + "\\s*=\\s*\\{\\s*\\}",
-                    ourContent.replaceAll("const\\s+" + objectName + "\\s*=\\s*\\{([^}]*)\\}", 
-                        "const " + objectName + " = {$1}")
-                );
-            }
-            
-            // 如果不是空对象，使用简单的对象合并
-            CobblemonExtra.LOGGER.info("检测到非空对象，使用简单合并策略");
-            return simpleObjectMerge(existingContent, ourContent, objectName);
-            
-        } catch (Exception e) {
-            CobblemonExtra.LOGGER.error("追加内容到{}时发生错误", fileName, e);
-            return existingContent;
-        }
+        String content = ShowdownBundledIndex.content(fileName);
+        return content != null ? ShowdownDataManager.applyConfig(fileName, content) : null;
     }
     
     /**
@@ -306,131 +310,68 @@ public class ShowdownConflictResolver {
     
     /**
      * 智能对象合并方法 - 在对象末尾正确追加内容
+     * 对象边界由扫描器确定，空对象不添加前置逗号
      */
-    private static String simpleObjectMerge(String existingContent, String ourContent, String objectName) {
-        try {
-            // 提取我们的对象内容
-            String ourObjectContent = extractObjectContent(ourContent, objectName);
-            if (ourObjectContent == null) {
-                CobblemonExtra.LOGGER.warn("无法从我们的内容中提取对象内容");
-                return existingContent;
-            }
-            
-            // 找到对象的结束位置，在最后一个 } 之前插入我们的内容
-            // 使用更智能的方式：从后往前找最后一个 }
-            int lastBraceIndex = existingContent.lastIndexOf("}");
-            if (lastBraceIndex == -1) {
-                CobblemonExtra.LOGGER.warn("无法找到对象结束标记");
-                return existingContent;
-            }
-            
-            // 检查对象是否为空或最后一个项目是否以逗号结尾
-            String beforeLastBrace = existingContent.substring(0, lastBraceIndex);
-            
-            // 更可靠的空对象检测：查找对象声明到结束花括号之间是否只有空白字符
-            // 先找到对象声明的开始位置
-            java.util.regex.Pattern objectStartPattern = java.util.regex.Pattern.compile(
-                "const\\s+" + objectName + "\\s*=\\s*\\{", 
-                java.util.regex.Pattern.DOTALL | java.util.regex.Pattern.MULTILINE
-            );
-            java.util.regex.Matcher startMatcher = objectStartPattern.matcher(beforeLastBrace);
-            
-            boolean isEmpty = false;
-            if (startMatcher.find()) {
-                // 找到对象声明后，检查从对象开始到最后一个花括号之间是否只有空白字符
-                int objectStart = startMatcher.end(); // 对象开始位置（在 { 之后）
-                String objectContent = beforeLastBrace.substring(objectStart).trim();
-                isEmpty = objectContent.isEmpty();
-            }
-            
-            CobblemonExtra.LOGGER.info("检测对象是否为空: {} (对象: {})", isEmpty, objectName);
-            
-            if (isEmpty) {
-                // 如果对象为空，直接插入内容，不添加逗号
-                String result = existingContent.substring(0, lastBraceIndex) + "\n  " + ourObjectContent + "\n" + existingContent.substring(lastBraceIndex);
-                CobblemonExtra.LOGGER.info("空对象检测：不添加前置逗号");
-                CobblemonExtra.LOGGER.info("成功在空对象中追加内容");
-                return result;
-            } else {
-                // 非空对象，找到倒数第二个 '}'，替换为 '},\n  '，再拼接追加内容
-                int secondLastBrace = existingContent.lastIndexOf("}", lastBraceIndex - 1);
-                if (secondLastBrace == -1) {
-                    CobblemonExtra.LOGGER.warn("无法找到倒数第二个对象结束标记");
-                    return existingContent;
-                }
-                String result = existingContent.substring(0, secondLastBrace) + "},\n  " + ourObjectContent + "\n" + existingContent.substring(lastBraceIndex);
-                CobblemonExtra.LOGGER.info("非空对象，倒数第二个大括号替换为 '},\\n' 并追加内容");
-                return result;
-            }
-            
-        } catch (Exception e) {
-            CobblemonExtra.LOGGER.error("智能对象合并时发生错误", e);
-            return existingContent;
-        }
+    static String simpleObjectMerge(String existingContent, String ourContent, ShowdownObjectScanner.ObjectLiteral ourObject) {
+        return simpleObjectMerge(existingContent, ourContent, ourObject, null);
     }
     
     /**
-     * 提取对象内容（支持嵌套花括号）
+     * 只追加 onlyKeys 中的条目（以及无法识别key的条目）；onlyKeys 为null时追加全部条目
      */
-    private static String extractObjectContent(String content, String objectName) {
+    static String simpleObjectMerge(String existingContent, String ourContent, ShowdownObjectScanner.ObjectLiteral ourObject, Set<String> onlyKeys) {
         try {
-            // 找到对象声明的开始位置
-            String objectDeclaration = "const\\s+" + objectName + "\\s*=\\s*\\{";
-            java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(objectDeclaration);
-            java.util.regex.Matcher matcher = pattern.matcher(content);
-            if (!matcher.find()) {
-                CobblemonExtra.LOGGER.warn("无法找到对象声明: {}", objectName);
-                return null;
+            String objectName = ourObject.getName();
+            ShowdownObjectScanner.ObjectLiteral existingObject = ShowdownObjectScanner.scan(existingContent).find(objectName);
+            if (existingObject == null) {
+                CobblemonExtra.LOGGER.warn("无法找到对象结束标记");
+                return existingContent;
             }
             
-            int startIndex = matcher.end() - 1; // 从开始的 { 位置算起
-            int braceCount = 0;
-            int contentStart = startIndex + 1; // 实际内容从 { 后开始
-            int contentEnd = -1;
+            CobblemonExtra.LOGGER.info("检测对象是否为空: {} (对象: {})", existingObject.isEmpty(), objectName);
             
-            // 使用括号平衡算法找到对象结束位置
-            for (int i = startIndex; i < content.length(); i++) {
-                char c = content.charAt(i);
-                if (c == '{') {
-                    braceCount++;
-                } else if (c == '}') {
-                    braceCount--;
-                    if (braceCount == 0) {
-                        contentEnd = i;
-                        break;
-                    }
+            // Learnsets中同一物种逐个招式合并，避免重复的物种键
+            if (ShowdownLearnsetMerger.OBJECT_NAME.equals(objectName)) {
+                String merged = ShowdownLearnsetMerger.mergeWithOurs("existing", existingContent, ourContent, "learnsets.js");
+                if (merged != null) {
+                    return merged;
                 }
             }
             
-            if (contentEnd == -1) {
-                CobblemonExtra.LOGGER.warn("无法找到对象结束位置: {}", objectName);
-                return null;
+            List<String> ourEntries = new ArrayList<>(ourObject.getEntries().size());
+            for (ShowdownObjectScanner.Entry entry : ourObject.getEntries()) {
+                if (onlyKeys == null || entry.getKey() == null || onlyKeys.contains(entry.getKey())) {
+                    ourEntries.add(entry.text(ourContent));
+                }
             }
-            
-            // 提取对象内容（不包括外层花括号）
-            String objectContent = content.substring(contentStart, contentEnd).trim();
-            CobblemonExtra.LOGGER.info("成功提取{}对象内容，长度: {}", objectName, objectContent.length());
-            
-            return objectContent;
+            String result = ShowdownObjectScanner.appendEntries(existingContent, existingObject, ourEntries);
+            CobblemonExtra.LOGGER.info("成功在{}对象中追加 {} 项内容", objectName, ourEntries.size());
+            return result;
             
         } catch (Exception e) {
-            CobblemonExtra.LOGGER.error("提取对象内容时发生错误", e);
-            return null;
+            CobblemonExtra.LOGGER.error("智能对象合并时发生错误", e);
+            return existingContent;
         }
     }
     
     /**
      * 使用智能合并策略处理Showdown内容
+     * 先用 {@link ShowdownPresenceVerifier} 检查，已经包含我们全部条目的文件不再合并
      */
     private static void mergeShowdownContent() {
         try {
             String showdownFolder = ShowdownDataManager.getShowdownFolder();
             Files.createDirectories(Paths.get(showdownFolder));
+            ShowdownPresenceVerifier verifier = ShowdownPresenceVerifier.bundled();
             
             int successCount = 0;
             for (String fileName : ShowdownDataManager.SHOWDOWN_FILES) {
                 Path targetPath = Paths.get(showdownFolder, fileName);
-                if (ShowdownContentMerger.mergeContent(fileName, targetPath)) {
+                if (!verifier.keys(fileName).isEmpty() && Files.exists(targetPath)
+                    && verifier.missing(fileName, Files.readString(targetPath)).isEmpty()) {
+                    CobblemonExtra.LOGGER.info("文件{}中已包含我们的内容，无需合并", fileName);
+                    successCount++;
+                } else if (ShowdownContentMerger.mergeContent(fileName, targetPath)) {
                     successCount++;
                 } else {
                     CobblemonExtra.LOGGER.warn("合并文件失败: {}", fileName);
@@ -445,31 +386,24 @@ public class ShowdownConflictResolver {
     
     /**
      * 验证内容完整性
-     * 确保我们的内容已经被正确合并
+     * 确保我们所有文件中的所有条目都已经被正确合并，每个文件只扫描一遍
      */
     private static void verifyContentIntegrity() {
         try {
             String showdownFolder = ShowdownDataManager.getShowdownFolder();
+            ShowdownPresenceVerifier verifier = ShowdownPresenceVerifier.bundled();
             
-            // 验证moves.js中是否包含我们的技能
-            Path movesPath = Paths.get(showdownFolder, "moves.js");
-            if (Files.exists(movesPath)) {
-                String content = Files.readString(movesPath);
-                if (content.contains("actionbeam") && content.contains("shakingbutt")) {
-                    CobblemonExtra.LOGGER.info("内容完整性验证通过：检测到CobblemonExtra的技能");
-                } else {
-                    CobblemonExtra.LOGGER.warn("内容完整性验证警告：未在moves.js中找到我们的技能");
+            for (String fileName : ShowdownDataManager.SHOWDOWN_FILES) {
+                List<String> keys = verifier.keys(fileName);
+                Path filePath = Paths.get(showdownFolder, fileName);
+                if (keys.isEmpty() || !Files.exists(filePath)) {
+                    continue;
                 }
-            }
-            
-            // 验证items.js中是否包含我们的道具
-            Path itemsPath = Paths.get(showdownFolder, "items.js");
-            if (Files.exists(itemsPath)) {
-                String content = Files.readString(itemsPath);
-                if (content.contains("actionheromask")) {
-                    CobblemonExtra.LOGGER.info("内容完整性验证通过：检测到CobblemonExtra的道具");
+                List<String> missing = verifier.missing(fileName, Files.readString(filePath));
+                if (missing.isEmpty()) {
+                    CobblemonExtra.LOGGER.info("内容完整性验证通过：{} 中包含我们的全部 {} 项内容", fileName, keys.size());
                 } else {
-                    CobblemonExtra.LOGGER.warn("内容完整性验证警告：未在items.js中找到我们的道具");
+                    CobblemonExtra.LOGGER.warn("内容完整性验证警告：{} 中缺少我们的 {}/{} 项内容: {}", fileName, missing.size(), keys.size(), missing);
                 }
             }
             
@@ -484,7 +418,11 @@ public class ShowdownConflictResolver {
      */
     public static void manualReinject() {
         CobblemonExtra.LOGGER.info("执行手动重新合并...");
-        mergeShowdownContent();
-        verifyContentIntegrity();
+        ShowdownWriteExecutor.run("manual_reinject", () -> {
+            ShowdownMergeJournal.begin("manual_reinject");
+            mergeShowdownContent();
+            ShowdownMergeJournal.commit(true);
+            verifyContentIntegrity();
+        });
     }
 } 
\ No newline at end of file
@@ -0,0 +1,215 @@
+package com.johnson.cobblemonextra.showdown;
+
+import com.johnson.cobblemonextra.CobblemonExtra;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 被拦截mod的Showdown内容存储
+ * 内容以UTF-8字节保存，按SHA-256寻址（相同内容只保存一份）；启动提交之前常驻内存，
+ * 提交之后写入缓存目录并释放堆内存，之后的重新合并（较晚的mod、配置重载）按需从磁盘读回
+ * 流式合并模式下内容直接以流的形式写入缓存目录，从不常驻内存
+ */
+class ShowdownContentStore {
+
+    private static final String CACHE_DIR = "cobblemonextra-cache";
+    private static final String SUFFIX = ".bin";
+
+    // 还没有写入缓存目录的内容
+    private static final Map<String, byte[]> resident = new ConcurrentHashMap<>();
+
+    // 本次运行中存入过的全部哈希（用于清理上次运行留下的缓存文件）
+    private static final Set<String> known = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 缓存目录位于 showdown/data/mods/ 下，与合并清单并列
+     */
+    static Path getCacheFolder() {
+        return Paths.get(ShowdownDataManager.getShowdownFolder()).getParent().resolve(CACHE_DIR);
+    }
+
+    /**
+     * 存入内容，返回内容的哈希
+     */
+    static String put(String content) {
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+        String hash = ShowdownMergeManifest.sha256(data);
+        if (known.add(hash) || !Files.isRegularFile(pathOf(hash))) {
+            resident.putIfAbsent(hash, data);
+        }
+        return hash;
+    }
+
+    /**
+     * 以流的形式存入内容（流式合并模式）：边写入缓存目录边计算哈希，内容不进入内存
+     * @return 内容的哈希，没有内容（文件不存在）时返回null
+     */
+    static String putStreaming(StreamWriter writer) throws IOException {
+        Path folder = getCacheFolder();
+        Files.createDirectories(folder);
+        Path temp = Files.createTempFile(folder, "stream", ".tmp");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long written;
+            try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)), digest)) {
+                written = writer.writeTo(out);
+            }
+            if (written < 0) {
+                return null;
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            known.add(hash);
+            if (!Files.isRegularFile(pathOf(hash))) {
+                ShowdownFileWriter.moveIntoPlace(temp, pathOf(hash));
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 已写入缓存目录的内容文件，仍常驻内存或不存在时返回null
+     */
+    static Path file(String hash) {
+        Path path = pathOf(hash);
+        return !resident.containsKey(hash) && Files.isRegularFile(path) ? path : null;
+    }
+
+    /**
+     * 内容的UTF-8字节数，不存在时返回-1
+     */
+    static long length(String hash) {
+        byte[] data = resident.get(hash);
+        if (data != null) {
+            return data.length;
+        }
+        try {
+            return Files.size(pathOf(hash));
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 按哈希读取内容：常驻时直接返回，否则从缓存目录读回并校验；不存在或已损坏时返回null
+     */
+    static String get(String hash) {
+        byte[] data = resident.get(hash);
+        if (data != null) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+        try {
+            data = Files.readAllBytes(pathOf(hash));
+        } catch (IOException e) {
+            CobblemonExtra.LOGGER.warn("读取Showdown内容缓存 {} 失败: {}", hash, e.getMessage());
+            return null;
+        }
+        if (!hash.equals(ShowdownMergeManifest.sha256(data))) {
+            CobblemonExtra.LOGGER.warn("⚠️ Showdown内容缓存 {} 已损坏，忽略", hash);
+            return null;
+        }
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 拼接写入时的字节来源：常驻时使用内存中的字节，已移出内存时直接使用缓存文件
+     */
+    static ShowdownSpliceWriter.Source source(String hash, String content) {
+        byte[] data = resident.get(hash);
+        if (data != null) {
+            return ShowdownSpliceWriter.Source.bytes(data, content);
+        }
+        return ShowdownSpliceWriter.Source.file(pathOf(hash), content);
+    }
+
+    /**
+     * 提交之后调用：把常驻内容写入缓存目录并释放堆内存，同时清理本次运行不再使用的缓存文件
+     * 写入失败的内容继续留在内存中，不影响之后的合并
+     */
+    static void release() {
+        if (resident.isEmpty()) {
+            return;
+        }
+        Path folder = getCacheFolder();
+        int spilled = 0;
+        long bytes = 0;
+        try {
+            Files.createDirectories(folder);
+            for (Map.Entry<String, byte[]> entry : resident.entrySet()) {
+                Path path = pathOf(entry.getKey());
+                if (!Files.isRegularFile(path) || Files.size(path) != entry.getValue().length) {
+                    Path temp = Files.createTempFile(folder, entry.getKey(), ".tmp");
+                    try {
+                        Files.write(temp, entry.getValue());
+                        ShowdownFileWriter.moveIntoPlace(temp, path);
+                    } finally {
+                        Files.deleteIfExists(temp);
+                    }
+                }
+                if (resident.remove(entry.getKey(), entry.getValue())) {
+                    spilled++;
+                    bytes += entry.getValue().length;
+                }
+            }
+        } catch (IOException e) {
+            CobblemonExtra.LOGGER.warn("⚠️ 写入Showdown内容缓存失败，{} 份内容继续保留在内存中: {}", resident.size(), e.getMessage());
+        }
+        prune(folder);
+        CobblemonExtra.LOGGER.info("🧹 已把 {} 份Showdown内容（{} 字节）移出内存，需要重新合并时从 {} 读取", spilled, bytes, folder);
+    }
+
+    /**
+     * 删除不属于本次运行的缓存文件
+     */
+    private static void prune(Path folder) {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, "*" + SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                if (!known.contains(name.substring(0, name.length() - SUFFIX.length()))) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            CobblemonExtra.LOGGER.debug("清理Showdown内容缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private static Path pathOf(String hash) {
+        return getCacheFolder().resolve(hash + SUFFIX);
+    }
+
+    /**
+     * 向缓存文件写入内容的回调
+     */
+    interface StreamWriter {
+        /**
+         * @return 写入的字节数，没有内容时返回-1
+         */
+        long writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * 重置状态（用于测试或重新加载）
+     */
+    static void reset() {
+        resident.clear();
+        known.clear();
+    }
+}
@@ -1,7 +1,6 @@
 package com.johnson.cobblemonextra.showdown;
 
 import com.johnson.cobblemonextra.CobblemonExtra;
-import com.johnson.cobblemonextra.config.CobblemonExtraConfig;
 import net.neoforged.fml.loading.FMLPaths;
 
 import java.io.IOException;
@@ -10,7 +9,6 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,6 +33,23 @@ public class ShowdownDataManager {
      * 主要方法，现在是直接将资源文件复制到目标位置。
      */
     public static void injectShowdown() {
+        ShowdownWriteExecutor.run("inject", () -> {
+            ShowdownJfrEvents.InjectionEvent jfrEvent = ShowdownJfrEvents.beginInjection("constructor", CobblemonExtra.MOD_ID);
+            boolean upToDate = ShowdownMergeManifest.isUpToDate();
+            try {
+                writeOurFiles(upToDate);
+            } finally {
+                ShowdownJfrEvents.commitInjection(jfrEvent, upToDate);
+            }
+        });
+    }
+
+    private static void writeOurFiles(boolean upToDate) {
+        if (upToDate) {
+            CobblemonExtra.LOGGER.info("Showdown文件与合并清单一致，跳过写入");
+            return;
+        }
+
         CobblemonExtra.LOGGER.info("CobblemonExtra开始直接写入Showdown文件...");
         String showdownFolder = getShowdownFolder();
 
@@ -50,33 +65,19 @@ public class ShowdownDataManager {
         for (String fileName : SHOWDOWN_FILES) {
             try {
                 Path targetPath = Paths.get(showdownFolder, fileName);
-                String resourcePath = "/showdown/" + fileName;
-
-                String content = readResource(resourcePath);
+                String content = ShowdownBundledIndex.content(fileName);
 
                 if (content == null || content.isEmpty()) {
-                    CobblemonExtra.LOGGER.warn("资源文件 '{}' 为空或未找到，跳过。", resourcePath);
+                    CobblemonExtra.LOGGER.warn("资源文件 '/showdown/{}' 为空或未找到，跳过。", fileName);
                     continue;
                 }
 
                 // 对items.js进行特殊处理，替换配置值
-                if ("items.js".equals(fileName)) {
-                    try {
-                        double powerMultiplier = CobblemonExtraConfig.getActionHeroMaskPowerMultiplier();
-                        content = content.replaceAll(
-                            "ACTION_HERO_MASK_POWER_CONFIG", 
-                            String.valueOf(powerMultiplier)
-                        );
-                        CobblemonExtra.LOGGER.info("已为'items.js'应用威力倍数配置: {}", powerMultiplier);
-                    } catch (Exception e) {
-                        CobblemonExtra.LOGGER.warn("配置尚未初始化，使用默认值 1.5 for items.js");
-                        content = content.replaceAll("ACTION_HERO_MASK_POWER_CONFIG", "1.5");
-                    }
-                }
+                content = applyConfig(fileName, content);
 
-                Files.writeString(targetPath, content, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                ShowdownFileWriter.WriteResult result = ShowdownFileWriter.write(targetPath, content);
                 successCount++;
-                CobblemonExtra.LOGGER.info("成功写入Showdown文件: {}", fileName);
+                CobblemonExtra.LOGGER.info(result.isSkipped() ? "Showdown文件内容未变化，跳过写入: {}" : "成功写入Showdown文件: {}", fileName);
 
             } catch (Exception e) {
                 CobblemonExtra.LOGGER.error("写入Showdown文件 '{}' 时发生严重错误。", fileName, e);
@@ -84,16 +85,28 @@ public class ShowdownDataManager {
 
         }
         
-        CobblemonExtra.LOGGER.info("CobblemonExtra Showdown文件写入完成！成功写入 {} 个文件。", successCount);
+        CobblemonExtra.LOGGER.info("CobblemonExtra Showdown文件写入完成！成功处理 {} 个文件。{}", successCount, ShowdownFileWriter.getStats());
+    }
+
+    /**
+     * 对我们的资源应用配置值（目前只有items.js中的威力倍数），占位符的处理见 ShowdownConfigTemplate
+     */
+    static String applyConfig(String fileName, String content) {
+        return ShowdownConfigTemplate.apply(fileName, content);
     }
 
-    private static String readResource(String path) {
+    static String readResource(String path) {
         if (!path.startsWith("/")) {
             path = "/" + path;
         }
-        try (InputStream stream = ShowdownDataManager.class.getResourceAsStream(path)) {
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        try (ShowdownMergeMetrics.Timer timer = ShowdownMergeMetrics.time(ShowdownMergeMetrics.Phase.LOOKUP, fileName, CobblemonExtra.MOD_ID);
+             InputStream stream = ShowdownDataManager.class.getResourceAsStream(path)) {
             if (stream == null) return null;
-            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+            byte[] data = stream.readAllBytes();
+            timer.bytes(data.length);
+            ShowdownMergeMetrics.recordBytesIn(fileName, CobblemonExtra.MOD_ID, data.length);
+            return new String(data, StandardCharsets.UTF_8);
         } catch (IOException e) {
             CobblemonExtra.LOGGER.error("读取资源文件时出错: {}", path, e);
             return null;
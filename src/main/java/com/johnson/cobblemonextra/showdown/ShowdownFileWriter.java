@@ -0,0 +1,435 @@
+package com.johnson.cobblemonextra.showdown;
+
+import com.johnson.cobblemonextra.CobblemonExtra;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Showdown输出文件写入器
+ * 所有Showdown文件的写入都经过这里：
+ * 1. 先按长度和哈希与现有文件比较，内容相同则跳过写入
+ * 2. 写入同目录下的临时文件后原子重命名，Showdown不会读到写了一半的文件
+ * 3. 统计写入和跳过的字节数
+ *
+ * 配置热重载只需要覆盖固定宽度的几个值，使用 {@link #patch} 原地写入，不重写整个文件
+ * 合并计划由 {@link ShowdownSpliceWriter} 直接拼接到临时文件中，不在堆上生成完整内容
+ * 只在末尾对象中追加少量条目时使用 {@link #writeTail} 原地改写文件尾部，I/O 与追加的内容大小成正比
+ * 合并运行期间（{@link ShowdownMergeJournal}）替换和尾部改写都先暂存到合并日志，在运行提交时才写到位
+ */
+public class ShowdownFileWriter {
+
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    // 原地改写尾部时允许重写的最大字节数，超过时完整写入
+    static final int MAX_TAIL_PATCH = 1024 * 1024;
+    // 原地改写前额外校验的改写位置之前的字节数
+    static final int TAIL_GUARD = 256;
+
+    private static final AtomicLong filesWritten = new AtomicLong();
+    private static final AtomicLong filesSkipped = new AtomicLong();
+    private static final AtomicLong bytesWritten = new AtomicLong();
+    private static final AtomicLong bytesSkipped = new AtomicLong();
+
+    // 我们最后一次写到位的文件及写完后的长度和修改时间，用来区分目录监听收到的事件是否来自其他模组
+    private static final Map<Path, FileStamp> ownWrites = new ConcurrentHashMap<>();
+
+    /**
+     * 以UTF-8写入文本内容
+     */
+    public static WriteResult write(Path target, String content) throws IOException {
+        return write(target, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 写入字节内容，内容与现有文件相同时跳过
+     */
+    public static WriteResult write(Path target, byte[] data) throws IOException {
+        String fileName = target.getFileName().toString();
+        try (ShowdownMergeMetrics.Timer timer = ShowdownMergeMetrics.time(ShowdownMergeMetrics.Phase.WRITE, fileName, null)) {
+            WriteResult result = writeIfChanged(target, data);
+            timer.bytes(result.isSkipped() ? 0 : result.getBytes());
+            ShowdownMergeMetrics.recordWrite(fileName, result.getBytes(), result.isSkipped());
+            return result;
+        }
+    }
+
+    /**
+     * 由回调直接写入临时文件（例如按合并计划拼接），写完后与现有文件比较，相同则丢弃临时文件，否则原子替换
+     */
+    static WriteResult write(Path target, ContentWriter writer) throws IOException {
+        String fileName = target.getFileName().toString();
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+
+        try (ShowdownMergeMetrics.Timer timer = ShowdownMergeMetrics.time(ShowdownMergeMetrics.Phase.WRITE, fileName, null)) {
+            Path tempFile = Files.createTempFile(directory, "." + fileName + ".", ".tmp");
+            WriteResult result;
+            try {
+                long length;
+                try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                    length = writer.writeTo(channel);
+                    channel.force(false);
+                }
+                if (hasSameContent(target, tempFile)) {
+                    Files.delete(tempFile);
+                    ShowdownMergeJournal.unstage(target);
+                    filesSkipped.incrementAndGet();
+                    bytesSkipped.addAndGet(length);
+                    CobblemonExtra.LOGGER.debug("📝 {} 内容未变化，跳过写入 ({} 字节)", fileName, length);
+                    result = new WriteResult(target, length, true);
+                } else {
+                    if (!ShowdownMergeJournal.stage(target, tempFile)) {
+                        moveIntoPlace(tempFile, target);
+                    }
+                    filesWritten.incrementAndGet();
+                    bytesWritten.addAndGet(length);
+                    CobblemonExtra.LOGGER.debug("📝 已拼接写入 {} ({} 字节)", fileName, length);
+                    result = new WriteResult(target, length, false);
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+            timer.bytes(result.isSkipped() ? 0 : result.getBytes());
+            ShowdownMergeMetrics.recordWrite(fileName, result.getBytes(), result.isSkipped());
+            return result;
+        }
+    }
+
+    /**
+     * 已知文件当前内容时的写入：新内容与当前内容只有尾部不同（例如在末尾的对象中追加条目）时原地改写尾部，否则完整写入
+     * @param current 调用方读取到的文件内容
+     */
+    static WriteResult update(Path target, byte[] current, byte[] data) throws IOException {
+        int common = Arrays.mismatch(current, data);
+        if (common >= 0 && current.length - common <= MAX_TAIL_PATCH && data.length - common <= MAX_TAIL_PATCH) {
+            int from = Math.max(0, common - TAIL_GUARD);
+            try {
+                WriteResult result = writeTail(target, current.length, Arrays.copyOfRange(current, from, current.length),
+                    common, Arrays.copyOfRange(data, common, data.length));
+                if (result != null) {
+                    return result;
+                }
+            } catch (IOException e) {
+                CobblemonExtra.LOGGER.warn("⚠️ 原地改写 {} 的尾部失败，改为完整写入: {}", target.getFileName(), e.getMessage());
+            }
+        }
+        return write(target, data);
+    }
+
+    /**
+     * 原地改写文件尾部：[0, position) 保持不变，从 position 开始写入 newTail，文件长度变为 position + newTail.length
+     * 只读取旧的尾部用于校验，写入后读回新的尾部校验
+     * @param oldSize 文件当前应有的长度
+     * @param oldTail 文件末尾应有的内容，必须覆盖 position 之后的全部旧内容，用于确认文件在读取之后没有被其他mod改动
+     * @return 写入结果；文件长度或尾部与预期不符时返回null，此时文件没有被修改
+     * @throws IOException 写入或读回校验失败，文件可能已被部分修改，调用方需要完整重写
+     */
+    static WriteResult writeTail(Path target, long oldSize, byte[] oldTail, long position, byte[] newTail) throws IOException {
+        long tailStart = oldSize - oldTail.length;
+        if (position < tailStart || position > oldSize) {
+            throw new IllegalArgumentException("改写位置不在校验的尾部范围内: " + position);
+        }
+        String fileName = target.getFileName().toString();
+        long newSize = position + newTail.length;
+        try (ShowdownMergeMetrics.Timer timer = ShowdownMergeMetrics.time(ShowdownMergeMetrics.Phase.WRITE, fileName, null);
+             FileChannel channel = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() != oldSize || !Arrays.equals(read(channel, tailStart, oldTail.length), oldTail)) {
+                CobblemonExtra.LOGGER.debug("{} 的尾部与预期不符，不能原地改写", fileName);
+                return null;
+            }
+            int keep = (int) (position - tailStart);
+            if (newSize == oldSize && Arrays.equals(oldTail, keep, oldTail.length, newTail, 0, newTail.length)) {
+                ShowdownMergeJournal.unstage(target);
+                filesSkipped.incrementAndGet();
+                bytesSkipped.addAndGet(newSize);
+                CobblemonExtra.LOGGER.debug("📝 {} 内容未变化，跳过写入 ({} 字节)", fileName, newSize);
+                ShowdownMergeMetrics.recordWrite(fileName, newSize, true);
+                return new WriteResult(target, newSize, true);
+            }
+
+            if (!ShowdownMergeJournal.stageTail(target, tailStart, Arrays.copyOf(oldTail, keep), position, newTail)) {
+                applyTail(channel, target, position, newTail);
+            }
+            timer.bytes(newTail.length);
+        }
+        filesWritten.incrementAndGet();
+        bytesWritten.addAndGet(newTail.length);
+        ShowdownMergeMetrics.recordWrite(fileName, newTail.length, false);
+        CobblemonExtra.LOGGER.debug("📝 已原地改写 {} 的尾部 ({} 字节，文件共 {} 字节)", fileName, newTail.length, newSize);
+        return new WriteResult(target, newSize, false);
+    }
+
+    /**
+     * 从 position 开始写入 newTail 并截断到新的长度，落盘后读回校验
+     */
+    static void applyTail(FileChannel channel, Path target, long position, byte[] newTail) throws IOException {
+        long newSize = position + newTail.length;
+        writeFully(channel, position, newTail);
+        channel.truncate(newSize);
+        channel.force(false);
+        if (channel.size() != newSize || !Arrays.equals(read(channel, position, newTail.length), newTail)) {
+            throw new IOException("原地改写后读回的内容不一致: " + target.getFileName());
+        }
+        recordOwnWrite(target);
+    }
+
+    static void writeFully(FileChannel channel, long position, byte[] data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("文件意外结束");
+            }
+        }
+        return buffer.array();
+    }
+
+    private static WriteResult writeIfChanged(Path target, byte[] data) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+
+        if (hasSameContent(target, data)) {
+            ShowdownMergeJournal.unstage(target);
+            filesSkipped.incrementAndGet();
+            bytesSkipped.addAndGet(data.length);
+            CobblemonExtra.LOGGER.debug("📝 {} 内容未变化，跳过写入 ({} 字节)", target.getFileName(), data.length);
+            return new WriteResult(target, data.length, true);
+        }
+
+        Path tempFile = Files.createTempFile(directory, "." + target.getFileName() + ".", ".tmp");
+        try {
+            Files.write(tempFile, data);
+            if (!ShowdownMergeJournal.stage(target, tempFile)) {
+                moveIntoPlace(tempFile, target);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+
+        filesWritten.incrementAndGet();
+        bytesWritten.addAndGet(data.length);
+        CobblemonExtra.LOGGER.debug("📝 已写入 {} ({} 字节)", target.getFileName(), data.length);
+        return new WriteResult(target, data.length, false);
+    }
+
+    /**
+     * 在现有文件的指定位置原地覆盖写入，文件长度不变
+     * @param positions 每段数据的字节位置，与 values 一一对应
+     */
+    static void patch(Path target, long[] positions, byte[][] values) throws IOException {
+        String fileName = target.getFileName().toString();
+        long total = 0;
+        try (ShowdownMergeMetrics.Timer timer = ShowdownMergeMetrics.time(ShowdownMergeMetrics.Phase.WRITE, fileName, null);
+             FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            for (int i = 0; i < positions.length; i++) {
+                if (positions[i] < 0 || positions[i] + values[i].length > size) {
+                    throw new IOException("原地写入超出文件范围: " + fileName + "@" + positions[i]);
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(values[i]);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, positions[i] + buffer.position());
+                }
+                total += values[i].length;
+            }
+            timer.bytes(total);
+        }
+        recordOwnWrite(target);
+        filesWritten.incrementAndGet();
+        bytesWritten.addAndGet(total);
+        ShowdownMergeMetrics.recordWrite(fileName, total, false);
+        CobblemonExtra.LOGGER.debug("📝 已原地更新 {} 的 {} 处内容 ({} 字节)", fileName, positions.length, total);
+    }
+
+    /**
+     * 原子替换目标文件，文件系统不支持原子移动时退化为普通替换
+     */
+    static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        recordOwnWrite(target);
+    }
+
+    /**
+     * 文件是否仍是我们最后一次写到位后的状态：长度和修改时间都没有变化
+     * 不依赖合并清单，清单没有记录（例如提交失败后的回退写入）时也能识别自己的写入
+     */
+    static boolean isOwnWrite(Path path) {
+        FileStamp stamp = ownWrites.get(path.toAbsolutePath().normalize());
+        return stamp != null && stamp.equals(FileStamp.of(path));
+    }
+
+    private static void recordOwnWrite(Path target) {
+        FileStamp stamp = FileStamp.of(target);
+        if (stamp != null) {
+            ownWrites.put(target.toAbsolutePath().normalize(), stamp);
+        }
+    }
+
+    /**
+     * 先比较长度，长度相同再比较哈希
+     */
+    private static boolean hasSameContent(Path target, byte[] data) throws IOException {
+        if (!Files.isRegularFile(target) || Files.size(target) != data.length) {
+            return false;
+        }
+        return Arrays.equals(digest(target), newDigest().digest(data));
+    }
+
+    /**
+     * 比较两个磁盘上的文件：先比较长度，长度相同再比较哈希
+     */
+    private static boolean hasSameContent(Path target, Path candidate) throws IOException {
+        if (!Files.isRegularFile(target) || Files.size(target) != Files.size(candidate)) {
+            return false;
+        }
+        return Arrays.equals(digest(target), digest(candidate));
+    }
+
+    /**
+     * 以流的形式计算文件的SHA-256，不把整个文件读入内存
+     */
+    static byte[] digest(Path path) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream input = Files.newInputStream(path)) {
+            byte[] buffer = new byte[HASH_BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    /**
+     * 获取写入统计
+     */
+    public static WriteStats getStats() {
+        return new WriteStats(filesWritten.get(), filesSkipped.get(), bytesWritten.get(), bytesSkipped.get());
+    }
+
+    /**
+     * 直接向临时文件写入内容的回调
+     */
+    interface ContentWriter {
+        /**
+         * @return 写入的字节数
+         */
+        long writeTo(FileChannel channel) throws IOException;
+    }
+
+    /**
+     * 单次写入结果
+     */
+    public static class WriteResult {
+        private final Path path;
+        private final long bytes;
+        private final boolean skipped;
+
+        public WriteResult(Path path, long bytes, boolean skipped) {
+            this.path = path;
+            this.bytes = bytes;
+            this.skipped = skipped;
+        }
+
+        public Path getPath() { return path; }
+        public long getBytes() { return bytes; }
+        public boolean isSkipped() { return skipped; }
+    }
+
+    /**
+     * 文件的长度和修改时间
+     */
+    private static class FileStamp {
+        private final long size;
+        private final FileTime modified;
+
+        private FileStamp(long size, FileTime modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        static FileStamp of(Path path) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return new FileStamp(attributes.size(), attributes.lastModifiedTime());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof FileStamp stamp && size == stamp.size && modified.equals(stamp.modified);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(size) * 31 + modified.hashCode();
+        }
+    }
+
+    /**
+     * 累计写入统计
+     */
+    public static class WriteStats {
+        private final long filesWritten;
+        private final long filesSkipped;
+        private final long bytesWritten;
+        private final long bytesSkipped;
+
+        public WriteStats(long filesWritten, long filesSkipped, long bytesWritten, long bytesSkipped) {
+            this.filesWritten = filesWritten;
+            this.filesSkipped = filesSkipped;
+            this.bytesWritten = bytesWritten;
+            this.bytesSkipped = bytesSkipped;
+        }
+
+        public long getFilesWritten() { return filesWritten; }
+        public long getFilesSkipped() { return filesSkipped; }
+        public long getBytesWritten() { return bytesWritten; }
+        public long getBytesSkipped() { return bytesSkipped; }
+
+        @Override
+        public String toString() {
+            return String.format("WriteStats{写入: %d 个文件/%d 字节, 跳过: %d 个文件/%d 字节}",
+                filesWritten, bytesWritten, filesSkipped, bytesSkipped);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.johnson.cobblemonextra.showdown;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * 我们自带的Showdown资源的预编译条目索引（showdown/showdown.idx）
+ * 构建时由Gradle的 showdownIndex 任务调用 main 生成并打包进jar，运行时由 ShowdownBundledIndex 加载，
+ * 不再重复扫描我们自己的文件
+ *
+ * 格式（DataOutputStream，大端）：
+ * magic, version, 文件数, 每个文件：文件名, 字节数, SHA-256, 对象名, 声明起点, {, }, 语句结束, 条目数, 每个条目：key, start, end
+ * 所有位置都是解码后字符串中的下标，和 ShowdownObjectScanner 一致
+ *
+ * 这个类不能依赖Minecraft或日志，构建时只有编译后的模组类在classpath上
+ */
+public final class ShowdownIndexFile {
+
+    public static final String RESOURCE = "/showdown/showdown.idx";
+
+    private static final int MAGIC = 0x53444958; // "SDIX"
+    private static final short VERSION = 1;
+
+    private ShowdownIndexFile() {
+    }
+
+    /**
+     * 构建时入口：ShowdownIndexFile <输出文件> <showdown资源目录>
+     * 任何文件格式错误都会以非零状态退出，让构建失败
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("用法: ShowdownIndexFile <输出文件> <showdown资源目录>");
+        }
+        Path output = Paths.get(args[0]);
+        Path sourceDir = Paths.get(args[1]);
+
+        List<Path> sources;
+        try (Stream<Path> stream = Files.list(sourceDir)) {
+            sources = stream.filter(path -> path.getFileName().toString().endsWith(".js")).sorted().toList();
+        }
+
+        List<FileIndex> files = new ArrayList<>(sources.size());
+        for (Path source : sources) {
+            files.add(build(source.getFileName().toString(), Files.readAllBytes(source)));
+        }
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        try (OutputStream stream = Files.newOutputStream(output)) {
+            write(stream, files);
+        }
+        System.out.println("Showdown索引: " + files.size() + " 个文件 -> " + output);
+    }
+
+    /**
+     * 扫描一个文件并校验，格式错误时抛出 IllegalArgumentException
+     */
+    public static FileIndex build(String fileName, byte[] data) {
+        String content = new String(data, StandardCharsets.UTF_8);
+        ShowdownObjectScanner.ScanResult scan = ShowdownObjectScanner.scan(content);
+        if (scan.isMalformed()) {
+            throw new IllegalArgumentException(fileName + ": 括号、字符串或注释没有正确闭合");
+        }
+        ShowdownObjectScanner.ObjectLiteral object = scan.first();
+        if (object == null) {
+            throw new IllegalArgumentException(fileName + ": 没有找到顶层的 const X = {...} 对象");
+        }
+
+        Set<String> keys = new HashSet<>();
+        for (ShowdownObjectScanner.Entry entry : object.getEntries()) {
+            String at = fileName + ":" + lineOf(content, entry.getStart());
+            if (entry.getKey() == null || entry.getKey().isEmpty()) {
+                throw new IllegalArgumentException(at + ": 条目没有key");
+            }
+            if (!keys.add(entry.getKey())) {
+                throw new IllegalArgumentException(at + ": 重复的key '" + entry.getKey() + "'");
+            }
+            if (entry.getStart() <= object.getOpenBrace() || entry.getEnd() > object.getCloseBrace() || entry.getStart() >= entry.getEnd()) {
+                throw new IllegalArgumentException(at + ": 条目 '" + entry.getKey() + "' 的范围超出对象");
+            }
+        }
+        return new FileIndex(fileName, data.length, sha256(data), object);
+    }
+
+    /**
+     * 写出索引
+     */
+    public static void write(OutputStream stream, List<FileIndex> files) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(files.size());
+        for (FileIndex file : files) {
+            ShowdownObjectScanner.ObjectLiteral object = file.getObject();
+            out.writeUTF(file.getFileName());
+            out.writeInt(file.getByteLength());
+            out.write(file.getSha256());
+            out.writeUTF(object.getName());
+            out.writeInt(object.getDeclarationStart());
+            out.writeInt(object.getOpenBrace());
+            out.writeInt(object.getCloseBrace());
+            out.writeInt(object.getStatementEnd());
+            out.writeInt(object.getEntries().size());
+            for (ShowdownObjectScanner.Entry entry : object.getEntries()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getStart());
+                out.writeInt(entry.getEnd());
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * 读取索引，格式或版本不匹配时抛出 IOException
+     */
+    public static List<FileIndex> read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("不是Showdown索引文件");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("不支持的Showdown索引版本: " + version);
+        }
+        int fileCount = in.readInt();
+        List<FileIndex> files = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            String fileName = in.readUTF();
+            int byteLength = in.readInt();
+            byte[] sha256 = new byte[32];
+            in.readFully(sha256);
+            String objectName = in.readUTF();
+            int declarationStart = in.readInt();
+            int openBrace = in.readInt();
+            int closeBrace = in.readInt();
+            int statementEnd = in.readInt();
+            int entryCount = in.readInt();
+            List<ShowdownObjectScanner.Entry> entries = new ArrayList<>(entryCount);
+            for (int e = 0; e < entryCount; e++) {
+                entries.add(new ShowdownObjectScanner.Entry(in.readUTF(), in.readInt(), in.readInt()));
+            }
+            files.add(new FileIndex(fileName, byteLength, sha256, new ShowdownObjectScanner.ObjectLiteral(
+                objectName, declarationStart, openBrace, closeBrace, statementEnd, entries)));
+        }
+        return Collections.unmodifiableList(files);
+    }
+
+    static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int lineOf(String content, int offset) {
+        int line = 1;
+        for (int i = 0; i < offset; i++) {
+            if (content.charAt(i) == '\n') {
+                line++;
+            }
+        }
+        return line;
+    }
+
+    /**
+     * 单个文件的索引
+     */
+    public static class FileIndex {
+        private final String fileName;
+        private final int byteLength;
+        private final byte[] sha256;
+        private final ShowdownObjectScanner.ObjectLiteral object;
+
+        public FileIndex(String fileName, int byteLength, byte[] sha256, ShowdownObjectScanner.ObjectLiteral object) {
+            this.fileName = fileName;
+            this.byteLength = byteLength;
+            this.sha256 = sha256;
+            this.object = object;
+        }
+
+        public String getFileName() { return fileName; }
+        public int getByteLength() { return byteLength; }
+        public byte[] getSha256() { return sha256; }
+        public ShowdownObjectScanner.ObjectLiteral getObject() { return object; }
+    }
+}
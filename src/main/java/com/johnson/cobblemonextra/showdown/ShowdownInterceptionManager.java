@@ -4,19 +4,21 @@ import com.johnson.cobblemonextra.CobblemonExtra;
 import com.johnson.cobblemonextra.config.ShowdownInterceptionConfig;
 import net.neoforged.fml.ModList;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * Showdown拦截管理器
  * 负责初始化和管理通用Showdown拦截系统
  */
 public class ShowdownInterceptionManager {
     
-    private static boolean initialized = false;
+    private static final AtomicBoolean initialized = new AtomicBoolean(false);
     
     /**
      * 初始化Showdown拦截系统
      */
     public static void initialize() {
-        if (initialized) {
+        if (!initialized.compareAndSet(false, true)) {
             CobblemonExtra.LOGGER.warn("⚠️ Showdown拦截系统已经初始化过了");
             return;
         }
@@ -30,11 +32,11 @@ public class ShowdownInterceptionManager {
             // 打印当前配置
             ShowdownInterceptionConfig.printCurrentConfig();
             
-            initialized = true;
             CobblemonExtra.LOGGER.info("✅ 通用Showdown拦截系统初始化完成！");
             
         } catch (Exception e) {
             CobblemonExtra.LOGGER.error("❌ 初始化Showdown拦截系统失败", e);
+            initialized.set(false);
         }
     }
     
@@ -149,7 +151,10 @@ public class ShowdownInterceptionManager {
     @SuppressWarnings("unused")
     public static void reset() {
         UniversalShowdownMerger.reset();
-        initialized = false;
+        ShowdownMergeManifest.reset();
+        ShowdownMergeMetrics.reset();
+        ShowdownStartupPipeline.reset();
+        initialized.set(false);
         CobblemonExtra.LOGGER.info("🔄 Showdown拦截系统已重置");
     }
     
@@ -187,13 +192,14 @@ public class ShowdownInterceptionManager {
     @SuppressWarnings("unused")
     public static void printDetailedStatus() {
         CobblemonExtra.LOGGER.info("📊 Showdown拦截系统状态:");
-        CobblemonExtra.LOGGER.info("  初始化状态: {}", initialized ? "✅ 已初始化" : "❌ 未初始化");
+        CobblemonExtra.LOGGER.info("  初始化状态: {}", initialized.get() ? "✅ 已初始化" : "❌ 未初始化");
         
         InterceptionStats stats = getStats();
         CobblemonExtra.LOGGER.info("  统计信息: {}", stats);
         
         CobblemonExtra.LOGGER.info("  启用的mod: {}", ShowdownInterceptionConfig.getEnabledMods());
         CobblemonExtra.LOGGER.info("  已处理的mod: {}", UniversalShowdownMerger.getProcessedMods());
+        ShowdownMergeMetrics.logReport();
     }
 }
 
@@ -0,0 +1,124 @@
+package com.johnson.cobblemonextra.showdown;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Showdown注入流程的JFR事件
+ * 在Java Flight Recorder的时间线上显示资源读取、解析、合并、写入各阶段以及每次注入的整体耗时，
+ * 可以和其他mod的启动工作放在一起对比。未开启录制时事件不会提交，分配也会被JIT消除
+ */
+public final class ShowdownJfrEvents {
+
+    private ShowdownJfrEvents() {
+    }
+
+    /**
+     * 开始一个阶段事件，录制未开启时返回null
+     */
+    static PhaseEvent begin(ShowdownMergeMetrics.Phase phase, String fileName, String modId) {
+        PhaseEvent event = switch (phase) {
+            case LOOKUP -> new ResourceReadEvent();
+            case PARSE -> new ParseEvent();
+            case MERGE -> new MergeEvent();
+            case WRITE -> new WriteEvent();
+        };
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.fileName = fileName;
+        event.modId = modId;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * 开始一次注入事件，录制未开启时返回null
+     * @param source 注入来源，例如 constructor、interceptor、conflict_resolver
+     */
+    public static InjectionEvent beginInjection(String source, String modId) {
+        InjectionEvent event = new InjectionEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.source = source;
+        event.modId = modId;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * 结束并提交注入事件
+     */
+    public static void commitInjection(InjectionEvent event, boolean skipped) {
+        if (event != null) {
+            event.skipped = skipped;
+            event.commit();
+        }
+    }
+
+    /**
+     * 各阶段事件的公共字段
+     */
+    @Category({"CobblemonExtra", "Showdown"})
+    @StackTrace(false)
+    abstract static class PhaseEvent extends Event {
+        @Label("Mod ID")
+        String modId;
+
+        @Label("文件")
+        String fileName;
+
+        @Label("字节数")
+        @DataAmount
+        long bytes;
+
+        @Label("条目数")
+        long entries;
+    }
+
+    @Name("cobblemonextra.showdown.ResourceRead")
+    @Label("Showdown资源读取")
+    @Description("从mod的jar或我们的资源中读取一个Showdown文件")
+    static class ResourceReadEvent extends PhaseEvent {
+    }
+
+    @Name("cobblemonextra.showdown.Parse")
+    @Label("Showdown解析")
+    @Description("扫描一个Showdown文件中的对象和条目")
+    static class ParseEvent extends PhaseEvent {
+    }
+
+    @Name("cobblemonextra.showdown.Merge")
+    @Label("Showdown合并")
+    @Description("合并多个mod的同一个Showdown文件")
+    static class MergeEvent extends PhaseEvent {
+    }
+
+    @Name("cobblemonextra.showdown.Write")
+    @Label("Showdown写入")
+    @Description("写入（或因内容未变化而跳过）一个Showdown输出文件")
+    static class WriteEvent extends PhaseEvent {
+    }
+
+    @Name("cobblemonextra.showdown.Injection")
+    @Label("Showdown注入")
+    @Description("一次完整的Showdown注入或追加")
+    @Category({"CobblemonExtra", "Showdown"})
+    public static class InjectionEvent extends Event {
+        @Label("来源")
+        String source;
+
+        @Label("Mod ID")
+        String modId;
+
+        @Label("已跳过")
+        @Description("合并清单命中或内容已存在，没有实际合并")
+        boolean skipped;
+    }
+}
@@ -0,0 +1,293 @@
+package com.johnson.cobblemonextra.showdown;
+
+import com.johnson.cobblemonextra.CobblemonExtra;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Learnsets的结构化合并
+ * 多个mod定义了同一个物种时不再整条覆盖或重复追加，而是逐个招式合并来源数组：
+ * 1. 来源用哈希集合去重，9M、9T、9E、9S0 等来源取并集
+ * 2. 同一世代的升级来源（例如 9L20 和 9L50）冲突时以优先级高的mod为准
+ * 3. learnset 以外的字段（eventData、encounters 等）整个字段以优先级高的mod为准
+ *
+ * 只有同时出现在多个mod中的物种才会被解析，每个物种条目只扫描一次，总耗时与这些条目的大小成线性关系
+ */
+final class ShowdownLearnsetMerger {
+
+    static final String OBJECT_NAME = "Learnsets";
+    private static final String LEARNSET_KEY = "learnset";
+
+    private ShowdownLearnsetMerger() {
+    }
+
+    /**
+     * 把我们的Learnsets与现有内容合并，我们的优先级更高
+     * @return 合并结果，现有内容或我们的内容中没有Learnsets对象时返回null
+     */
+    static String mergeWithOurs(String existingModId, String existingContent, String ourContent, String fileName) {
+        List<ShowdownPriorityMerger.Contributor> contributors = List.of(
+            new ShowdownPriorityMerger.Contributor(existingModId, 0, existingContent),
+            new ShowdownPriorityMerger.Contributor(CobblemonExtra.MOD_ID, 1000, ourContent));
+        return ShowdownPriorityMerger.merge(contributors, OBJECT_NAME, fileName);
+    }
+
+    /**
+     * 合并同一物种的多个条目
+     * @param contents 每个条目所在的内容
+     * @param entries 按优先级升序排列的条目（后面的优先）
+     * @return 合并后的条目文本，任何一个条目无法结构化解析时返回null（调用方退回到整条覆盖）
+     */
+    static String merge(List<CharSequence> contents, List<ShowdownObjectScanner.Entry> entries) {
+        List<Species> species = new ArrayList<>(entries.size());
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            Species parsed = Species.parse(contents.get(i), entries.get(i));
+            if (parsed == null) {
+                return null;
+            }
+            species.add(parsed);
+        }
+
+        // species 按优先级降序：先放入的字段和招式优先，顺序以优先级最高的mod为准
+        Map<String, String> fields = new LinkedHashMap<>();
+        Map<String, List<Move>> moves = new LinkedHashMap<>();
+        for (Species current : species) {
+            for (Map.Entry<String, String> field : current.fields.entrySet()) {
+                fields.putIfAbsent(field.getKey(), field.getValue());
+            }
+            for (Move move : current.moves) {
+                moves.computeIfAbsent(move.key, key -> new ArrayList<>()).add(move);
+            }
+        }
+
+        StringBuilder result = new StringBuilder(species.getFirst().rawKey).append(": {");
+        boolean first = true;
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            result.append(first ? "\n    " : ",\n    ");
+            first = false;
+            if (LEARNSET_KEY.equals(field.getKey())) {
+                appendLearnset(result, moves);
+            } else {
+                result.append(field.getValue());
+            }
+        }
+        return result.append("\n  }").toString();
+    }
+
+    private static void appendLearnset(StringBuilder result, Map<String, List<Move>> moves) {
+        result.append(LEARNSET_KEY).append(": {");
+        boolean firstMove = true;
+        for (List<Move> candidates : moves.values()) {
+            result.append(firstMove ? "\n      " : ",\n      ");
+            firstMove = false;
+            result.append(candidates.getFirst().rawKey).append(": [");
+
+            // 来源 → 原始文本，去重并保持首次出现的顺序；某个世代的升级来源一旦由高优先级mod给出，低优先级的同世代升级来源被忽略
+            Map<String, String> sources = new LinkedHashMap<>();
+            Set<String> lockedGenerations = new HashSet<>();
+            for (Move move : candidates) {
+                Set<String> generations = new HashSet<>();
+                for (int s = 0; s < move.sources.size(); s++) {
+                    String source = move.sources.get(s);
+                    String generation = levelUpGeneration(source);
+                    if (generation != null) {
+                        if (lockedGenerations.contains(generation)) {
+                            continue;
+                        }
+                        generations.add(generation);
+                    }
+                    sources.putIfAbsent(source, move.rawSources.get(s));
+                }
+                lockedGenerations.addAll(generations);
+            }
+            result.append(String.join(", ", sources.values())).append(']');
+        }
+        result.append("\n    }");
+    }
+
+    /**
+     * "9L20" → "9"，不是升级来源时返回null
+     */
+    private static String levelUpGeneration(String source) {
+        int i = 0;
+        while (i < source.length() && Character.isDigit(source.charAt(i))) {
+            i++;
+        }
+        if (i == 0 || i + 1 >= source.length() || source.charAt(i) != 'L') {
+            return null;
+        }
+        for (int j = i + 1; j < source.length(); j++) {
+            if (!Character.isDigit(source.charAt(j))) {
+                return null;
+            }
+        }
+        return source.substring(0, i);
+    }
+
+    /**
+     * 解析后的物种条目
+     */
+    private static class Species {
+        private final String rawKey;
+        private final Map<String, String> fields = new LinkedHashMap<>();
+        private final List<Move> moves = new ArrayList<>();
+
+        private Species(String rawKey) {
+            this.rawKey = rawKey;
+        }
+
+        static Species parse(CharSequence content, ShowdownObjectScanner.Entry entry) {
+            Field speciesField = Field.of(content, entry);
+            if (speciesField == null || content.charAt(speciesField.valueStart) != '{') {
+                return null;
+            }
+            ShowdownObjectScanner.ObjectLiteral object = ShowdownObjectScanner.scanObject(content, speciesField.valueStart, entry.getEnd());
+            if (object == null) {
+                return null;
+            }
+
+            Species species = new Species(speciesField.rawKey);
+            for (ShowdownObjectScanner.Entry fieldEntry : object.getEntries()) {
+                Field field = Field.of(content, fieldEntry);
+                if (field == null) {
+                    return null;
+                }
+                species.fields.put(fieldEntry.getKey(), fieldEntry.text(content));
+                if (LEARNSET_KEY.equals(fieldEntry.getKey()) && !species.parseLearnset(content, field, fieldEntry)) {
+                    return null;
+                }
+            }
+            return species;
+        }
+
+        private boolean parseLearnset(CharSequence content, Field field, ShowdownObjectScanner.Entry entry) {
+            if (content.charAt(field.valueStart) != '{') {
+                return false;
+            }
+            ShowdownObjectScanner.ObjectLiteral learnset = ShowdownObjectScanner.scanObject(content, field.valueStart, entry.getEnd());
+            if (learnset == null) {
+                return false;
+            }
+            for (ShowdownObjectScanner.Entry moveEntry : learnset.getEntries()) {
+                Field moveField = Field.of(content, moveEntry);
+                Move move = moveField != null ? Move.parse(content, moveField, moveEntry) : null;
+                if (move == null) {
+                    return false;
+                }
+                moves.add(move);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 一个招式及其来源数组
+     */
+    private static class Move {
+        private final String key;
+        private final String rawKey;
+        private final List<String> sources = new ArrayList<>();
+        private final List<String> rawSources = new ArrayList<>();
+
+        private Move(String key, String rawKey) {
+            this.key = key;
+            this.rawKey = rawKey;
+        }
+
+        /**
+         * 只接受由字符串字面量组成的数组，例如 ["9L1", "9M"]
+         */
+        static Move parse(CharSequence content, Field field, ShowdownObjectScanner.Entry entry) {
+            int end = entry.getEnd();
+            if (content.charAt(field.valueStart) != '[' || content.charAt(end - 1) != ']') {
+                return null;
+            }
+            Move move = new Move(entry.getKey(), field.rawKey);
+            int i = field.valueStart + 1;
+            while (i < end - 1) {
+                char c = content.charAt(i);
+                if (c == ',' || Character.isWhitespace(c)) {
+                    i++;
+                    continue;
+                }
+                if (c != '"' && c != '\'') {
+                    return null;
+                }
+                int close = i + 1;
+                while (close < end - 1 && content.charAt(close) != c) {
+                    if (content.charAt(close) == '\\') {
+                        return null;
+                    }
+                    close++;
+                }
+                if (close >= end - 1) {
+                    return null;
+                }
+                move.sources.add(content.subSequence(i + 1, close).toString());
+                move.rawSources.add(content.subSequence(i, close + 1).toString());
+                i = close + 1;
+            }
+            return move;
+        }
+    }
+
+    /**
+     * 条目的原始key文本和值的起点
+     */
+    private static class Field {
+        private final String rawKey;
+        private final int valueStart;
+
+        private Field(String rawKey, int valueStart) {
+            this.rawKey = rawKey;
+            this.valueStart = valueStart;
+        }
+
+        /**
+         * 只接受 key: value 形式的条目（方法简写、计算属性等返回null）
+         */
+        static Field of(CharSequence content, ShowdownObjectScanner.Entry entry) {
+            if (entry.getKey() == null) {
+                return null;
+            }
+            int i = entry.getStart();
+            int end = entry.getEnd();
+            char quote = content.charAt(i);
+            if (quote == '"' || quote == '\'') {
+                i++;
+                while (i < end && content.charAt(i) != quote) {
+                    i += content.charAt(i) == '\\' ? 2 : 1;
+                }
+                i++;
+            } else {
+                while (i < end && isKeyChar(content.charAt(i))) {
+                    i++;
+                }
+            }
+            int keyEnd = i;
+            while (i < end && Character.isWhitespace(content.charAt(i))) {
+                i++;
+            }
+            if (i >= end || content.charAt(i) != ':') {
+                return null;
+            }
+            i++;
+            while (i < end && Character.isWhitespace(content.charAt(i))) {
+                i++;
+            }
+            if (i >= end) {
+                return null;
+            }
+            return new Field(content.subSequence(entry.getStart(), keyEnd).toString(), i);
+        }
+
+        private static boolean isKeyChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.johnson.cobblemonextra.showdown;
+
+import com.johnson.cobblemonextra.CobblemonExtra;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Showdown合并日志（预写日志）
+ * 一次合并运行（启动提交、重新提交、智能追加回退）期间，写入器不直接替换输出文件，而是把新文件暂存到日志目录，
+ * 尾部改写也只暂存要写入的位置和内容。运行结束时先原子写入日志索引（要改动的文件集合、每个文件的新哈希、清单输入），
+ * 这就是提交点，之后才把暂存的内容逐个写到位，最后记录合并清单并删除日志
+ *
+ * 下次启动时日志目录还在，说明上次运行被中断：
+ * - 没有索引：中断发生在提交点之前，输出文件都没有被改动，丢弃暂存的内容（回滚）
+ * - 有索引：中断发生在提交点之后，只把还没有到位的文件写到位（前滚），再按日志中的输入记录合并清单
+ * 两种情况都只触及日志中的文件，之后的清单检查照常命中，不需要重新生成全部文件
+ */
+final class ShowdownMergeJournal {
+
+    static final String JOURNAL_DIR = "cobblemonextra-journal";
+    private static final String INDEX_FILE = "journal.properties";
+    private static final String FORMAT_VERSION = "1";
+    private static final String STAGED_SUFFIX = ".new";
+    private static final String TAIL_SUFFIX = ".tail";
+
+    private static final String KIND_REPLACE = "replace";
+    private static final String KIND_TAIL = "tail";
+
+    // 当前运行的原因，没有进行中的运行时为null
+    private static String activeReason = null;
+    private static final Map<String, Entry> staged = new LinkedHashMap<>();
+
+    private ShowdownMergeJournal() {
+    }
+
+    /**
+     * 日志目录位于 showdown/data/mods/ 下，与合并清单并列（与输出文件在同一文件系统，可以原子移动）
+     */
+    static Path getJournalFolder() {
+        return Paths.get(ShowdownDataManager.getShowdownFolder()).getParent().resolve(JOURNAL_DIR);
+    }
+
+    /**
+     * 开始一次合并运行，之后对输出文件的写入都先暂存
+     * 无法创建日志目录时本次运行直接写入输出文件（与没有日志时相同）
+     */
+    static synchronized void begin(String reason) {
+        Path folder = getJournalFolder();
+        try {
+            deleteFolder(folder);
+            Files.createDirectories(folder);
+            staged.clear();
+            activeReason = reason;
+        } catch (IOException e) {
+            activeReason = null;
+            CobblemonExtra.LOGGER.warn("⚠️ 无法创建Showdown合并日志，本次合并直接写入输出文件: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 暂存整个文件的替换：把写好的临时文件移入日志目录
+     * @return 是否已暂存；没有进行中的运行或目标不是输出文件时返回false，调用方直接替换目标文件
+     */
+    static boolean stage(Path target, Path tempFile) throws IOException {
+        if (!isJournaled(target)) {
+            return false;
+        }
+        // 提交点之前暂存的文件必须已经落盘
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Entry entry = Entry.replace(Files.size(tempFile), ShowdownMergeManifest.sha256(tempFile));
+        String fileName = target.getFileName().toString();
+        synchronized (ShowdownMergeJournal.class) {
+            if (activeReason == null) {
+                return false;
+            }
+            Path folder = getJournalFolder();
+            ShowdownFileWriter.moveIntoPlace(tempFile, folder.resolve(fileName + STAGED_SUFFIX));
+            Files.deleteIfExists(folder.resolve(fileName + TAIL_SUFFIX));
+            staged.put(fileName, entry);
+        }
+        CobblemonExtra.LOGGER.debug("🧾 已暂存 {} ({} 字节)", fileName, entry.size);
+        return true;
+    }
+
+    /**
+     * 暂存尾部改写：[guardStart, position) 是改写位置之前必须保持不变的内容，从 position 开始写入 newTail
+     * @return 是否已暂存；返回false时调用方直接原地改写
+     */
+    static boolean stageTail(Path target, long guardStart, byte[] guard, long position, byte[] newTail) throws IOException {
+        if (!isJournaled(target)) {
+            return false;
+        }
+        Entry entry = Entry.tail(position, position + newTail.length, ShowdownMergeManifest.sha256(newTail),
+            guardStart, ShowdownMergeManifest.sha256(guard));
+        String fileName = target.getFileName().toString();
+        synchronized (ShowdownMergeJournal.class) {
+            if (activeReason == null) {
+                return false;
+            }
+            Path folder = getJournalFolder();
+            Path temp = Files.createTempFile(folder, fileName, ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    ShowdownFileWriter.writeFully(channel, 0, newTail);
+                    channel.force(true);
+                }
+                ShowdownFileWriter.moveIntoPlace(temp, folder.resolve(fileName + TAIL_SUFFIX));
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            Files.deleteIfExists(folder.resolve(fileName + STAGED_SUFFIX));
+            staged.put(fileName, entry);
+        }
+        CobblemonExtra.LOGGER.debug("🧾 已暂存 {} 的尾部改写 ({} 字节)", fileName, newTail.length);
+        return true;
+    }
+
+    /**
+     * 本次运行中后来的写入发现目标文件已经是最终内容（内容未变化），丢弃之前为它暂存的内容
+     */
+    static void unstage(Path target) {
+        if (!isJournaled(target)) {
+            return;
+        }
+        String fileName = target.getFileName().toString();
+        synchronized (ShowdownMergeJournal.class) {
+            if (staged.remove(fileName) != null) {
+                Path folder = getJournalFolder();
+                try {
+                    Files.deleteIfExists(folder.resolve(fileName + STAGED_SUFFIX));
+                    Files.deleteIfExists(folder.resolve(fileName + TAIL_SUFFIX));
+                } catch (IOException e) {
+                    CobblemonExtra.LOGGER.debug("删除 {} 的暂存内容失败: {}", fileName, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 提交本次运行：写入日志索引（提交点），把暂存的内容写到位，需要时记录合并清单，最后删除日志
+     * 没有进行中的运行时只按需记录合并清单
+     * @param recordManifest 运行是否成功、需要记录合并清单
+     * @return 暂存的内容是否全部写到位
+     */
+    static synchronized boolean commit(boolean recordManifest) {
+        if (activeReason == null) {
+            if (recordManifest) {
+                ShowdownMergeManifest.record();
+            }
+            return true;
+        }
+        String reason = activeReason;
+        activeReason = null;
+
+        Path folder = getJournalFolder();
+        Properties index = new Properties();
+        index.setProperty("format", FORMAT_VERSION);
+        index.setProperty("reason", reason);
+        index.setProperty("record", String.valueOf(recordManifest));
+        for (Map.Entry<String, Entry> entry : staged.entrySet()) {
+            entry.getValue().store(index, entry.getKey());
+        }
+        staged.clear();
+        if (recordManifest) {
+            for (Map.Entry<String, String> input : ShowdownMergeManifest.getInputs().entrySet()) {
+                index.setProperty("input." + input.getKey(), input.getValue());
+            }
+        }
+
+        try {
+            writeIndex(folder, index);
+        } catch (IOException e) {
+            // 无法写入提交点时仍然写出暂存的内容，只是这次运行中断后无法恢复
+            CobblemonExtra.LOGGER.warn("⚠️ 写入Showdown合并日志索引失败: {}", e.getMessage());
+        }
+
+        boolean applied = rollForward(folder, index, false);
+        if (applied && recordManifest) {
+            ShowdownMergeManifest.record();
+        }
+        try {
+            deleteFolder(folder);
+        } catch (IOException e) {
+            CobblemonExtra.LOGGER.warn("删除Showdown合并日志失败，下次启动时会重新检查: {}", e.getMessage());
+        }
+        return applied;
+    }
+
+    /**
+     * 放弃本次运行：丢弃所有暂存的内容，输出文件保持运行开始前的状态
+     */
+    static synchronized void abort() {
+        if (activeReason == null) {
+            return;
+        }
+        CobblemonExtra.LOGGER.warn("🧾 放弃Showdown合并运行（{}），丢弃 {} 个暂存的文件", activeReason, staged.size());
+        activeReason = null;
+        staged.clear();
+        try {
+            deleteFolder(getJournalFolder());
+        } catch (IOException e) {
+            CobblemonExtra.LOGGER.debug("删除Showdown合并日志失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 启动时调用：上次运行被中断时按日志回滚或前滚，只触及日志中的文件
+     */
+    static synchronized void recover() {
+        Path folder = getJournalFolder();
+        if (!Files.isDirectory(folder)) {
+            return;
+        }
+        try {
+            Properties index = loadIndex(folder);
+            if (index == null) {
+                CobblemonExtra.LOGGER.warn("🧾 上次的Showdown合并在提交前被中断，丢弃暂存的内容，输出文件保持上次合并的状态");
+            } else if (!FORMAT_VERSION.equals(index.getProperty("format"))) {
+                CobblemonExtra.LOGGER.warn("🧾 无法识别的Showdown合并日志版本，重新合并");
+                ShowdownMergeManifest.invalidate();
+            } else {
+                CobblemonExtra.LOGGER.warn("🧾 上次的Showdown合并（{}）在写出过程中被中断，按合并日志前滚", index.getProperty("reason"));
+                if (!rollForward(folder, index, true)) {
+                    CobblemonExtra.LOGGER.warn("🧾 部分文件无法按合并日志恢复，重新合并");
+                    ShowdownMergeManifest.invalidate();
+                } else if (Boolean.parseBoolean(index.getProperty("record"))) {
+                    Map<String, String> inputs = new TreeMap<>();
+                    for (String key : index.stringPropertyNames()) {
+                        if (key.startsWith("input.")) {
+                            inputs.put(key.substring("input.".length()), index.getProperty(key));
+                        }
+                    }
+                    ShowdownMergeManifest.record(inputs);
+                }
+            }
+        } catch (Exception e) {
+            CobblemonExtra.LOGGER.warn("按Showdown合并日志恢复失败，重新合并", e);
+            ShowdownMergeManifest.invalidate();
+        }
+        try {
+            deleteFolder(folder);
+        } catch (IOException e) {
+            CobblemonExtra.LOGGER.warn("删除Showdown合并日志失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 把索引中的每个文件写到位，已经到位的文件不再触及
+     * @param verify 是否先校验暂存内容的哈希（启动恢复时）
+     * @return 是否全部写到位
+     */
+    private static boolean rollForward(Path folder, Properties index, boolean verify) {
+        Path outputFolder = Paths.get(ShowdownDataManager.getShowdownFolder());
+        boolean applied = true;
+        int touched = 0;
+        for (String fileName : fileNames(index)) {
+            try {
+                Entry entry = Entry.load(index, fileName);
+                if (entry.apply(folder, outputFolder.resolve(fileName), fileName, verify)) {
+                    touched++;
+                }
+            } catch (Exception e) {
+                applied = false;
+                CobblemonExtra.LOGGER.warn("⚠️ 无法写出 {}: {}", fileName, e.getMessage());
+            }
+        }
+        CobblemonExtra.LOGGER.debug("🧾 合并日志中的 {} 个文件已到位，本次写出 {} 个", fileNames(index).size(), touched);
+        return applied;
+    }
+
+    private static boolean isJournaled(Path target) {
+        synchronized (ShowdownMergeJournal.class) {
+            if (activeReason == null) {
+                return false;
+            }
+        }
+        Path parent = target.toAbsolutePath().normalize().getParent();
+        return parent != null && parent.equals(Paths.get(ShowdownDataManager.getShowdownFolder()).toAbsolutePath().normalize());
+    }
+
+    private static TreeSet<String> fileNames(Properties index) {
+        TreeSet<String> names = new TreeSet<>();
+        for (String key : index.stringPropertyNames()) {
+            if (key.startsWith("file.") && key.endsWith(".kind")) {
+                names.add(key.substring("file.".length(), key.length() - ".kind".length()));
+            }
+        }
+        return names;
+    }
+
+    private static void writeIndex(Path folder, Properties index) throws IOException {
+        Path temp = folder.resolve(INDEX_FILE + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            index.store(writer, "CobblemonExtra Showdown merge journal");
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, folder.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Properties loadIndex(Path folder) throws IOException {
+        Path path = folder.resolve(INDEX_FILE);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        Properties index = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            index.load(reader);
+        }
+        return index;
+    }
+
+    private static void deleteFolder(Path folder) throws IOException {
+        if (!Files.isDirectory(folder)) {
+            return;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+            for (Path path : stream) {
+                Files.deleteIfExists(path);
+            }
+        }
+        Files.deleteIfExists(folder);
+    }
+
+    /**
+     * 日志中的一个文件：整个替换，或者尾部改写
+     */
+    private static class Entry {
+        private final String kind;
+        // 写到位之后的文件长度
+        private final long size;
+        // 替换：新文件的哈希；尾部改写：新尾部的哈希
+        private final String sha256;
+        // 尾部改写：写入位置，以及写入位置之前必须保持不变的内容的起点和哈希
+        private final long position;
+        private final long guardStart;
+        private final String guardSha256;
+
+        private Entry(String kind, long size, String sha256, long position, long guardStart, String guardSha256) {
+            this.kind = kind;
+            this.size = size;
+            this.sha256 = sha256;
+            this.position = position;
+            this.guardStart = guardStart;
+            this.guardSha256 = guardSha256;
+        }
+
+        static Entry replace(long size, String sha256) {
+            return new Entry(KIND_REPLACE, size, sha256, 0, 0, null);
+        }
+
+        static Entry tail(long position, long size, String tailSha256, long guardStart, String guardSha256) {
+            return new Entry(KIND_TAIL, size, tailSha256, position, guardStart, guardSha256);
+        }
+
+        void store(Properties index, String fileName) {
+            String prefix = "file." + fileName + ".";
+            index.setProperty(prefix + "kind", kind);
+            index.setProperty(prefix + "size", String.valueOf(size));
+            index.setProperty(prefix + "sha256", sha256);
+            if (KIND_TAIL.equals(kind)) {
+                index.setProperty(prefix + "position", String.valueOf(position));
+                index.setProperty(prefix + "guardStart", String.valueOf(guardStart));
+                index.setProperty(prefix + "guardSha256", guardSha256);
+            }
+        }
+
+        static Entry load(Properties index, String fileName) {
+            String prefix = "file." + fileName + ".";
+            String kind = index.getProperty(prefix + "kind");
+            long size = Long.parseLong(index.getProperty(prefix + "size"));
+            String sha256 = index.getProperty(prefix + "sha256");
+            if (KIND_REPLACE.equals(kind)) {
+                return replace(size, sha256);
+            }
+            if (KIND_TAIL.equals(kind)) {
+                return tail(Long.parseLong(index.getProperty(prefix + "position")), size, sha256,
+                    Long.parseLong(index.getProperty(prefix + "guardStart")), index.getProperty(prefix + "guardSha256"));
+            }
+            throw new IllegalArgumentException("未知的日志条目类型: " + kind);
+        }
+
+        /**
+         * 把这个文件写到位
+         * @return 是否改动了目标文件（已经到位时返回false）
+         * @throws IOException 暂存的内容丢失或损坏，或者目标文件已经被改成了日志之外的内容
+         */
+        boolean apply(Path folder, Path target, String fileName, boolean verify) throws IOException {
+            return KIND_REPLACE.equals(kind) ? applyReplace(folder, target, fileName, verify) : applyTail(folder, target, fileName);
+        }
+
+        private boolean applyReplace(Path folder, Path target, String fileName, boolean verify) throws IOException {
+            Path stagedPath = folder.resolve(fileName + STAGED_SUFFIX);
+            if (Files.isRegularFile(stagedPath)) {
+                if (verify && (Files.size(stagedPath) != size || !sha256.equals(ShowdownMergeManifest.sha256(stagedPath)))) {
+                    throw new IOException("暂存的文件已损坏");
+                }
+                ShowdownFileWriter.moveIntoPlace(stagedPath, target);
+                return true;
+            }
+            if (Files.isRegularFile(target) && Files.size(target) == size && sha256.equals(ShowdownMergeManifest.sha256(target))) {
+                return false;
+            }
+            throw new IOException("暂存的文件不存在，目标文件也不是日志记录的内容");
+        }
+
+        private boolean applyTail(Path folder, Path target, String fileName) throws IOException {
+            byte[] newTail = Files.readAllBytes(folder.resolve(fileName + TAIL_SUFFIX));
+            if (position + newTail.length != size || !sha256.equals(ShowdownMergeManifest.sha256(newTail))) {
+                throw new IOException("暂存的尾部已损坏");
+            }
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long current = channel.size();
+                if (current == size && sha256.equals(ShowdownMergeManifest.sha256(ShowdownFileWriter.read(channel, position, newTail.length)))) {
+                    return false;
+                }
+                // 改写只触及 position 之后的字节，中断时留下的半截尾部可以直接重新写入
+                if (current < position
+                    || !guardSha256.equals(ShowdownMergeManifest.sha256(ShowdownFileWriter.read(channel, guardStart, (int) (position - guardStart))))) {
+                    throw new IOException("改写位置之前的内容已经变化");
+                }
+                ShowdownFileWriter.applyTail(channel, target, position, newTail);
+            }
+            return true;
+        }
+    }
+}
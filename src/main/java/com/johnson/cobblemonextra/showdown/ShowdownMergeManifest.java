@@ -0,0 +1,290 @@
+package com.johnson.cobblemonextra.showdown;
+
+import com.johnson.cobblemonextra.CobblemonExtra;
+import com.johnson.cobblemonextra.config.ShowdownInterceptionConfig;
+import net.neoforged.fml.ModList;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Showdown合并清单
+ * 记录所有合并输入（我们的资源、被拦截mod的文件、mod版本、配置值）以及输出文件的哈希
+ * 输入和磁盘上的输出都没有变化时，启动阶段只做一次 stat 和哈希比对，跳过全部合并工作
+ */
+public class ShowdownMergeManifest {
+
+    static final String MANIFEST_FILE = "cobblemonextra-manifest.properties";
+    private static final String FORMAT_VERSION = "2";
+    private static final String MISSING = "missing";
+
+    private static Map<String, String> currentInputs = null;
+    private static Boolean upToDate = null;
+    private static Properties recorded = null;
+
+    /**
+     * 清单位于 showdown/data/mods/ 下，与 cobblemon/ 目录并列
+     */
+    public static Path getManifestPath() {
+        return Paths.get(ShowdownDataManager.getShowdownFolder()).getParent().resolve(MANIFEST_FILE);
+    }
+
+    /**
+     * 检查本次启动的输入和磁盘上的输出是否与清单一致（每次启动只计算一次）
+     */
+    public static synchronized boolean isUpToDate() {
+        if (upToDate != null) {
+            return upToDate;
+        }
+        upToDate = false;
+        try {
+            recorded = load();
+            if (recorded == null) {
+                CobblemonExtra.LOGGER.info("📋 未找到Showdown合并清单，需要执行完整合并");
+                return false;
+            }
+
+            Map<String, String> inputs = getInputs();
+            Map<String, String> recordedInputs = new TreeMap<>();
+            for (String key : recorded.stringPropertyNames()) {
+                if (key.startsWith("input.")) {
+                    recordedInputs.put(key.substring("input.".length()), recorded.getProperty(key));
+                }
+            }
+            if (!recordedInputs.equals(inputs)) {
+                CobblemonExtra.LOGGER.info("📋 Showdown合并输入已变化，需要重新合并");
+                return false;
+            }
+
+            for (String fileName : ShowdownDataManager.SHOWDOWN_FILES) {
+                if (!outputMatches(fileName, true)) {
+                    CobblemonExtra.LOGGER.info("📋 输出文件 {} 与清单不一致，需要重新合并", fileName);
+                    return false;
+                }
+            }
+
+            upToDate = true;
+            CobblemonExtra.LOGGER.info("📋 Showdown合并清单命中，输入和输出均未变化，跳过合并");
+        } catch (Exception e) {
+            CobblemonExtra.LOGGER.warn("检查Showdown合并清单时发生错误，执行完整合并", e);
+        }
+        return upToDate;
+    }
+
+    /**
+     * 只用 stat 检查输出文件自清单记录后是否被改动（例如被其他模组重写）
+     */
+    public static synchronized boolean outputsUnchanged() {
+        try {
+            if (!ensureLoaded()) {
+                return false;
+            }
+            for (String fileName : ShowdownDataManager.SHOWDOWN_FILES) {
+                if (!outputMatches(fileName, false)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            CobblemonExtra.LOGGER.debug("检查输出文件状态失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 只用 stat 检查单个输出文件是否仍是清单记录的内容（即我们上次写出的文件）
+     */
+    static synchronized boolean isRecordedOutput(String fileName) {
+        try {
+            return ensureLoaded() && outputMatches(fileName, false);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 在最后一次写入完成后记录清单
+     */
+    public static synchronized void record() {
+        record(getInputs());
+    }
+
+    /**
+     * 按指定的合并输入记录清单（合并日志恢复时使用中断的那次运行的输入）
+     */
+    static synchronized void record(Map<String, String> inputs) {
+        try {
+            Properties properties = new Properties();
+            for (Map.Entry<String, String> input : inputs.entrySet()) {
+                properties.setProperty("input." + input.getKey(), input.getValue());
+            }
+            for (String fileName : ShowdownDataManager.SHOWDOWN_FILES) {
+                Path path = Paths.get(ShowdownDataManager.getShowdownFolder(), fileName);
+                if (Files.exists(path)) {
+                    properties.setProperty("output." + fileName + ".size", String.valueOf(Files.size(path)));
+                    properties.setProperty("output." + fileName + ".mtime",
+                        String.valueOf(Files.getLastModifiedTime(path).toMillis()));
+                    properties.setProperty("output." + fileName + ".sha256", sha256(path));
+                } else {
+                    properties.setProperty("output." + fileName + ".sha256", MISSING);
+                }
+            }
+
+            Path manifestPath = getManifestPath();
+            Files.createDirectories(manifestPath.getParent());
+            Path tempPath = manifestPath.resolveSibling(MANIFEST_FILE + ".tmp");
+            StringBuilder content = new StringBuilder("# CobblemonExtra Showdown merge manifest\n");
+            for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+                content.append(key).append('=').append(properties.getProperty(key)).append('\n');
+            }
+            Files.writeString(tempPath, content, StandardCharsets.UTF_8);
+            Files.move(tempPath, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            recorded = properties;
+            CobblemonExtra.LOGGER.info("📋 已记录Showdown合并清单: {}", manifestPath);
+        } catch (Exception e) {
+            CobblemonExtra.LOGGER.warn("记录Showdown合并清单失败，下次启动将重新合并", e);
+        }
+    }
+
+    /**
+     * 配置加载或热重载后刷新清单输入中的配置值（之后的 record 会记录新值）
+     * 配置值有变化时丢弃已有的检查结果，下次 isUpToDate 按新的输入重新比较
+     */
+    static synchronized void refreshConfigInputs() {
+        if (currentInputs == null) {
+            return;
+        }
+        Map<String, String> config = ShowdownConfigTemplate.configInputs();
+        if (!currentInputs.entrySet().containsAll(config.entrySet())) {
+            currentInputs.putAll(config);
+            upToDate = null;
+        }
+    }
+
+    /**
+     * 删除清单，下次启动强制完整合并
+     */
+    public static synchronized void invalidate() {
+        try {
+            Files.deleteIfExists(getManifestPath());
+        } catch (IOException e) {
+            CobblemonExtra.LOGGER.warn("删除Showdown合并清单失败: {}", e.getMessage());
+        }
+        recorded = null;
+        upToDate = false;
+    }
+
+    /**
+     * 重置缓存的检查结果（用于测试或重新加载）
+     */
+    public static synchronized void reset() {
+        currentInputs = null;
+        upToDate = null;
+        recorded = null;
+    }
+
+    /**
+     * 收集本次启动的全部合并输入（每次启动只收集一次，检查和记录使用同一份数据）
+     */
+    static synchronized Map<String, String> getInputs() {
+        if (currentInputs != null) {
+            return currentInputs;
+        }
+        Map<String, String> inputs = new TreeMap<>();
+        inputs.put("format", FORMAT_VERSION);
+
+        for (String fileName : ShowdownDataManager.SHOWDOWN_FILES) {
+            String hash = ShowdownBundledIndex.sha256(fileName);
+            inputs.put("resource." + fileName, hash != null ? hash : MISSING);
+        }
+
+        inputs.put("mod." + CobblemonExtra.MOD_ID + ".version", getModVersion(CobblemonExtra.MOD_ID));
+        for (String modId : ShowdownInterceptionConfig.getEnabledMods()) {
+            inputs.put("mod." + modId + ".version", getModVersion(modId));
+            for (String fileName : ShowdownDataManager.SHOWDOWN_FILES) {
+                String hash = UniversalShowdownMerger.modShowdownFileHash(modId, fileName);
+                inputs.put("mod." + modId + "." + fileName, hash != null ? hash : MISSING);
+            }
+        }
+
+        inputs.putAll(ShowdownConfigTemplate.configInputs());
+        currentInputs = inputs;
+        return inputs;
+    }
+
+    private static boolean outputMatches(String fileName, boolean allowHash) throws IOException {
+        String recordedHash = recorded.getProperty("output." + fileName + ".sha256");
+        if (recordedHash == null) {
+            return false;
+        }
+        Path path = Paths.get(ShowdownDataManager.getShowdownFolder(), fileName);
+        if (!Files.exists(path)) {
+            return MISSING.equals(recordedHash);
+        }
+        if (MISSING.equals(recordedHash)) {
+            return false;
+        }
+        if (!String.valueOf(Files.size(path)).equals(recorded.getProperty("output." + fileName + ".size"))) {
+            return false;
+        }
+        if (String.valueOf(Files.getLastModifiedTime(path).toMillis()).equals(recorded.getProperty("output." + fileName + ".mtime"))) {
+            return true;
+        }
+        // 大小相同但修改时间不同，比较内容哈希
+        return allowHash && recordedHash.equals(sha256(path));
+    }
+
+    private static boolean ensureLoaded() throws IOException {
+        if (recorded == null) {
+            recorded = load();
+        }
+        return recorded != null;
+    }
+
+    private static Properties load() throws IOException {
+        Path manifestPath = getManifestPath();
+        if (!Files.exists(manifestPath)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(manifestPath, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    private static String getModVersion(String modId) {
+        try {
+            return ModList.get().getModContainerById(modId)
+                .map(container -> container.getModInfo().getVersion().toString())
+                .orElse(MISSING);
+        } catch (Exception e) {
+            return MISSING;
+        }
+    }
+
+    static String sha256(Path path) throws IOException {
+        return HexFormat.of().formatHex(ShowdownFileWriter.digest(path));
+    }
+
+    static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+}
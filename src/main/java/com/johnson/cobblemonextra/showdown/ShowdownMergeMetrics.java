@@ -0,0 +1,374 @@
+package com.johnson.cobblemonextra.showdown;
+
+import com.johnson.cobblemonextra.CobblemonExtra;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Showdown合并指标
+ * 每次注入和合并都会记录：按文件、按阶段（资源查找、解析、合并、写入）的耗时，读入和写出的字节数，
+ * 每个mod新增和跳过的条目数，以及因内容未变化而避免的写入次数
+ *
+ * 通过 /cobblemonextra showdown stats 命令和 JMX（com.johnson.cobblemonextra:type=ShowdownMerge）查看
+ */
+public class ShowdownMergeMetrics {
+
+    public static final String JMX_NAME = "com.johnson.cobblemonextra:type=ShowdownMerge";
+
+    /**
+     * 合并阶段
+     */
+    public enum Phase {
+        LOOKUP("资源查找"),
+        PARSE("解析"),
+        MERGE("合并"),
+        WRITE("写入");
+
+        private final String displayName;
+
+        Phase(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() { return displayName; }
+    }
+
+    private static final Map<String, FileMetrics> FILES = new ConcurrentHashMap<>();
+    private static final Map<String, ModMetrics> MODS = new ConcurrentHashMap<>();
+    private static volatile boolean jmxRegistered = false;
+
+    /**
+     * 开始计时，配合 try-with-resources 使用
+     * @param modId 相关的mod，没有时传null
+     */
+    public static Timer time(Phase phase, String fileName, String modId) {
+        return new Timer(phase, fileName, modId);
+    }
+
+    /**
+     * 记录一次阶段耗时
+     */
+    public static void record(Phase phase, String fileName, String modId, long nanos) {
+        file(fileName).phaseNanos.get(phase).add(nanos);
+        if (modId != null) {
+            mod(modId).phaseNanos.get(phase).add(nanos);
+        }
+    }
+
+    /**
+     * 记录读入的字节数
+     */
+    public static void recordBytesIn(String fileName, String modId, long bytes) {
+        file(fileName).bytesIn.add(bytes);
+        if (modId != null) {
+            mod(modId).bytesIn.add(bytes);
+        }
+    }
+
+    /**
+     * 记录一次写入结果
+     */
+    public static void recordWrite(String fileName, long bytes, boolean skipped) {
+        FileMetrics metrics = file(fileName);
+        if (skipped) {
+            metrics.writesAvoided.increment();
+        } else {
+            metrics.writes.increment();
+            metrics.bytesOut.add(bytes);
+        }
+    }
+
+    /**
+     * 记录某个mod在一次合并中新增和跳过的条目数
+     */
+    public static void recordEntries(String fileName, String modId, long added, long skipped) {
+        file(fileName).entriesAdded.add(added);
+        file(fileName).entriesSkipped.add(skipped);
+        mod(modId).entriesAdded.add(added);
+        mod(modId).entriesSkipped.add(skipped);
+    }
+
+    /**
+     * 清空所有指标
+     */
+    public static void reset() {
+        FILES.clear();
+        MODS.clear();
+    }
+
+    /**
+     * 注册JMX MBean（重复调用无副作用）
+     */
+    public static synchronized void registerMBean() {
+        if (jmxRegistered) {
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName(JMX_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new JmxView(), name);
+            }
+            jmxRegistered = true;
+            CobblemonExtra.LOGGER.info("📈 Showdown合并指标已注册到JMX: {}", JMX_NAME);
+        } catch (Exception e) {
+            CobblemonExtra.LOGGER.warn("注册Showdown合并指标MBean失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 生成可读的统计报告（命令和日志共用）
+     */
+    public static List<String> report() {
+        List<String> lines = new ArrayList<>();
+        lines.add("📊 Showdown合并统计");
+
+        Map<Phase, Long> totals = new EnumMap<>(Phase.class);
+        long bytesIn = 0, bytesOut = 0, writes = 0, avoided = 0;
+        for (FileMetrics metrics : FILES.values()) {
+            for (Phase phase : Phase.values()) {
+                totals.merge(phase, metrics.phaseNanos.get(phase).sum(), Long::sum);
+            }
+            bytesIn += metrics.bytesIn.sum();
+            bytesOut += metrics.bytesOut.sum();
+            writes += metrics.writes.sum();
+            avoided += metrics.writesAvoided.sum();
+        }
+        lines.add("  阶段耗时: " + formatPhases(totals));
+        lines.add(String.format("  读入 %d 字节，写出 %d 字节，写入 %d 次，避免写入 %d 次", bytesIn, bytesOut, writes, avoided));
+
+        lines.add("  按文件:");
+        for (Map.Entry<String, FileMetrics> entry : new TreeMap<>(FILES).entrySet()) {
+            FileMetrics metrics = entry.getValue();
+            lines.add(String.format("    %s: %s | 读入 %d / 写出 %d 字节 | 条目 +%d / 跳过 %d | 避免写入 %d",
+                entry.getKey(), formatPhases(metrics.phaseTotals()), metrics.bytesIn.sum(), metrics.bytesOut.sum(),
+                metrics.entriesAdded.sum(), metrics.entriesSkipped.sum(), metrics.writesAvoided.sum()));
+        }
+
+        lines.add("  按mod:");
+        for (Map.Entry<String, ModMetrics> entry : new TreeMap<>(MODS).entrySet()) {
+            ModMetrics metrics = entry.getValue();
+            lines.add(String.format("    %s: %s | 读入 %d 字节 | 条目 +%d / 跳过 %d",
+                entry.getKey(), formatPhases(metrics.phaseTotals()), metrics.bytesIn.sum(),
+                metrics.entriesAdded.sum(), metrics.entriesSkipped.sum()));
+        }
+        return lines;
+    }
+
+    /**
+     * 把统计报告输出到日志
+     */
+    public static void logReport() {
+        for (String line : report()) {
+            CobblemonExtra.LOGGER.info(line);
+        }
+    }
+
+    private static String formatPhases(Map<Phase, Long> nanos) {
+        StringBuilder result = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            if (!result.isEmpty()) {
+                result.append(", ");
+            }
+            result.append(phase.getDisplayName()).append(' ')
+                .append(String.format("%.1f", nanos.getOrDefault(phase, 0L) / 1_000_000.0)).append(" ms");
+        }
+        return result.toString();
+    }
+
+    private static FileMetrics file(String fileName) {
+        return FILES.computeIfAbsent(fileName, key -> new FileMetrics());
+    }
+
+    private static ModMetrics mod(String modId) {
+        return MODS.computeIfAbsent(modId, key -> new ModMetrics());
+    }
+
+    private static Map<Phase, LongAdder> newPhaseMap() {
+        Map<Phase, LongAdder> map = new EnumMap<>(Phase.class);
+        for (Phase phase : Phase.values()) {
+            map.put(phase, new LongAdder());
+        }
+        return map;
+    }
+
+    private static Map<Phase, Long> sum(Map<Phase, LongAdder> adders) {
+        Map<Phase, Long> totals = new EnumMap<>(Phase.class);
+        adders.forEach((phase, adder) -> totals.put(phase, adder.sum()));
+        return totals;
+    }
+
+    /**
+     * 阶段计时器，关闭时记录耗时，开启JFR录制时同时提交对应的JFR事件
+     */
+    public static class Timer implements AutoCloseable {
+        private final Phase phase;
+        private final String fileName;
+        private final String modId;
+        private final ShowdownJfrEvents.PhaseEvent event;
+        private final long start;
+
+        Timer(Phase phase, String fileName, String modId) {
+            this.phase = phase;
+            this.fileName = fileName;
+            this.modId = modId;
+            this.event = ShowdownJfrEvents.begin(phase, fileName, modId);
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * 设置本阶段处理的字节数（只用于JFR事件）
+         */
+        public Timer bytes(long bytes) {
+            if (event != null) {
+                event.bytes = bytes;
+            }
+            return this;
+        }
+
+        /**
+         * 设置本阶段处理的条目数（只用于JFR事件）
+         */
+        public Timer entries(long entries) {
+            if (event != null) {
+                event.entries = entries;
+            }
+            return this;
+        }
+
+        @Override
+        public void close() {
+            record(phase, fileName, modId, System.nanoTime() - start);
+            if (event != null) {
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * 单个文件的指标
+     */
+    private static class FileMetrics {
+        private final Map<Phase, LongAdder> phaseNanos = newPhaseMap();
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+        private final LongAdder writes = new LongAdder();
+        private final LongAdder writesAvoided = new LongAdder();
+        private final LongAdder entriesAdded = new LongAdder();
+        private final LongAdder entriesSkipped = new LongAdder();
+
+        Map<Phase, Long> phaseTotals() { return sum(phaseNanos); }
+    }
+
+    /**
+     * 单个mod的指标
+     */
+    private static class ModMetrics {
+        private final Map<Phase, LongAdder> phaseNanos = newPhaseMap();
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder entriesAdded = new LongAdder();
+        private final LongAdder entriesSkipped = new LongAdder();
+
+        Map<Phase, Long> phaseTotals() { return sum(phaseNanos); }
+    }
+
+    /**
+     * JMX属性接口
+     */
+    public interface ShowdownMergeMetricsMXBean {
+        Map<String, Long> getPhaseMillis();
+        Map<String, Long> getFileMillis();
+        Map<String, Long> getModMillis();
+        Map<String, Long> getModEntriesAdded();
+        Map<String, Long> getModEntriesSkipped();
+        long getBytesIn();
+        long getBytesOut();
+        long getWrites();
+        long getWritesAvoided();
+        List<String> getReport();
+        void reset();
+    }
+
+    /**
+     * JMX视图，读取时即时汇总
+     */
+    private static class JmxView implements ShowdownMergeMetricsMXBean {
+        @Override
+        public Map<String, Long> getPhaseMillis() {
+            Map<String, Long> result = new TreeMap<>();
+            for (FileMetrics metrics : FILES.values()) {
+                metrics.phaseTotals().forEach((phase, nanos) -> result.merge(phase.name(), nanos / 1_000_000, Long::sum));
+            }
+            return result;
+        }
+
+        @Override
+        public Map<String, Long> getFileMillis() {
+            Map<String, Long> result = new TreeMap<>();
+            FILES.forEach((file, metrics) -> result.put(file, totalMillis(metrics.phaseTotals())));
+            return result;
+        }
+
+        @Override
+        public Map<String, Long> getModMillis() {
+            Map<String, Long> result = new TreeMap<>();
+            MODS.forEach((mod, metrics) -> result.put(mod, totalMillis(metrics.phaseTotals())));
+            return result;
+        }
+
+        @Override
+        public Map<String, Long> getModEntriesAdded() {
+            Map<String, Long> result = new TreeMap<>();
+            MODS.forEach((mod, metrics) -> result.put(mod, metrics.entriesAdded.sum()));
+            return result;
+        }
+
+        @Override
+        public Map<String, Long> getModEntriesSkipped() {
+            Map<String, Long> result = new TreeMap<>();
+            MODS.forEach((mod, metrics) -> result.put(mod, metrics.entriesSkipped.sum()));
+            return result;
+        }
+
+        @Override
+        public long getBytesIn() {
+            return FILES.values().stream().mapToLong(metrics -> metrics.bytesIn.sum()).sum();
+        }
+
+        @Override
+        public long getBytesOut() {
+            return FILES.values().stream().mapToLong(metrics -> metrics.bytesOut.sum()).sum();
+        }
+
+        @Override
+        public long getWrites() {
+            return FILES.values().stream().mapToLong(metrics -> metrics.writes.sum()).sum();
+        }
+
+        @Override
+        public long getWritesAvoided() {
+            return FILES.values().stream().mapToLong(metrics -> metrics.writesAvoided.sum()).sum();
+        }
+
+        @Override
+        public List<String> getReport() {
+            return report();
+        }
+
+        @Override
+        public void reset() {
+            ShowdownMergeMetrics.reset();
+        }
+
+        private static long totalMillis(Map<Phase, Long> nanos) {
+            return nanos.values().stream().mapToLong(Long::longValue).sum() / 1_000_000;
+        }
+    }
+}
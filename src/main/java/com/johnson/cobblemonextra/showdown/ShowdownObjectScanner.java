@@ -0,0 +1,798 @@
+package com.johnson.cobblemonextra.showdown;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Showdown JS对象字面量扫描器
+ * 单次线性扫描识别顶层的 const X = {...} 对象以及其中每个条目的范围（key, start, end）
+ * 正确跳过字符串、模板字符串、注释和正则表达式中的括号，所有合并器共用
+ *
+ * 扫描器是可续接的状态机：可以一次性扫描整个字符串，也可以分块 feed
+ * 向量分类可用时，一次性扫描借助 ShowdownStructuralIndex 直接跳过字符串、注释、模板字符串以及条目值内部代码中的普通字符，
+ * 条目边界与逐字符扫描完全相同
+ */
+public class ShowdownObjectScanner {
+
+    private static final int MODE_CODE = 0;
+    private static final int MODE_LINE_COMMENT = 1;
+    private static final int MODE_BLOCK_COMMENT = 2;
+    private static final int MODE_SQ_STRING = 3;
+    private static final int MODE_DQ_STRING = 4;
+    private static final int MODE_TEMPLATE = 5;
+    private static final int MODE_REGEX = 6;
+    private static final int MODE_REGEX_CLASS = 7;
+
+    // 嵌套对象前补上的声明，让扫描器把它当作顶层对象
+    private static final String NESTED_PREFIX = "const _ = ";
+
+    private static final char KIND_TEMPLATE = '`';
+    private static final char KIND_TEMPLATE_EXPR = '$';
+
+    private static final int DECL_NONE = 0;
+    private static final int DECL_KEYWORD = 1;
+    private static final int DECL_NAME = 2;
+    private static final int DECL_ASSIGN = 3;
+
+    private static final int KEY_NONE = 0;
+    private static final int KEY_CAPTURING = 1;
+    private static final int KEY_CAPTURED = 2;
+    private static final int KEY_DONE = 3;
+
+    private final Listener listener;
+
+    // 词法状态
+    private int mode = MODE_CODE;
+    private boolean escaped = false;
+    private boolean pendingSlash = false;
+    private int pendingSlashPos = -1;
+    private boolean pendingDollar = false;
+    private boolean prevStar = false;
+    private char lastSignificant = 0;
+    private int lastSignificantEnd = 0;
+
+    // 括号栈：'{' '[' '(' 以及模板字符串标记
+    private char[] stack = new char[64];
+    private int depth = 0;
+
+    // 当前标识符（用于 const 声明检测和正则判断）
+    private final StringBuilder ident = new StringBuilder();
+    private int identStart = -1;
+    private String lastIdent = null;
+
+    // 顶层声明检测
+    private int declState = DECL_NONE;
+    private int declStart = -1;
+    private String declName = null;
+
+    // 当前被跟踪的对象
+    private String objectName = null;
+    private int objectDepth = -1;
+    private int pendingCloseBrace = -1;
+    private String pendingCloseName = null;
+
+    // 当前条目
+    private int entryStart = -1;
+    private int keyState = KEY_NONE;
+    private final StringBuilder key = new StringBuilder();
+    private boolean keyInString = false;
+    private boolean keyFound = false;
+
+    private boolean malformed = false;
+
+    public ShowdownObjectScanner(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 一次性扫描完整内容
+     */
+    public static ScanResult scan(CharSequence content) {
+        // 标量分类本身就要逐字符处理一遍，只有向量分类可用时建立索引才划算
+        if (ShowdownStructuralIndex.vector() == null) {
+            return scanScalar(content);
+        }
+        return scan(content, ShowdownStructuralIndex.build(content));
+    }
+
+    /**
+     * 使用已建立的结构索引扫描完整内容
+     */
+    static ScanResult scan(CharSequence content, ShowdownStructuralIndex index) {
+        Collector collector = new Collector();
+        ShowdownObjectScanner scanner = new ShowdownObjectScanner(collector);
+        scanner.feedIndexed(content, index);
+        scanner.finish(content.length());
+        return collector.toResult(scanner.isMalformed());
+    }
+
+    /**
+     * 逐字符扫描完整内容（用于基准测试和结果对照）
+     */
+    static ScanResult scanScalar(CharSequence content) {
+        Collector collector = new Collector();
+        ShowdownObjectScanner scanner = new ShowdownObjectScanner(collector);
+        scanner.feed(content, 0, content.length(), 0);
+        scanner.finish(content.length());
+        return collector.toResult(scanner.isMalformed());
+    }
+
+    /**
+     * 扫描嵌套在内容中的对象字面量（例如某个条目的值），条目位置与content一致
+     * @param openBrace 对象的 { 的位置
+     * @param end 对象的 } 之后
+     * @return 对象，格式错误时返回null
+     */
+    public static ObjectLiteral scanObject(CharSequence content, int openBrace, int end) {
+        Collector collector = new Collector();
+        ShowdownObjectScanner scanner = new ShowdownObjectScanner(collector);
+        scanner.feed(NESTED_PREFIX, 0, NESTED_PREFIX.length(), openBrace - NESTED_PREFIX.length());
+        scanner.feed(content, openBrace, end, openBrace);
+        scanner.finish(end);
+        ScanResult result = collector.toResult(scanner.isMalformed());
+        return result.isMalformed() ? null : result.first();
+    }
+
+    /**
+     * 喂入一段内容
+     * @param chunk 内容块
+     * @param from 块内起始下标
+     * @param to 块内结束下标（不含）
+     * @param baseOffset chunk[from] 在整个文件中的绝对位置
+     */
+    public void feed(CharSequence chunk, int from, int to, int baseOffset) {
+        for (int i = from; i < to; i++) {
+            accept(chunk.charAt(i), baseOffset + (i - from));
+        }
+    }
+
+    /**
+     * 按结构索引喂入完整内容，下一个结构字符之前不会改变状态的字符整段跳过：
+     * - 字符串、注释和模板字符串中，跳到下一个可能结束它们的字符
+     * - 条目值内部的代码中（不在条目这一层，也不在顶层），跳到下一个括号、引号或 /
+     */
+    private void feedIndexed(CharSequence content, ShowdownStructuralIndex index) {
+        int length = content.length();
+        int i = 0;
+        while (i < length) {
+            int next = i;
+            if (canSkipLiteral()) {
+                next = index.nextLiteral(i);
+                if (next > i) {
+                    skipLiteral(content, i, next);
+                }
+            } else if (canSkipCode()) {
+                next = index.nextCode(i);
+                if (next > i) {
+                    skipCode(content, i, next);
+                }
+            }
+            if (next > i) {
+                i = next;
+                continue;
+            }
+            accept(content.charAt(i), i);
+            i++;
+        }
+    }
+
+    private boolean canSkipLiteral() {
+        if (escaped || pendingDollar) {
+            return false;
+        }
+        return switch (mode) {
+            case MODE_LINE_COMMENT, MODE_BLOCK_COMMENT, MODE_SQ_STRING, MODE_DQ_STRING, MODE_TEMPLATE -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * 条目值内部的代码中，括号、引号和 / 以外的字符只影响正则判断用到的 lastSignificant 和 lastIdent
+     */
+    private boolean canSkipCode() {
+        return mode == MODE_CODE && depth > 0 && !atEntryLevel()
+            && !pendingSlash && identStart < 0 && pendingCloseBrace < 0;
+    }
+
+    /**
+     * 跳过代码中的 [from, to)：只需要还原最后一个有效字符，以及它是标识符时的标识符本身
+     */
+    private void skipCode(CharSequence content, int from, int to) {
+        int last = to - 1;
+        while (last >= from && isWhitespace(content.charAt(last))) {
+            last--;
+        }
+        if (last < from) {
+            return;
+        }
+        char c = content.charAt(last);
+        markSignificant(c, last);
+        if (isIdentChar(c)) {
+            int start = last;
+            while (start > from && isIdentChar(content.charAt(start - 1))) {
+                start--;
+            }
+            lastIdent = last + 1 - start <= 10 ? content.subSequence(start, last + 1).toString() : null;
+        }
+    }
+
+    /**
+     * 跳过字符串、注释或模板字符串中的 [from, to)，效果与逐个 accept 相同
+     */
+    private void skipLiteral(CharSequence content, int from, int to) {
+        switch (mode) {
+            case MODE_BLOCK_COMMENT -> prevStar = false;
+            case MODE_SQ_STRING, MODE_DQ_STRING -> {
+                lastSignificantEnd = to;
+                if (keyInString) {
+                    key.append(content, from, to);
+                }
+            }
+            case MODE_TEMPLATE -> lastSignificantEnd = to;
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * 输入结束，刷新挂起的状态
+     * @param length 整个输入的长度
+     */
+    public void finish(int length) {
+        if (pendingSlash) {
+            pendingSlash = false;
+            markSignificant('/', pendingSlashPos);
+        }
+        endIdent();
+        flushPendingClose(length);
+        if (depth != 0 || (mode != MODE_CODE && mode != MODE_LINE_COMMENT)) {
+            malformed = true;
+        }
+    }
+
+    public boolean isMalformed() {
+        return malformed;
+    }
+
+    /**
+     * 在对象的最后一个条目之后追加新条目（空对象时直接写在 { 之后），其余内容原样保留
+     */
+    public static String appendEntries(String content, ObjectLiteral target, List<String> entryTexts) {
+        if (entryTexts.isEmpty()) {
+            return content;
+        }
+        Entry last = target.getLastEntry();
+        int insertAt = last != null ? last.getEnd() : target.getOpenBrace() + 1;
+
+        int extra = 0;
+        for (String text : entryTexts) {
+            extra += text.length() + 4;
+        }
+        StringBuilder result = new StringBuilder(content.length() + extra + 1);
+        result.append(content, 0, insertAt);
+        for (int i = 0; i < entryTexts.size(); i++) {
+            if (last != null || i > 0) {
+                result.append(',');
+            }
+            result.append("\n  ").append(entryTexts.get(i));
+        }
+        if (last == null) {
+            result.append('\n');
+        }
+        result.append(content, insertAt, content.length());
+        return result.toString();
+    }
+
+    private void accept(char c, int pos) {
+        switch (mode) {
+            case MODE_CODE -> acceptCode(c, pos);
+            case MODE_LINE_COMMENT -> {
+                if (c == '\n' || c == '\r') {
+                    mode = MODE_CODE;
+                }
+            }
+            case MODE_BLOCK_COMMENT -> {
+                if (prevStar && c == '/') {
+                    mode = MODE_CODE;
+                    prevStar = false;
+                } else {
+                    prevStar = c == '*';
+                }
+            }
+            case MODE_SQ_STRING, MODE_DQ_STRING -> acceptString(c, pos);
+            case MODE_TEMPLATE -> acceptTemplate(c, pos);
+            case MODE_REGEX -> {
+                lastSignificantEnd = pos + 1;
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '[') {
+                    mode = MODE_REGEX_CLASS;
+                } else if (c == '/') {
+                    mode = MODE_CODE;
+                    lastSignificant = 'a'; // 正则之后视为操作数，后续的 / 是除号或标志
+                    lastIdent = null;
+                }
+            }
+            case MODE_REGEX_CLASS -> {
+                lastSignificantEnd = pos + 1;
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == ']') {
+                    mode = MODE_REGEX;
+                }
+            }
+            default -> throw new IllegalStateException("未知扫描状态: " + mode);
+        }
+    }
+
+    private void acceptString(char c, int pos) {
+        lastSignificantEnd = pos + 1;
+        if (escaped) {
+            escaped = false;
+            if (keyInString) key.append(c);
+            return;
+        }
+        char quote = mode == MODE_SQ_STRING ? '\'' : '"';
+        if (c == '\\') {
+            escaped = true;
+        } else if (c == quote) {
+            mode = MODE_CODE;
+            lastSignificant = quote;
+            if (keyInString) {
+                keyInString = false;
+                keyState = KEY_CAPTURED;
+                keyFound = true;
+            }
+        } else if (keyInString) {
+            key.append(c);
+        }
+    }
+
+    private void acceptTemplate(char c, int pos) {
+        lastSignificantEnd = pos + 1;
+        if (escaped) {
+            escaped = false;
+            return;
+        }
+        if (pendingDollar) {
+            pendingDollar = false;
+            if (c == '{') {
+                push(KIND_TEMPLATE_EXPR);
+                mode = MODE_CODE;
+                lastSignificant = '{';
+                return;
+            }
+        }
+        if (c == '\\') {
+            escaped = true;
+        } else if (c == '$') {
+            pendingDollar = true;
+        } else if (c == '`') {
+            pop();
+            mode = MODE_CODE;
+            lastSignificant = '`';
+        }
+    }
+
+    private void acceptCode(char c, int pos) {
+        if (pendingSlash) {
+            pendingSlash = false;
+            if (c == '/') {
+                endIdent();
+                mode = MODE_LINE_COMMENT;
+                return;
+            }
+            if (c == '*') {
+                endIdent();
+                mode = MODE_BLOCK_COMMENT;
+                prevStar = false;
+                return;
+            }
+            boolean regex = regexAllowed();
+            markSignificant('/', pendingSlashPos);
+            if (regex) {
+                mode = MODE_REGEX;
+                accept(c, pos);
+                return;
+            }
+        }
+
+        if (isIdentChar(c)) {
+            if (identStart < 0) {
+                identStart = pos;
+                ident.setLength(0);
+                onTokenStart(c, pos);
+                if (atEntryLevel() && (keyState == KEY_NONE || keyState == KEY_CAPTURED)) {
+                    // KEY_CAPTURED 时再次遇到标识符说明前一个是 get/set/async 之类的修饰符
+                    key.setLength(0);
+                    keyState = KEY_CAPTURING;
+                    keyFound = false;
+                }
+            }
+            ident.append(c);
+            if (keyState == KEY_CAPTURING && atEntryLevel()) {
+                key.append(c);
+            }
+            lastSignificant = c;
+            lastSignificantEnd = pos + 1;
+            return;
+        }
+
+        endIdent();
+
+        if (isWhitespace(c)) {
+            return;
+        }
+
+        if (c == '/') {
+            pendingSlash = true;
+            pendingSlashPos = pos;
+            return;
+        }
+
+        onTokenStart(c, pos);
+
+        switch (c) {
+            case '\'', '"' -> {
+                if (atEntryLevel() && keyState == KEY_NONE) {
+                    key.setLength(0);
+                    keyInString = true;
+                    keyState = KEY_CAPTURING;
+                }
+                mode = c == '\'' ? MODE_SQ_STRING : MODE_DQ_STRING;
+                declState = DECL_NONE;
+            }
+            case '`' -> {
+                push(KIND_TEMPLATE);
+                mode = MODE_TEMPLATE;
+                declState = DECL_NONE;
+            }
+            case '{' -> {
+                if (depth == 0 && declState == DECL_ASSIGN && objectName == null) {
+                    objectName = declName;
+                    objectDepth = 1;
+                    listener.objectStart(declName, declStart, pos);
+                } else {
+                    closeKey();
+                }
+                declState = DECL_NONE;
+                push('{');
+            }
+            case '[', '(' -> {
+                if (c == '[') {
+                    skipKey();
+                }
+                closeKey();
+                declState = DECL_NONE;
+                push(c);
+            }
+            case '}' -> {
+                if (depth > 0 && stack[depth - 1] == KIND_TEMPLATE_EXPR) {
+                    pop();
+                    mode = MODE_TEMPLATE;
+                    lastSignificantEnd = pos + 1;
+                    return;
+                }
+                if (objectName != null && depth == objectDepth) {
+                    emitEntry();
+                    pendingCloseBrace = pos;
+                    pendingCloseName = objectName;
+                    objectName = null;
+                    objectDepth = -1;
+                }
+                pop();
+                declState = DECL_NONE;
+            }
+            case ']', ')' -> {
+                pop();
+                declState = DECL_NONE;
+            }
+            case ',' -> {
+                if (atEntryLevel()) {
+                    emitEntry();
+                    lastSignificant = c;
+                    lastSignificantEnd = pos + 1;
+                    return;
+                }
+                declState = DECL_NONE;
+            }
+            case ':' -> {
+                closeKey();
+                declState = DECL_NONE;
+            }
+            case '=' -> {
+                if (depth == 0) {
+                    declState = declState == DECL_NAME ? DECL_ASSIGN : DECL_NONE;
+                }
+            }
+            case ';' -> {
+                if (pendingCloseBrace >= 0) {
+                    flushPendingClose(pos + 1);
+                }
+                declState = DECL_NONE;
+            }
+            default -> {
+                if (c == '.') {
+                    skipKey();
+                }
+                closeKey();
+                declState = DECL_NONE;
+            }
+        }
+        markSignificant(c, pos);
+    }
+
+    /**
+     * 每个有效 token 的开头：处理挂起的对象结束和条目起点
+     */
+    private void onTokenStart(char c, int pos) {
+        if (pendingCloseBrace >= 0 && c != ';') {
+            flushPendingClose(pendingCloseBrace + 1);
+        }
+        if (atEntryLevel() && entryStart < 0 && c != '}' && c != ',') {
+            entryStart = pos;
+            keyState = KEY_NONE;
+            keyFound = false;
+        }
+    }
+
+    private void endIdent() {
+        if (identStart < 0) {
+            return;
+        }
+        if (keyState == KEY_CAPTURING && !keyInString && atEntryLevel()) {
+            keyState = KEY_CAPTURED;
+            keyFound = true;
+        }
+        lastIdent = ident.length() <= 10 ? ident.toString() : null;
+        if (depth == 0) {
+            String word = ident.toString();
+            if ("const".equals(word)) {
+                declState = DECL_KEYWORD;
+                declStart = identStart;
+            } else if (declState == DECL_KEYWORD) {
+                declState = DECL_NAME;
+                declName = word;
+            } else {
+                declState = DECL_NONE;
+            }
+        }
+        identStart = -1;
+    }
+
+    private void closeKey() {
+        if (atEntryLevel() && keyState != KEY_NONE) {
+            keyState = KEY_DONE;
+        }
+    }
+
+    /**
+     * 条目以计算属性 [x]: v 或展开 ...base 开头：没有可以识别的键名，之后的标识符不能当作键
+     */
+    private void skipKey() {
+        if (atEntryLevel() && keyState == KEY_NONE) {
+            keyState = KEY_DONE;
+        }
+    }
+
+    private void emitEntry() {
+        if (entryStart >= 0) {
+            String entryKey = keyFound ? key.toString() : null;
+            listener.entry(objectName, entryKey, entryStart, lastSignificantEnd);
+        }
+        entryStart = -1;
+        keyState = KEY_NONE;
+        keyInString = false;
+        keyFound = false;
+    }
+
+    private void flushPendingClose(int statementEnd) {
+        if (pendingCloseBrace < 0) {
+            return;
+        }
+        int closeBrace = pendingCloseBrace;
+        String name = pendingCloseName;
+        pendingCloseBrace = -1;
+        pendingCloseName = null;
+        listener.objectEnd(name, closeBrace, statementEnd);
+    }
+
+    private boolean atEntryLevel() {
+        return objectName != null && depth == objectDepth;
+    }
+
+    private void markSignificant(char c, int pos) {
+        lastSignificant = c;
+        lastSignificantEnd = pos + 1;
+    }
+
+    /**
+     * 判断当前位置的 / 是否为正则表达式的开始
+     */
+    private boolean regexAllowed() {
+        if (isIdentChar(lastSignificant)) {
+            return lastIdent != null && switch (lastIdent) {
+                case "return", "typeof", "case", "do", "else", "in", "of", "new", "delete", "void", "throw", "yield", "await" -> true;
+                default -> false;
+            };
+        }
+        return switch (lastSignificant) {
+            case ')', ']', '\'', '"', '`' -> false;
+            default -> true;
+        };
+    }
+
+    private void push(char kind) {
+        if (depth == stack.length) {
+            char[] grown = new char[stack.length * 2];
+            System.arraycopy(stack, 0, grown, 0, stack.length);
+            stack = grown;
+        }
+        stack[depth++] = kind;
+    }
+
+    private void pop() {
+        if (depth == 0) {
+            malformed = true;
+            return;
+        }
+        depth--;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    private static boolean isIdentChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+            || c == '_' || c == '$' || c >= 0x80;
+    }
+
+    /**
+     * 扫描事件回调
+     */
+    public interface Listener {
+        default void objectStart(String name, int declarationStart, int openBrace) {}
+        default void entry(String objectName, String key, int start, int end) {}
+        default void objectEnd(String name, int closeBrace, int statementEnd) {}
+    }
+
+    /**
+     * 收集完整扫描结果
+     */
+    private static class Collector implements Listener {
+        private final List<ObjectLiteral> objects = new ArrayList<>();
+        private String name;
+        private int declarationStart;
+        private int openBrace;
+        private List<Entry> entries;
+
+        @Override
+        public void objectStart(String name, int declarationStart, int openBrace) {
+            this.name = name;
+            this.declarationStart = declarationStart;
+            this.openBrace = openBrace;
+            this.entries = new ArrayList<>();
+        }
+
+        @Override
+        public void entry(String objectName, String key, int start, int end) {
+            entries.add(new Entry(key, start, end));
+        }
+
+        @Override
+        public void objectEnd(String name, int closeBrace, int statementEnd) {
+            objects.add(new ObjectLiteral(name, declarationStart, openBrace, closeBrace, statementEnd, entries));
+            entries = null;
+        }
+
+        ScanResult toResult(boolean malformed) {
+            return new ScanResult(objects, malformed);
+        }
+    }
+
+    /**
+     * 扫描结果
+     */
+    public static class ScanResult {
+        private final List<ObjectLiteral> objects;
+        private final boolean malformed;
+
+        public ScanResult(List<ObjectLiteral> objects, boolean malformed) {
+            this.objects = Collections.unmodifiableList(objects);
+            this.malformed = malformed;
+        }
+
+        public List<ObjectLiteral> getObjects() { return objects; }
+        public boolean isMalformed() { return malformed; }
+
+        /**
+         * 按名称查找对象，找不到时返回 null
+         */
+        public ObjectLiteral find(String objectName) {
+            for (ObjectLiteral object : objects) {
+                if (object.getName().equals(objectName)) {
+                    return object;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * 第一个顶层对象，没有时返回 null
+         */
+        public ObjectLiteral first() {
+            return objects.isEmpty() ? null : objects.getFirst();
+        }
+    }
+
+    /**
+     * 顶层对象字面量
+     * openBrace/closeBrace 分别指向 { 和 }，statementEnd 指向紧随其后的 ; 之后（没有分号时为 } 之后）
+     */
+    public static class ObjectLiteral {
+        private final String name;
+        private final int declarationStart;
+        private final int openBrace;
+        private final int closeBrace;
+        private final int statementEnd;
+        private final List<Entry> entries;
+
+        public ObjectLiteral(String name, int declarationStart, int openBrace, int closeBrace,
+                             int statementEnd, List<Entry> entries) {
+            this.name = name;
+            this.declarationStart = declarationStart;
+            this.openBrace = openBrace;
+            this.closeBrace = closeBrace;
+            this.statementEnd = statementEnd;
+            this.entries = Collections.unmodifiableList(entries);
+        }
+
+        public String getName() { return name; }
+        public int getDeclarationStart() { return declarationStart; }
+        public int getOpenBrace() { return openBrace; }
+        public int getCloseBrace() { return closeBrace; }
+        public int getStatementEnd() { return statementEnd; }
+        public List<Entry> getEntries() { return entries; }
+        public boolean isEmpty() { return entries.isEmpty(); }
+
+        public Entry getLastEntry() {
+            return entries.isEmpty() ? null : entries.getLast();
+        }
+
+        /**
+         * 对象体（不含外层花括号），已去除首尾空白
+         */
+        public String body(CharSequence content) {
+            return content.subSequence(openBrace + 1, closeBrace).toString().trim();
+        }
+    }
+
+    /**
+     * 对象中的一个条目，[start, end) 覆盖 key 到值的最后一个字符（不含逗号）
+     */
+    public static class Entry {
+        private final String key;
+        private final int start;
+        private final int end;
+
+        public Entry(String key, int start, int end) {
+            this.key = key;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String getKey() { return key; }
+        public int getStart() { return start; }
+        public int getEnd() { return end; }
+
+        public String text(CharSequence content) {
+            return content.subSequence(start, end).toString();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.johnson.cobblemonextra.showdown;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 检查我们的条目是否存在于磁盘上的Showdown文件中
+ * 用我们所有文件的全部条目key建立一个 Aho-Corasick 自动机，每个文件只线性扫描一遍，与我们的条目数量无关
+ * 只有处在key位置的匹配才算存在：前面不是标识符字符，后面跟着 : 或 (，key可以带引号；
+ * 扫描时同时跟踪字符串和注释，单双引号字符串中只有整个字符串就是key时才算，模板字符串和注释中的匹配都不算，
+ * 因此其他mod的文本中提到同名字符串（描述、注释中的单词、更长的key的一部分）不会被误认为存在
+ * 单引号和双引号字符串在换行处结束，正则字面量中不成对的引号最多影响一行
+ */
+final class ShowdownPresenceVerifier {
+
+    private static final int LINE_COMMENT = 1;
+    private static final int BLOCK_COMMENT = 2;
+
+    private static volatile ShowdownPresenceVerifier bundled;
+
+    // 每个文件的条目key（保持文件中的顺序）及其对应的模式编号
+    private final Map<String, List<String>> keysByFile;
+    private final Map<String, int[]> patternsByFile = new HashMap<>();
+
+    // 模式
+    private final int[] patternLength;
+
+    // 自动机：完整的转移表（已经按失败链接补全）、每个状态结束的模式、后缀输出链接
+    private final int[] charClass;
+    private final int alphabet;
+    private final int[] transitions;
+    private final int[] output;
+    private final int[] outputLink;
+
+    private ShowdownPresenceVerifier(Map<String, List<String>> keysByFile) {
+        this.keysByFile = keysByFile;
+
+        Map<String, Integer> patternIds = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> file : keysByFile.entrySet()) {
+            int[] ids = new int[file.getValue().size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = patternIds.computeIfAbsent(file.getValue().get(i), key -> patternIds.size());
+            }
+            patternsByFile.put(file.getKey(), ids);
+        }
+
+        // 字母表只包含模式中出现的字符，其余字符都回到初始状态
+        int maxChar = 0;
+        for (String pattern : patternIds.keySet()) {
+            for (int i = 0; i < pattern.length(); i++) {
+                maxChar = Math.max(maxChar, pattern.charAt(i));
+            }
+        }
+        charClass = new int[maxChar + 1];
+        Arrays.fill(charClass, -1);
+        int classes = 0;
+        for (String pattern : patternIds.keySet()) {
+            for (int i = 0; i < pattern.length(); i++) {
+                if (charClass[pattern.charAt(i)] < 0) {
+                    charClass[pattern.charAt(i)] = classes++;
+                }
+            }
+        }
+        alphabet = Math.max(classes, 1);
+
+        // 字典树
+        List<int[]> trie = new ArrayList<>();
+        List<Integer> ends = new ArrayList<>();
+        trie.add(newRow());
+        ends.add(-1);
+        patternLength = new int[patternIds.size()];
+        for (Map.Entry<String, Integer> pattern : patternIds.entrySet()) {
+            String key = pattern.getKey();
+            int state = 0;
+            for (int i = 0; i < key.length(); i++) {
+                int c = charClass[key.charAt(i)];
+                if (trie.get(state)[c] < 0) {
+                    trie.get(state)[c] = trie.size();
+                    trie.add(newRow());
+                    ends.add(-1);
+                }
+                state = trie.get(state)[c];
+            }
+            ends.set(state, pattern.getValue());
+            patternLength[pattern.getValue()] = key.length();
+        }
+
+        // 按层遍历计算失败链接，同时把缺失的转移补全为确定自动机
+        int states = trie.size();
+        transitions = new int[states * alphabet];
+        output = new int[states];
+        outputLink = new int[states];
+        int[] failure = new int[states];
+        for (int s = 0; s < states; s++) {
+            output[s] = ends.get(s);
+        }
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < alphabet; c++) {
+            int child = trie.getFirst()[c];
+            if (child < 0) {
+                transitions[c] = 0;
+            } else {
+                transitions[c] = child;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int fail = failure[state];
+            outputLink[state] = output[fail] >= 0 ? fail : outputLink[fail];
+            for (int c = 0; c < alphabet; c++) {
+                int child = trie.get(state)[c];
+                if (child < 0) {
+                    transitions[state * alphabet + c] = transitions[fail * alphabet + c];
+                } else {
+                    transitions[state * alphabet + c] = child;
+                    failure[child] = transitions[fail * alphabet + c];
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    private int[] newRow() {
+        int[] row = new int[alphabet];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    /**
+     * 使用我们自带资源中全部条目key的校验器（只建立一次）
+     */
+    static ShowdownPresenceVerifier bundled() {
+        ShowdownPresenceVerifier verifier = bundled;
+        if (verifier != null) {
+            return verifier;
+        }
+        synchronized (ShowdownPresenceVerifier.class) {
+            if (bundled == null) {
+                Map<String, List<String>> keys = new LinkedHashMap<>();
+                for (String fileName : ShowdownDataManager.SHOWDOWN_FILES) {
+                    List<String> fileKeys = ShowdownBundledIndex.keys(fileName);
+                    if (!fileKeys.isEmpty()) {
+                        keys.put(fileName, fileKeys);
+                    }
+                }
+                bundled = new ShowdownPresenceVerifier(keys);
+            }
+            return bundled;
+        }
+    }
+
+    /**
+     * 指定各文件条目key的校验器
+     */
+    static ShowdownPresenceVerifier of(Map<String, List<String>> keysByFile) {
+        return new ShowdownPresenceVerifier(keysByFile);
+    }
+
+    /**
+     * 我们在该文件中的全部条目key
+     */
+    List<String> keys(String fileName) {
+        return keysByFile.getOrDefault(fileName, List.of());
+    }
+
+    /**
+     * 扫描一遍content，返回我们在该文件中缺失的条目key（按我们文件中的顺序）
+     */
+    List<String> missing(String fileName, CharSequence content) {
+        int[] filePatterns = patternsByFile.get(fileName);
+        if (filePatterns == null || filePatterns.length == 0) {
+            return List.of();
+        }
+        boolean[] wanted = new boolean[patternLength.length];
+        int remaining = 0;
+        for (int pattern : filePatterns) {
+            if (!wanted[pattern]) {
+                wanted[pattern] = true;
+                remaining++;
+            }
+        }
+
+        int length = content.length();
+        int state = 0;
+        // 当前所在的字符串（引号字符及其位置）或注释（LINE_COMMENT / BLOCK_COMMENT 及其位置）
+        char quote = 0;
+        int quoteStart = -1;
+        int comment = 0;
+        int commentStart = -1;
+        boolean escaped = false;
+        for (int i = 0; i < length && remaining > 0; i++) {
+            char c = content.charAt(i);
+            int cls = c < charClass.length ? charClass[c] : -1;
+            state = cls < 0 ? 0 : transitions[state * alphabet + cls];
+            if (comment == 0) {
+                for (int s = output[state] >= 0 ? state : outputLink[state]; s > 0; s = outputLink[s]) {
+                    int pattern = output[s];
+                    int start = i + 1 - patternLength[pattern];
+                    if (wanted[pattern] && (quote == 0 || (quote != '`' && quoteStart == start - 1)) && isKeyPosition(content, start, i + 1)) {
+                        wanted[pattern] = false;
+                        remaining--;
+                    }
+                }
+            }
+
+            if (quote != 0) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == quote || (c == '\n' && quote != '`')) {
+                    quote = 0;
+                }
+            } else if (comment == LINE_COMMENT) {
+                if (c == '\n') {
+                    comment = 0;
+                }
+            } else if (comment == BLOCK_COMMENT) {
+                if (c == '/' && content.charAt(i - 1) == '*' && i - 2 > commentStart) {
+                    comment = 0;
+                }
+            } else if (c == '"' || c == '\'' || c == '`') {
+                quote = c;
+                quoteStart = i;
+            } else if (c == '/' && i + 1 < length && (content.charAt(i + 1) == '/' || content.charAt(i + 1) == '*')) {
+                comment = content.charAt(i + 1) == '/' ? LINE_COMMENT : BLOCK_COMMENT;
+                commentStart = i;
+                i++;
+                state = 0;
+            }
+        }
+
+        if (remaining == 0) {
+            return List.of();
+        }
+        List<String> keys = keysByFile.get(fileName);
+        List<String> missing = new ArrayList<>(remaining);
+        for (int i = 0; i < filePatterns.length; i++) {
+            if (wanted[filePatterns[i]]) {
+                missing.add(keys.get(i));
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * [start, end) 是否处在对象key的位置：key、"key" 或 'key'，之后（跳过空白）是 : 或 (
+     */
+    private static boolean isKeyPosition(CharSequence content, int start, int end) {
+        int length = content.length();
+        int after = end;
+        if (start > 0 && (content.charAt(start - 1) == '"' || content.charAt(start - 1) == '\'')) {
+            if (after >= length || content.charAt(after) != content.charAt(start - 1)) {
+                return false;
+            }
+            after++;
+        } else if ((start > 0 && isIdentChar(content.charAt(start - 1))) || (after < length && isIdentChar(content.charAt(after)))) {
+            return false;
+        }
+        while (after < length && Character.isWhitespace(content.charAt(after))) {
+            after++;
+        }
+        return after < length && (content.charAt(after) == ':' || content.charAt(after) == '(');
+    }
+
+    private static boolean isIdentChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
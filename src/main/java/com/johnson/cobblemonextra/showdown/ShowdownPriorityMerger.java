@@ -0,0 +1,311 @@
+package com.johnson.cobblemonextra.showdown;
+
+import com.johnson.cobblemonextra.CobblemonExtra;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * N路优先级合并器
+ * 每个贡献者的内容只扫描一次，一次遍历按优先级解决键冲突，最后一次性输出合并结果
+ *
+ * 以优先级最低的贡献者（通常是GEB）作为框架：框架中未被覆盖的条目、注释和空白按原样复制，
+ * 被更高优先级覆盖的条目原地替换，框架中没有的新条目追加在对象末尾
+ */
+public class ShowdownPriorityMerger {
+
+    /**
+     * 合并多个贡献者的同一文件
+     * @param contributors 按优先级升序排列的贡献者（后面的覆盖前面的）
+     * @param objectName 要合并的对象名称
+     * @param fileName 文件名（用于统计，以及为我们的原始资源使用预编译索引）
+     * @return 合并计划，贡献者中都没有该对象时返回null
+     */
+    public static MergePlan plan(List<Contributor> contributors, String objectName, String fileName) {
+        List<ShowdownObjectScanner.ObjectLiteral> objects = new ArrayList<>(contributors.size());
+        int frameIndex = -1;
+        for (int i = 0; i < contributors.size(); i++) {
+            ShowdownObjectScanner.ObjectLiteral object;
+            CharSequence content = contributors.get(i).getContent();
+            try (ShowdownMergeMetrics.Timer timer = ShowdownMergeMetrics.time(
+                    ShowdownMergeMetrics.Phase.PARSE, fileName, contributors.get(i).getModId())) {
+                object = ShowdownBundledIndex.find(fileName, content, objectName);
+                timer.bytes(content.length()).entries(object != null ? object.getEntries().size() : 0);
+            }
+            objects.add(object);
+            if (object != null && frameIndex < 0) {
+                frameIndex = i;
+            }
+        }
+        if (frameIndex < 0) {
+            return null;
+        }
+
+        try (ShowdownMergeMetrics.Timer timer = ShowdownMergeMetrics.time(ShowdownMergeMetrics.Phase.MERGE, fileName, null)) {
+            MergePlan plan = buildPlan(contributors, objects, frameIndex, objectName, fileName);
+            timer.bytes(plan.getLength()).entries(plan.getEntries());
+            return plan;
+        }
+    }
+
+    private static MergePlan buildPlan(List<Contributor> contributors, List<ShowdownObjectScanner.ObjectLiteral> objects,
+                                       int frameIndex, String objectName, String fileName) {
+
+        // 一次遍历解决冲突：按优先级升序放入，后放入的覆盖先放入的，键的顺序保持首次出现的位置
+        // Learnsets中多个mod都定义的物种另外记录下来，做结构化合并而不是整条覆盖
+        Map<String, Selection> winners = new LinkedHashMap<>();
+        Map<String, List<Selection>> overlaps = ShowdownLearnsetMerger.OBJECT_NAME.equals(objectName) ? new HashMap<>() : null;
+        for (int i = frameIndex; i < contributors.size(); i++) {
+            ShowdownObjectScanner.ObjectLiteral object = objects.get(i);
+            if (object == null) {
+                continue;
+            }
+            List<ShowdownObjectScanner.Entry> entries = object.getEntries();
+            for (int e = 0; e < entries.size(); e++) {
+                Selection selection = new Selection(i, entries.get(e));
+                Selection previous = winners.put(selectionKey(entries.get(e), i, e), selection);
+                if (previous != null && overlaps != null) {
+                    overlaps.computeIfAbsent(entries.get(e).getKey(), key -> new ArrayList<>(List.of(previous))).add(selection);
+                }
+            }
+        }
+        Map<String, String> combined = combineOverlaps(contributors, overlaps);
+
+        ShowdownObjectScanner.ObjectLiteral frame = objects.get(frameIndex);
+        CharSequence frameContent = contributors.get(frameIndex).getContent();
+        MergePlan plan = new MergePlan(contributors, winners.size());
+        Set<String> emitted = new HashSet<>();
+        int cursor = 0;
+        int replaced = 0;
+
+        // 框架中的条目：原样保留或原地替换
+        List<ShowdownObjectScanner.Entry> frameEntries = frame.getEntries();
+        for (int e = 0; e < frameEntries.size(); e++) {
+            ShowdownObjectScanner.Entry entry = frameEntries.get(e);
+            String key = selectionKey(entry, frameIndex, e);
+            if (!emitted.add(key)) {
+                // 同一对象中重复的键：只在第一次出现的位置输出，丢弃该条目及其前面的分隔符
+                plan.copy(frameIndex, cursor, previousEnd(frameEntries, e));
+                cursor = entry.getEnd();
+                continue;
+            }
+            Selection winner = winners.get(key);
+            String combinedEntry = combined.get(key);
+            if (combinedEntry == null && winner.getContributor() == frameIndex && winner.getEntry() == entry) {
+                continue;
+            }
+            plan.copy(frameIndex, cursor, entry.getStart());
+            if (combinedEntry != null) {
+                plan.literal(combinedEntry);
+            } else {
+                plan.copy(winner.getContributor(), winner.getEntry().getStart(), winner.getEntry().getEnd());
+            }
+            cursor = entry.getEnd();
+            replaced++;
+        }
+
+        // 框架中没有的新条目：追加在最后一个条目之后
+        int insertAt = frame.isEmpty() ? frame.getOpenBrace() + 1 : frame.getLastEntry().getEnd();
+        plan.copy(frameIndex, cursor, insertAt);
+        int added = 0;
+        for (Map.Entry<String, Selection> winner : winners.entrySet()) {
+            if (emitted.contains(winner.getKey())) {
+                continue;
+            }
+            plan.literal(frame.isEmpty() && added == 0 ? "\n  " : ",\n  ");
+            Selection selection = winner.getValue();
+            String combinedEntry = combined.get(winner.getKey());
+            if (combinedEntry != null) {
+                plan.literal(combinedEntry);
+            } else {
+                plan.copy(selection.getContributor(), selection.getEntry().getStart(), selection.getEntry().getEnd());
+            }
+            added++;
+        }
+        if (frame.isEmpty() && added > 0) {
+            plan.literal("\n");
+        }
+        plan.copy(frameIndex, insertAt, frameContent.length());
+
+        // 每个mod计入输出的条目为新增，被更高优先级覆盖或重复的条目为跳过
+        int[] kept = new int[contributors.size()];
+        for (Selection selection : winners.values()) {
+            kept[selection.getContributor()]++;
+        }
+        for (int i = frameIndex; i < contributors.size(); i++) {
+            if (objects.get(i) != null) {
+                int total = objects.get(i).getEntries().size();
+                ShowdownMergeMetrics.recordEntries(fileName, contributors.get(i).getModId(), kept[i], total - kept[i]);
+            }
+        }
+
+        CobblemonExtra.LOGGER.debug("🔀 {} N路合并：框架 {}，替换 {} 项，新增 {} 项，结构化合并 {} 项",
+            objectName, contributors.get(frameIndex).getModId(), replaced, added, combined.size());
+        return plan;
+    }
+
+    /**
+     * 对多个mod都定义的键做结构化合并，无法结构化解析的键不在结果中（退回到整条覆盖）
+     */
+    private static Map<String, String> combineOverlaps(List<Contributor> contributors, Map<String, List<Selection>> overlaps) {
+        if (overlaps == null || overlaps.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> combined = new HashMap<>();
+        for (Map.Entry<String, List<Selection>> overlap : overlaps.entrySet()) {
+            List<CharSequence> contents = new ArrayList<>(overlap.getValue().size());
+            List<ShowdownObjectScanner.Entry> entries = new ArrayList<>(overlap.getValue().size());
+            for (Selection selection : overlap.getValue()) {
+                contents.add(contributors.get(selection.getContributor()).getContent());
+                entries.add(selection.getEntry());
+            }
+            String merged = ShowdownLearnsetMerger.merge(contents, entries);
+            if (merged != null) {
+                combined.put(overlap.getKey(), merged);
+            } else {
+                CobblemonExtra.LOGGER.debug("⚠️ 无法结构化合并 {}，使用优先级最高的条目", overlap.getKey());
+            }
+        }
+        return combined;
+    }
+
+    /**
+     * 合并并直接输出为字符串
+     */
+    public static String merge(List<Contributor> contributors, String objectName, String fileName) {
+        MergePlan plan = plan(contributors, objectName, fileName);
+        if (plan == null) {
+            return null;
+        }
+        try (ShowdownMergeMetrics.Timer timer = ShowdownMergeMetrics.time(ShowdownMergeMetrics.Phase.MERGE, fileName, null)) {
+            timer.bytes(plan.getLength()).entries(plan.getEntries());
+            return plan.render();
+        }
+    }
+
+    private static String selectionKey(ShowdownObjectScanner.Entry entry, int contributor, int index) {
+        // 无法识别键名的条目（例如计算属性）各自保留
+        return entry.getKey() != null ? entry.getKey() : "\u0000" + contributor + ":" + index;
+    }
+
+    private static int previousEnd(List<ShowdownObjectScanner.Entry> entries, int index) {
+        return entries.get(index - 1).getEnd();
+    }
+
+    /**
+     * 合并贡献者
+     */
+    public static class Contributor {
+        private final String modId;
+        private final int priority;
+        private final CharSequence content;
+
+        public Contributor(String modId, int priority, CharSequence content) {
+            this.modId = modId;
+            this.priority = priority;
+            this.content = content;
+        }
+
+        public String getModId() { return modId; }
+        public int getPriority() { return priority; }
+        public CharSequence getContent() { return content; }
+    }
+
+    /**
+     * 冲突解决后胜出的条目
+     */
+    private static class Selection {
+        private final int contributor;
+        private final ShowdownObjectScanner.Entry entry;
+
+        Selection(int contributor, ShowdownObjectScanner.Entry entry) {
+            this.contributor = contributor;
+            this.entry = entry;
+        }
+
+        int getContributor() { return contributor; }
+        ShowdownObjectScanner.Entry getEntry() { return entry; }
+    }
+
+    /**
+     * 合并计划：由贡献者内容的区间和少量生成的文本组成
+     */
+    public static class MergePlan {
+        private final List<Contributor> contributors;
+        private final List<Segment> segments = new ArrayList<>();
+        private final int entries;
+        private long length = 0;
+
+        MergePlan(List<Contributor> contributors, int entries) {
+            this.contributors = contributors;
+            this.entries = entries;
+        }
+
+        void copy(int contributor, int start, int end) {
+            if (end <= start) {
+                return;
+            }
+            length += end - start;
+            if (!segments.isEmpty()) {
+                Segment last = segments.getLast();
+                if (last.getLiteral() == null && last.getContributor() == contributor && last.getEnd() == start) {
+                    segments.set(segments.size() - 1, new Segment(contributor, last.getStart(), end, null));
+                    return;
+                }
+            }
+            segments.add(new Segment(contributor, start, end, null));
+        }
+
+        void literal(String text) {
+            length += text.length();
+            segments.add(new Segment(-1, 0, 0, text));
+        }
+
+        public List<Contributor> getContributors() { return contributors; }
+        public List<Segment> getSegments() { return segments; }
+        public long getLength() { return length; }
+        public int getEntries() { return entries; }
+
+        /**
+         * 按计划一次性拼出完整内容
+         */
+        public String render() {
+            StringBuilder result = new StringBuilder((int) length);
+            for (Segment segment : segments) {
+                if (segment.getLiteral() != null) {
+                    result.append(segment.getLiteral());
+                } else {
+                    result.append(contributors.get(segment.getContributor()).getContent(), segment.getStart(), segment.getEnd());
+                }
+            }
+            return result.toString();
+        }
+    }
+
+    /**
+     * 计划中的一段：贡献者内容的 [start, end) 区间，或一段生成的文本
+     */
+    public static class Segment {
+        private final int contributor;
+        private final int start;
+        private final int end;
+        private final String literal;
+
+        Segment(int contributor, int start, int end, String literal) {
+            this.contributor = contributor;
+            this.start = start;
+            this.end = end;
+            this.literal = literal;
+        }
+
+        public int getContributor() { return contributor; }
+        public int getStart() { return start; }
+        public int getEnd() { return end; }
+        public String getLiteral() { return literal; }
+    }
+}
@@ -0,0 +1,273 @@
+package com.johnson.cobblemonextra.showdown;
+
+import com.johnson.cobblemonextra.CobblemonExtra;
+import com.johnson.cobblemonextra.config.ShowdownInterceptionConfig;
+import net.neoforged.fml.ModList;
+import net.neoforged.neoforgespi.language.IModFileInfo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Showdown资源索引
+ * 每个mod只扫描一次它自己的jar（或开发环境下的目录），建立 文件名 → jar内路径 的索引
+ * 之后按 (modId, fileName) 查找是O(1)，不再对整个classpath逐个路径探测
+ */
+public class ShowdownResourceIndex {
+
+    private static final Map<String, ModResources> INDEX = new ConcurrentHashMap<>();
+
+    private static final AtomicLong scanNanos = new AtomicLong();
+    private static final AtomicLong scannedEntries = new AtomicLong();
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong classpathFallbacks = new AtomicLong();
+
+    /**
+     * 读取指定mod的Showdown文件，不存在时返回null
+     */
+    public static byte[] read(String modId, String fileName) throws IOException {
+        try (ShowdownMergeMetrics.Timer timer = ShowdownMergeMetrics.time(ShowdownMergeMetrics.Phase.LOOKUP, fileName, modId)) {
+            byte[] data = lookup(modId, fileName, InputStream::readAllBytes);
+            if (data != null) {
+                timer.bytes(data.length);
+                ShowdownMergeMetrics.recordBytesIn(fileName, modId, data.length);
+            }
+            return data;
+        }
+    }
+
+    /**
+     * 把指定mod的Showdown文件以流的形式复制到 out，不把整个文件读入内存
+     * @return 复制的字节数，文件不存在时返回-1
+     */
+    public static long transfer(String modId, String fileName, OutputStream out) throws IOException {
+        try (ShowdownMergeMetrics.Timer timer = ShowdownMergeMetrics.time(ShowdownMergeMetrics.Phase.LOOKUP, fileName, modId)) {
+            Long bytes = lookup(modId, fileName, stream -> stream.transferTo(out));
+            if (bytes == null) {
+                return -1;
+            }
+            timer.bytes(bytes);
+            ShowdownMergeMetrics.recordBytesIn(fileName, modId, bytes);
+            return bytes;
+        }
+    }
+
+    private static <T> T lookup(String modId, String fileName, StreamReader<T> reader) throws IOException {
+        ModResources resources = INDEX.computeIfAbsent(modId, ShowdownResourceIndex::scanMod);
+        if (resources.root == null) {
+            // 找不到mod自己的文件（例如通过兼容层加载），退回到classpath探测
+            classpathFallbacks.incrementAndGet();
+            return probeClasspath(modId, fileName, reader);
+        }
+
+        String entryPath = resources.entries.get(fileName);
+        if (entryPath == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return resources.read(entryPath, reader);
+    }
+
+    /**
+     * 指定mod中Showdown文件在jar内的路径，未索引到时返回null
+     */
+    public static String locate(String modId, String fileName) {
+        return INDEX.computeIfAbsent(modId, ShowdownResourceIndex::scanMod).entries.get(fileName);
+    }
+
+    /**
+     * 清空索引（用于测试或重新加载）
+     */
+    public static void reset() {
+        INDEX.clear();
+    }
+
+    /**
+     * 获取索引统计
+     */
+    public static IndexStats getStats() {
+        return new IndexStats(INDEX.size(), scannedEntries.get(), scanNanos.get() / 1_000_000,
+            hits.get(), misses.get(), classpathFallbacks.get());
+    }
+
+    /**
+     * 扫描一个mod的jar，只记录 *.js 条目
+     */
+    private static ModResources scanMod(String modId) {
+        long start = System.nanoTime();
+        Path root = locateModFile(modId);
+        if (root == null) {
+            CobblemonExtra.LOGGER.debug("📇 无法定位 {} 的mod文件，将使用classpath探测", modId);
+            return new ModResources(null, Collections.emptyMap());
+        }
+
+        Set<String> jsEntries = new HashSet<>();
+        try {
+            if (Files.isDirectory(root)) {
+                try (Stream<Path> paths = Files.walk(root)) {
+                    paths.filter(path -> path.getFileName() != null && path.getFileName().toString().endsWith(".js"))
+                        .forEach(path -> jsEntries.add(root.relativize(path).toString().replace('\\', '/')));
+                }
+            } else {
+                try (ZipFile zip = new ZipFile(root.toFile())) {
+                    zip.stream()
+                        .filter(entry -> !entry.isDirectory() && entry.getName().endsWith(".js"))
+                        .forEach(entry -> jsEntries.add(entry.getName()));
+                }
+            }
+        } catch (IOException e) {
+            CobblemonExtra.LOGGER.warn("📇 扫描 {} 的mod文件失败: {}", modId, e.getMessage());
+            return new ModResources(null, Collections.emptyMap());
+        }
+
+        Map<String, String> entries = new HashMap<>();
+        for (String fileName : ShowdownDataManager.SHOWDOWN_FILES) {
+            for (String candidate : candidatePaths(modId, fileName)) {
+                if (jsEntries.contains(candidate)) {
+                    entries.put(fileName, candidate);
+                    break;
+                }
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        scanNanos.addAndGet(elapsed);
+        scannedEntries.addAndGet(jsEntries.size());
+        CobblemonExtra.LOGGER.info("📇 已索引 {}：{} 个JS条目，匹配 {} 个Showdown文件，耗时 {} ms",
+            modId, jsEntries.size(), entries.size(), elapsed / 1_000_000);
+        return new ModResources(root, entries);
+    }
+
+    /**
+     * 与原先逐个探测时相同的候选路径和优先顺序（jar内路径不带前导 /）
+     */
+    private static List<String> candidatePaths(String modId, String fileName) {
+        List<String> candidates = new ArrayList<>();
+        for (String basePath : ShowdownInterceptionConfig.getModResourcePaths(modId)) {
+            candidates.add(stripLeadingSlash(basePath + fileName));
+        }
+        candidates.add(modId.replace("_", "") + "/" + fileName);
+        candidates.add(modId + "/" + fileName);
+        candidates.add("drai/dev/" + modId + "/" + fileName);
+        candidates.add("showdown/" + fileName);
+        candidates.add("data/" + fileName);
+        return candidates;
+    }
+
+    private static Path locateModFile(String modId) {
+        try {
+            IModFileInfo fileInfo = ModList.get().getModFileById(modId);
+            if (fileInfo == null) {
+                return null;
+            }
+            return fileInfo.getFile().getFilePath();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static <T> T probeClasspath(String modId, String fileName, StreamReader<T> reader) throws IOException {
+        for (String candidate : candidatePaths(modId, fileName)) {
+            try (InputStream stream = ShowdownResourceIndex.class.getResourceAsStream("/" + candidate)) {
+                if (stream != null) {
+                    hits.incrementAndGet();
+                    return reader.read(stream);
+                }
+            }
+            misses.incrementAndGet();
+        }
+        return null;
+    }
+
+    private static String stripLeadingSlash(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    /**
+     * 单个mod的索引
+     */
+    private static class ModResources {
+        private final Path root;
+        private final Map<String, String> entries;
+
+        ModResources(Path root, Map<String, String> entries) {
+            this.root = root;
+            this.entries = entries;
+        }
+
+        <T> T read(String entryPath, StreamReader<T> reader) throws IOException {
+            if (Files.isDirectory(root)) {
+                try (InputStream stream = Files.newInputStream(root.resolve(entryPath))) {
+                    return reader.read(stream);
+                }
+            }
+            try (ZipFile zip = new ZipFile(root.toFile())) {
+                ZipEntry entry = zip.getEntry(entryPath);
+                if (entry == null) {
+                    return null;
+                }
+                try (InputStream stream = zip.getInputStream(entry)) {
+                    return reader.read(stream);
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取已打开的资源流
+     */
+    private interface StreamReader<T> {
+        T read(InputStream stream) throws IOException;
+    }
+
+    /**
+     * 索引统计
+     */
+    public static class IndexStats {
+        private final int indexedMods;
+        private final long scannedEntries;
+        private final long scanMillis;
+        private final long hits;
+        private final long misses;
+        private final long classpathFallbacks;
+
+        public IndexStats(int indexedMods, long scannedEntries, long scanMillis, long hits, long misses, long classpathFallbacks) {
+            this.indexedMods = indexedMods;
+            this.scannedEntries = scannedEntries;
+            this.scanMillis = scanMillis;
+            this.hits = hits;
+            this.misses = misses;
+            this.classpathFallbacks = classpathFallbacks;
+        }
+
+        public int getIndexedMods() { return indexedMods; }
+        public long getScannedEntries() { return scannedEntries; }
+        public long getScanMillis() { return scanMillis; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getClasspathFallbacks() { return classpathFallbacks; }
+
+        @Override
+        public String toString() {
+            return String.format("IndexStats{mod: %d, JS条目: %d, 扫描耗时: %d ms, 命中: %d, 未命中: %d, classpath回退: %d}",
+                indexedMods, scannedEntries, scanMillis, hits, misses, classpathFallbacks);
+        }
+    }
+}
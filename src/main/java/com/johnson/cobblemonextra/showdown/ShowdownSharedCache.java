@@ -0,0 +1,466 @@
+package com.johnson.cobblemonextra.showdown;
+
+import com.johnson.cobblemonextra.CobblemonExtra;
+import com.johnson.cobblemonextra.config.CobblemonExtraConfig;
+import net.neoforged.fml.loading.FMLPaths;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 主机级的Showdown合并结果共享缓存（配置 shared_cache_dir 后启用）
+ * 同一台主机上使用相同整合包的多个服务器实例共用一个缓存目录：
+ * - 键是全部合并输入的哈希：合并清单的输入（mod列表和版本、资源哈希、配置值）、本次收集的mod、磁盘上其他mod直接写入的文件
+ * - 每个条目保存gzip压缩的合并输出，先写入临时目录再原子重命名，其他进程只会看到完整的条目
+ * - 每个键有一个文件锁，只有第一个实例执行合并，同时启动的其他实例等它写入缓存后直接解压
+ * - 命中时更新条目的修改时间，目录超过大小上限时按最久未使用的顺序淘汰
+ *
+ * 输出文件总是解压成新文件，不使用硬链接：配置热重载和尾部追加会原地改写输出文件，硬链接会把这些改动写进缓存和其他实例
+ */
+final class ShowdownSharedCache {
+
+    private static final String FORMAT_VERSION = "1";
+    private static final String ENTRY_INDEX = "entry.properties";
+    private static final String LOCK_DIR = "locks";
+    private static final String EVICT_LOCK = "evict.lock";
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // 等待其他实例合并同一个键的最长时间，超过后自己合并
+    private static final long LOCK_WAIT_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    private static final long LOCK_POLL_MILLIS = 100;
+    // 其他进程中断后留下的临时目录超过这个时间才清理
+    private static final long STALE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private ShowdownSharedCache() {
+    }
+
+    /**
+     * 共享缓存目录，没有配置时返回null；相对路径相对于游戏目录
+     */
+    static Path getCacheFolder() {
+        String dir = CobblemonExtraConfig.getSharedCacheDir();
+        if (dir.isEmpty()) {
+            return null;
+        }
+        return FMLPaths.GAMEDIR.get().resolve(dir).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 本次合并的缓存键，没有启用共享缓存或无法计算时返回null
+     */
+    static String key() {
+        if (getCacheFolder() == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, "cache.format", FORMAT_VERSION);
+            for (Map.Entry<String, String> input : ShowdownMergeManifest.getInputs().entrySet()) {
+                update(digest, "input." + input.getKey(), input.getValue());
+            }
+            update(digest, "collected", String.join(",", new TreeSet<>(UniversalShowdownMerger.getProcessedMods())));
+            for (String fileName : ShowdownDataManager.SHOWDOWN_FILES) {
+                Path disk = ShowdownStartupPipeline.foreignDiskFile(fileName);
+                update(digest, "disk." + fileName, disk != null ? ShowdownMergeManifest.sha256(disk) : "none");
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (Exception e) {
+            CobblemonExtra.LOGGER.warn("计算Showdown共享缓存键失败，本次不使用共享缓存: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static void update(MessageDigest digest, String key, String value) {
+        digest.update((key + '=' + value + '\n').getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 获取键的进程间文件锁；其他实例正在合并同一个键时等待它完成
+     * @return 锁，key为null、无法加锁或等待超时时返回null（调用方照常合并）
+     */
+    static KeyLock lock(String key) {
+        if (key == null) {
+            return null;
+        }
+        FileChannel channel = null;
+        try {
+            Path lockDir = getCacheFolder().resolve(LOCK_DIR);
+            Files.createDirectories(lockDir);
+            channel = FileChannel.open(lockDir.resolve(key + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            long deadline = System.currentTimeMillis() + LOCK_WAIT_MILLIS;
+            boolean waited = false;
+            while (true) {
+                FileLock lock = channel.tryLock();
+                if (lock != null) {
+                    if (waited) {
+                        CobblemonExtra.LOGGER.info("🗄️ 其他实例已完成合并，检查Showdown共享缓存");
+                    }
+                    return new KeyLock(channel, lock);
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    CobblemonExtra.LOGGER.warn("⚠️ 等待其他实例合并Showdown文件超时，自己执行合并");
+                    channel.close();
+                    return null;
+                }
+                if (!waited) {
+                    waited = true;
+                    CobblemonExtra.LOGGER.info("🗄️ 另一个实例正在合并相同的Showdown文件，等待它写入共享缓存...");
+                }
+                Thread.sleep(LOCK_POLL_MILLIS);
+            }
+        } catch (IOException | OverlappingFileLockException e) {
+            CobblemonExtra.LOGGER.warn("无法锁定Showdown共享缓存: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // 已经在放弃加锁
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 缓存命中时把合并结果解压到Showdown目录（经过合并日志，写出后记录合并清单）
+     * @return 是否命中并全部写出；未命中或条目损坏时返回false，调用方照常合并
+     */
+    static boolean materialize(String key, String reason) {
+        if (key == null) {
+            return false;
+        }
+        Path entry = getCacheFolder().resolve(key);
+        Properties index;
+        try {
+            index = loadIndex(entry);
+        } catch (IOException e) {
+            index = null;
+        }
+        if (index == null) {
+            CobblemonExtra.LOGGER.info("🗄️ Showdown共享缓存未命中: {}", key.substring(0, 12));
+            return false;
+        }
+
+        long start = System.nanoTime();
+        ShowdownMergeJournal.begin("shared_cache:" + reason);
+        try {
+            Path outputFolder = Paths.get(ShowdownDataManager.getShowdownFolder());
+            Files.createDirectories(outputFolder);
+            for (String fileName : fileNames(index)) {
+                long size = Long.parseLong(index.getProperty("file." + fileName + ".size"));
+                String sha256 = index.getProperty("file." + fileName + ".sha256");
+                Path compressed = entry.resolve(fileName + GZIP_SUFFIX);
+                ShowdownFileWriter.write(outputFolder.resolve(fileName), channel -> unpack(compressed, channel, size, sha256));
+            }
+        } catch (Exception e) {
+            ShowdownMergeJournal.abort();
+            CobblemonExtra.LOGGER.warn("⚠️ 读取Showdown共享缓存失败，改为合并: {}", e.getMessage());
+            return false;
+        }
+        if (!ShowdownMergeJournal.commit(true)) {
+            return false;
+        }
+        touch(entry);
+        CobblemonExtra.LOGGER.info("🗄️ Showdown共享缓存命中，{} 个文件已从缓存写出，用时 {} ms",
+            fileNames(index).size(), (System.nanoTime() - start) / 1_000_000);
+        return true;
+    }
+
+    private static long unpack(Path compressed, FileChannel channel, long size, String sha256) throws IOException {
+        MessageDigest digest = newDigest();
+        long written;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(compressed), BUFFER_SIZE)) {
+            // 不关闭这个流，通道由写入器管理
+            OutputStream out = new DigestOutputStream(Channels.newOutputStream(channel), digest);
+            written = in.transferTo(out);
+            out.flush();
+        }
+        if (written != size || !sha256.equals(HexFormat.of().formatHex(digest.digest()))) {
+            throw new IOException("缓存条目已损坏: " + compressed.getFileName());
+        }
+        return written;
+    }
+
+    /**
+     * 合并成功后把Showdown目录中的输出压缩存入缓存，然后按大小上限淘汰
+     */
+    static void store(String key) {
+        if (key == null) {
+            return;
+        }
+        Path folder = getCacheFolder();
+        Path entry = folder.resolve(key);
+        if (Files.isDirectory(entry)) {
+            touch(entry);
+            return;
+        }
+        long start = System.nanoTime();
+        Path temp = null;
+        try {
+            Files.createDirectories(folder);
+            // 不用 createTempDirectory：它在POSIX上只允许自己读取，其他用户运行的实例无法使用这个条目
+            temp = Files.createDirectory(folder.resolve(".tmp-" + key + "-" + ProcessHandle.current().pid() + "-" + System.nanoTime()));
+            Properties index = new Properties();
+            index.setProperty("format", FORMAT_VERSION);
+            long compressedBytes = 0;
+            for (String fileName : ShowdownDataManager.SHOWDOWN_FILES) {
+                Path output = Paths.get(ShowdownDataManager.getShowdownFolder(), fileName);
+                if (!Files.isRegularFile(output)) {
+                    continue;
+                }
+                Path compressed = temp.resolve(fileName + GZIP_SUFFIX);
+                MessageDigest digest = newDigest();
+                long size;
+                try (InputStream in = Files.newInputStream(output);
+                     OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed), BUFFER_SIZE)) {
+                    size = in.transferTo(new DigestOutputStream(out, digest));
+                }
+                compressedBytes += Files.size(compressed);
+                index.setProperty("file." + fileName + ".size", String.valueOf(size));
+                index.setProperty("file." + fileName + ".sha256", HexFormat.of().formatHex(digest.digest()));
+            }
+            // 索引最后写入，条目目录中有索引即表示完整
+            try (Writer writer = Files.newBufferedWriter(temp.resolve(ENTRY_INDEX), StandardCharsets.UTF_8)) {
+                index.store(writer, "CobblemonExtra Showdown shared cache entry");
+            }
+            try {
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE);
+                temp = null;
+            } catch (IOException e) {
+                if (!Files.isDirectory(entry)) {
+                    throw e;
+                }
+                // 其他实例已经存入了同一个键
+            }
+            CobblemonExtra.LOGGER.info("🗄️ 已把合并结果存入Showdown共享缓存（压缩后 {} 字节），用时 {} ms",
+                compressedBytes, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            CobblemonExtra.LOGGER.warn("存入Showdown共享缓存失败: {}", e.getMessage());
+        } finally {
+            if (temp != null) {
+                deleteEntry(temp);
+            }
+        }
+        evict(folder, CobblemonExtraConfig.getSharedCacheMaxBytes());
+    }
+
+    /**
+     * 目录超过大小上限时按最久未使用的顺序淘汰条目；其他实例正在淘汰时跳过
+     */
+    static void evict(Path folder, long maxBytes) {
+        try (FileChannel channel = FileChannel.open(folder.resolve(EVICT_LOCK), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = channel.tryLock()) {
+            if (lock == null) {
+                return;
+            }
+            List<CachedEntry> entries = new ArrayList<>();
+            long total = 0;
+            long now = System.currentTimeMillis();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+                for (Path path : stream) {
+                    String name = path.getFileName().toString();
+                    if (!Files.isDirectory(path) || LOCK_DIR.equals(name)) {
+                        continue;
+                    }
+                    if (name.startsWith(".")) {
+                        // 中断的写入或淘汰留下的临时目录
+                        if (now - Files.getLastModifiedTime(path).toMillis() > STALE_MILLIS) {
+                            deleteEntry(path);
+                        }
+                        continue;
+                    }
+                    CachedEntry entry = new CachedEntry(path, entrySize(path), lastUsed(path));
+                    entries.add(entry);
+                    total += entry.size;
+                }
+            }
+
+            entries.sort(Comparator.comparingLong((CachedEntry entry) -> entry.lastUsed).reversed());
+            int evicted = 0;
+            long kept = 0;
+            for (CachedEntry entry : entries) {
+                // 至少保留最近使用的一个条目
+                if (kept == 0 || kept + entry.size <= maxBytes) {
+                    kept += entry.size;
+                    continue;
+                }
+                if (evict(folder, entry)) {
+                    evicted++;
+                }
+            }
+            if (evicted > 0) {
+                CobblemonExtra.LOGGER.info("🗄️ Showdown共享缓存超过 {} MB，淘汰了 {} 个最久未使用的条目（{} MB → {} MB）",
+                    maxBytes / 1024 / 1024, evicted, total / 1024 / 1024, kept / 1024 / 1024);
+            }
+        } catch (IOException | OverlappingFileLockException e) {
+            CobblemonExtra.LOGGER.debug("清理Showdown共享缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 持有条目的键锁时淘汰它：正在合并或解压这个键的实例持有锁，这时跳过这个条目
+     * 键锁文件本身从不删除，否则等待旧文件的实例和新建锁文件的实例会同时拿到锁
+     * @return 是否已淘汰
+     */
+    private static boolean evict(Path folder, CachedEntry entry) {
+        String key = entry.path.getFileName().toString();
+        Path lockDir = folder.resolve(LOCK_DIR);
+        try {
+            Files.createDirectories(lockDir);
+            try (FileChannel channel = FileChannel.open(lockDir.resolve(key + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock lock = channel.tryLock()) {
+                if (lock == null) {
+                    CobblemonExtra.LOGGER.debug("Showdown共享缓存条目 {} 正在被使用，暂不淘汰", key);
+                    return false;
+                }
+                // 先原子改名，之后读取这个键的实例只会看到条目不存在
+                Path doomed = folder.resolve("." + key + ".evicted");
+                Files.move(entry.path, doomed, StandardCopyOption.ATOMIC_MOVE);
+                deleteEntry(doomed);
+                return true;
+            }
+        } catch (IOException | OverlappingFileLockException e) {
+            CobblemonExtra.LOGGER.debug("淘汰Showdown共享缓存条目 {} 失败: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 条目的最近使用时间记录在索引文件的修改时间上
+     */
+    private static void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry.resolve(ENTRY_INDEX), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            CobblemonExtra.LOGGER.debug("更新Showdown共享缓存条目的使用时间失败: {}", e.getMessage());
+        }
+    }
+
+    private static long lastUsed(Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry.resolve(ENTRY_INDEX)).toMillis();
+        } catch (IOException e) {
+            // 没有索引的条目最先淘汰
+            return 0;
+        }
+    }
+
+    private static long entrySize(Path entry) throws IOException {
+        long size = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(entry)) {
+            for (Path path : stream) {
+                size += Files.size(path);
+            }
+        }
+        return size;
+    }
+
+    private static Properties loadIndex(Path entry) throws IOException {
+        Path path = entry.resolve(ENTRY_INDEX);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        Properties index = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            index.load(reader);
+        }
+        return FORMAT_VERSION.equals(index.getProperty("format")) ? index : null;
+    }
+
+    private static TreeSet<String> fileNames(Properties index) {
+        TreeSet<String> names = new TreeSet<>();
+        for (String key : index.stringPropertyNames()) {
+            if (key.startsWith("file.") && key.endsWith(".size")) {
+                names.add(key.substring("file.".length(), key.length() - ".size".length()));
+            }
+        }
+        return names;
+    }
+
+    private static void deleteEntry(Path entry) {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(entry)) {
+            for (Path path : stream) {
+                Files.deleteIfExists(path);
+            }
+            Files.deleteIfExists(entry);
+        } catch (IOException e) {
+            CobblemonExtra.LOGGER.debug("删除Showdown共享缓存目录 {} 失败: {}", entry.getFileName(), e.getMessage());
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    /**
+     * 键的进程间文件锁
+     */
+    static class KeyLock {
+        private final FileChannel channel;
+        private final FileLock lock;
+
+        KeyLock(FileChannel channel, FileLock lock) {
+            this.channel = channel;
+            this.lock = lock;
+        }
+
+        void release() {
+            try {
+                lock.release();
+                channel.close();
+            } catch (IOException e) {
+                CobblemonExtra.LOGGER.debug("释放Showdown共享缓存锁失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 淘汰时使用的条目信息
+     */
+    private static class CachedEntry {
+        private final Path path;
+        private final long size;
+        private final long lastUsed;
+
+        CachedEntry(Path path, long size, long lastUsed) {
+            this.path = path;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
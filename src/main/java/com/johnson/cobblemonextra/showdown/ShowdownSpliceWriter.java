@@ -0,0 +1,263 @@
+package com.johnson.cobblemonextra.showdown;
+
+import com.johnson.cobblemonextra.CobblemonExtra;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按合并计划直接拼接输出文件
+ * 计划中复制的区间大多来自磁盘上的原始文件（其他mod写入的文件、内容缓存中的mod文件），
+ * 这些区间用 FileChannel.transferTo 从源文件复制到输出文件，不经过堆；只有生成的文本和没有源文件的贡献者（我们自己的资源）需要编码
+ *
+ * 计划中的位置是字符下标，每个来源按需建立 字符下标 → UTF-8字节位置 的稀疏映射（纯ASCII内容直接相等）
+ *
+ * 框架就是目标文件本身（其他mod写入的文件，我们只在末尾的对象中追加条目）时，计划的第一段原样保留在文件中，
+ * 只把其余部分原地写到文件尾部，不重写整个文件
+ */
+public class ShowdownSpliceWriter {
+
+    /**
+     * 按计划写入目标文件，内容与现有文件相同时跳过
+     * @param sources 与计划中的贡献者一一对应的字节来源
+     */
+    public static ShowdownFileWriter.WriteResult write(Path target, ShowdownPriorityMerger.MergePlan plan, List<Source> sources) throws IOException {
+        if (sources.size() != plan.getContributors().size()) {
+            throw new IllegalArgumentException("来源数量与贡献者数量不一致: " + sources.size() + " != " + plan.getContributors().size());
+        }
+        ShowdownFileWriter.WriteResult patched = writeTailInPlace(target, plan, sources);
+        if (patched != null) {
+            return patched;
+        }
+        return ShowdownFileWriter.write(target, channel -> splice(channel, plan.getSegments(), sources));
+    }
+
+    /**
+     * 计划的第一段是目标文件自身从头开始的内容时，只原地改写之后的尾部
+     * @return 写入结果；不满足条件、尾部太大或文件尾部与预期不符时返回null（文件没有被修改），由调用方完整写入
+     */
+    private static ShowdownFileWriter.WriteResult writeTailInPlace(Path target, ShowdownPriorityMerger.MergePlan plan, List<Source> sources) throws IOException {
+        List<ShowdownPriorityMerger.Segment> segments = plan.getSegments();
+        if (segments.isEmpty()) {
+            return null;
+        }
+        ShowdownPriorityMerger.Segment first = segments.getFirst();
+        if (first.getLiteral() != null || first.getStart() != 0) {
+            return null;
+        }
+        Source frame = sources.get(first.getContributor());
+        if (frame.file == null || !Files.isRegularFile(target) || !Files.isSameFile(frame.file, target)) {
+            return null;
+        }
+
+        long position = frame.byteOffset(first.getEnd());
+        long oldSize = frame.byteLength();
+        long newTailSize = 0;
+        for (ShowdownPriorityMerger.Segment segment : segments.subList(1, segments.size())) {
+            newTailSize += segment.getLiteral() != null
+                ? Source.utf8Length(segment.getLiteral(), 0, segment.getLiteral().length())
+                : sources.get(segment.getContributor()).byteOffset(segment.getEnd()) - sources.get(segment.getContributor()).byteOffset(segment.getStart());
+        }
+        if (oldSize - position > ShowdownFileWriter.MAX_TAIL_PATCH || newTailSize > ShowdownFileWriter.MAX_TAIL_PATCH) {
+            return null;
+        }
+
+        // 先把新的尾部读到内存里：其中可能有从目标文件自身复制的区间，它们会被覆盖
+        ByteArrayOutputStream newTail = new ByteArrayOutputStream((int) newTailSize);
+        splice(Channels.newChannel(newTail), segments.subList(1, segments.size()), sources);
+        int guardStart = Math.max(0, first.getEnd() - ShowdownFileWriter.TAIL_GUARD);
+        if (guardStart > 0 && Character.isLowSurrogate(frame.content.charAt(guardStart))) {
+            guardStart--;
+        }
+        byte[] oldTail = frame.content.subSequence(guardStart, frame.content.length()).toString().getBytes(StandardCharsets.UTF_8);
+        return ShowdownFileWriter.writeTail(target, oldSize, oldTail, position, newTail.toByteArray());
+    }
+
+    private static long splice(WritableByteChannel out, List<ShowdownPriorityMerger.Segment> segments, List<Source> sources) throws IOException {
+        List<FileChannel> opened = new ArrayList<>();
+        FileChannel[] channels = new FileChannel[sources.size()];
+        long position = 0;
+        long transferred = 0;
+        try {
+            for (ShowdownPriorityMerger.Segment segment : segments) {
+                long before = position;
+                if (segment.getLiteral() != null) {
+                    position += writeFully(out, StandardCharsets.UTF_8.encode(segment.getLiteral()));
+                    continue;
+                }
+                int index = segment.getContributor();
+                Source source = sources.get(index);
+                long from = source.byteOffset(segment.getStart());
+                long to = source.byteOffset(segment.getEnd());
+                if (source.file != null) {
+                    if (channels[index] == null) {
+                        channels[index] = FileChannel.open(source.file, StandardOpenOption.READ);
+                        opened.add(channels[index]);
+                        if (channels[index].size() != source.byteLength()) {
+                            throw new IOException("源文件在合并期间被修改: " + source.file);
+                        }
+                    }
+                    position += transferFully(channels[index], from, to - from, out);
+                    transferred += position - before;
+                } else if (source.bytes != null) {
+                    position += writeFully(out, ByteBuffer.wrap(source.bytes, (int) from, (int) (to - from)));
+                } else {
+                    position += writeFully(out, StandardCharsets.UTF_8.encode(CharBuffer.wrap(source.content, segment.getStart(), segment.getEnd())));
+                }
+            }
+        } finally {
+            for (FileChannel channel : opened) {
+                channel.close();
+            }
+        }
+        CobblemonExtra.LOGGER.debug("🧩 拼接写入 {} 字节，其中 {} 字节直接从源文件复制", position, transferred);
+        return position;
+    }
+
+    private static long transferFully(FileChannel source, long position, long count, WritableByteChannel out) throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            long written = source.transferTo(position, remaining, out);
+            if (written <= 0) {
+                throw new IOException("源文件意外结束");
+            }
+            position += written;
+            remaining -= written;
+        }
+        return count;
+    }
+
+    private static long writeFully(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+        long count = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        return count;
+    }
+
+    /**
+     * 一个贡献者的字节来源：磁盘上的文件、内存中的UTF-8字节，或者只有文本（写入时编码）
+     */
+    public static class Source {
+        private static final int CHECKPOINT_INTERVAL = 1024;
+
+        private final CharSequence content;
+        private final Path file;
+        private final byte[] bytes;
+        private int[] checkpoints;
+        private long byteLength = -1;
+
+        private Source(CharSequence content, Path file, byte[] bytes) {
+            this.content = content;
+            this.file = file;
+            this.bytes = bytes;
+        }
+
+        /**
+         * 磁盘上内容为 content 的UTF-8编码的文件；文件不存在或长度不一致时退回到编码文本
+         */
+        public static Source file(Path file, CharSequence content) {
+            Source source = new Source(content, file, null);
+            try {
+                if (Files.isRegularFile(file) && Files.size(file) == source.byteLength()) {
+                    return source;
+                }
+            } catch (IOException e) {
+                CobblemonExtra.LOGGER.debug("无法使用源文件 {}: {}", file, e.getMessage());
+            }
+            return text(content);
+        }
+
+        /**
+         * 内存中内容为 content 的UTF-8字节
+         */
+        public static Source bytes(byte[] bytes, CharSequence content) {
+            return new Source(content, null, bytes);
+        }
+
+        /**
+         * 只有文本，写入时编码
+         */
+        public static Source text(CharSequence content) {
+            return new Source(content, null, null);
+        }
+
+        long byteLength() {
+            if (byteLength < 0) {
+                byteLength = bytes != null ? bytes.length : byteOffset(content.length());
+            }
+            return byteLength;
+        }
+
+        /**
+         * 字符下标对应的UTF-8字节位置
+         */
+        long byteOffset(int charIndex) {
+            if (checkpoints == null) {
+                checkpoints = buildCheckpoints(content);
+            }
+            if (checkpoints.length == 0) {
+                return charIndex;
+            }
+            int checkpoint = charIndex / CHECKPOINT_INTERVAL;
+            return checkpoints[checkpoint] + utf8Length(content, checkpoint * CHECKPOINT_INTERVAL, charIndex);
+        }
+
+        /**
+         * 每 CHECKPOINT_INTERVAL 个字符记录一次累计字节数；纯ASCII内容返回空数组（字节位置等于字符下标）
+         */
+        private static int[] buildCheckpoints(CharSequence content) {
+            int length = content.length();
+            int[] checkpoints = new int[length / CHECKPOINT_INTERVAL + 1];
+            int total = 0;
+            boolean ascii = true;
+            for (int i = 0; i < length; i++) {
+                if (i % CHECKPOINT_INTERVAL == 0) {
+                    checkpoints[i / CHECKPOINT_INTERVAL] = total;
+                }
+                int size = utf8Length(content.charAt(i));
+                ascii &= size == 1;
+                total += size;
+            }
+            if (length % CHECKPOINT_INTERVAL == 0) {
+                checkpoints[length / CHECKPOINT_INTERVAL] = total;
+            }
+            return ascii ? new int[0] : checkpoints;
+        }
+
+        static int utf8Length(CharSequence content, int start, int end) {
+            int total = 0;
+            for (int i = start; i < end; i++) {
+                total += utf8Length(content.charAt(i));
+            }
+            return total;
+        }
+
+        /**
+         * 代理对的高位计4个字节，低位计0个字节
+         */
+        private static int utf8Length(char c) {
+            if (c < 0x80) {
+                return 1;
+            }
+            if (c < 0x800) {
+                return 2;
+            }
+            if (Character.isHighSurrogate(c)) {
+                return 4;
+            }
+            return Character.isLowSurrogate(c) ? 0 : 3;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.johnson.cobblemonextra.showdown;
+
+import com.johnson.cobblemonextra.CobblemonExtra;
+import com.johnson.cobblemonextra.config.CobblemonExtraConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Showdown启动流水线
+ * 启动期间只收集贡献，不写文件：
+ * 1. 我们自己的资源（合并时直接读取）
+ * 2. 被拦截的mod（GEB mixin 调用 UniversalShowdownMerger.handleShowdownInjection 时收集）
+ * 3. 没有被拦截、直接写入Showdown目录的mod（提交时读取磁盘上不是我们写出的文件，作为最低优先级的基础内容）
+ *
+ * 所有模组加载完成、Showdown目录静默后，在唯一的提交点把每个文件合并并写出一次。
+ * 提交之后才到达的贡献（较晚被拦截的mod、再次改写目录的mod）会触发重新提交；
+ * 较晚被拦截的mod在静默期后合并为一次提交，服务器启动前会立即执行等待中的提交
+ * 提交之后的配置热重载只原地更新输出文件中的配置值，找不到可更新的位置时才重新提交
+ *
+ * 模组构造时只在虚拟线程上启动预取（合并日志恢复、清单检查、自带资源的读取和索引、JMX注册），不阻塞模组加载；
+ * 提交等真正需要这些结果的地方才等待预取完成
+ *
+ * 合并日志恢复、提交和配置热重载都在 {@link ShowdownWriteExecutor} 的写入线程上依次执行，并持有Showdown目录的进程锁
+ */
+public class ShowdownStartupPipeline {
+
+    /**
+     * 磁盘上其他mod写入的内容在合并中的标识和优先级（低于所有被拦截的mod）
+     */
+    static final String DISK_CONTRIBUTOR = "disk";
+    static final int DISK_PRIORITY = Integer.MIN_VALUE;
+
+    private static volatile boolean committed = false;
+    private static int commitCount = 0;
+
+    // 等待中的批量提交（提交之后才被拦截的mod）
+    private static final Object SCHEDULE_LOCK = new Object();
+    private static final Set<String> scheduledSources = new LinkedHashSet<>();
+    private static ScheduledExecutorService scheduler;
+    private static ScheduledFuture<?> scheduledCommit;
+
+    // 模组构造时启动的后台预取
+    private static volatile CompletableFuture<Void> prefetch = CompletableFuture.completedFuture(null);
+
+    /**
+     * 在模组构造时调用：在虚拟线程上启动预取后立即返回，所有写入推迟到提交点
+     */
+    public static void begin() {
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("CobblemonExtra-Showdown-Prefetch-", 0).factory());
+        try {
+            prefetch = CompletableFuture.allOf(
+                CompletableFuture.runAsync(ShowdownStartupPipeline::prefetchManifest, executor),
+                CompletableFuture.runAsync(ShowdownStartupPipeline::prefetchResources, executor),
+                CompletableFuture.runAsync(ShowdownMergeMetrics::registerMBean, executor));
+        } finally {
+            // 只是不再接受新任务，不等待已提交的任务
+            executor.shutdown();
+        }
+        CobblemonExtra.LOGGER.info("🧵 Showdown资源在后台预取，模组构造不等待");
+    }
+
+    /**
+     * 上次运行在合并中途被中断时先按合并日志恢复（只触及日志中的文件），再检查合并清单
+     */
+    private static void prefetchManifest() {
+        long start = System.nanoTime();
+        ShowdownWriteExecutor.run("recover", () -> {
+            ShowdownMergeJournal.recover();
+            if (ShowdownMergeManifest.isUpToDate()) {
+                CobblemonExtra.LOGGER.info("📋 Showdown文件与合并清单一致，启动期间无需写入");
+            } else {
+                CobblemonExtra.LOGGER.info("🧺 Showdown启动流水线开始收集贡献，所有文件将在加载完成后统一写入一次");
+            }
+        });
+        CobblemonExtra.LOGGER.debug("🧵 后台检查Showdown合并清单用时 {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 读取自带的Showdown资源和预编译索引
+     */
+    private static void prefetchResources() {
+        long start = System.nanoTime();
+        try {
+            ShowdownBundledIndex.content(ShowdownDataManager.SHOWDOWN_FILES.getFirst());
+        } catch (Exception e) {
+            CobblemonExtra.LOGGER.warn("后台读取Showdown资源失败，将在需要时重试: {}", e.getMessage());
+        }
+        CobblemonExtra.LOGGER.debug("🔎 Showdown结构扫描: {}，后台读取资源用时 {} ms",
+            ShowdownStructuralIndex.describe(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 后台预取是否已经完成（未完成时拦截到的mod不等待，提交时再收集）
+     */
+    static boolean isPrefetched() {
+        return prefetch.isDone();
+    }
+
+    /**
+     * 等待后台预取完成：需要合并清单的检查结果或自带资源时调用
+     */
+    static void awaitPrefetch() {
+        CompletableFuture<Void> pending = prefetch;
+        if (pending.isDone()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            pending.join();
+        } catch (CompletionException e) {
+            // 各项检查在需要时会重新执行
+            CobblemonExtra.LOGGER.warn("Showdown后台预取失败: {}", e.getMessage());
+        }
+        CobblemonExtra.LOGGER.info("🧵 等待Showdown后台预取 {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 是否已经到达过提交点（之后的贡献需要立即重新提交）
+     */
+    public static boolean isCommitted() {
+        return committed;
+    }
+
+    /**
+     * 提交：把收集到的全部贡献合并后每个文件写出一次，并记录合并清单
+     * @param reason 触发原因（用于日志和JFR）
+     * @return 是否成功（失败时调用方可以回退到逐文件追加）
+     */
+    public static boolean commit(String reason) {
+        // 在提交到写入线程之前等待：预取中的恢复任务也在写入线程上执行
+        awaitPrefetch();
+        return ShowdownWriteExecutor.call("commit:" + reason, () -> {
+            try {
+                return commitContributions(reason);
+            } finally {
+                UniversalShowdownMerger.releaseReadCache();
+            }
+        });
+    }
+
+    private static boolean commitContributions(String reason) {
+        boolean first = !committed;
+        committed = true;
+
+        // 没有新的贡献，且磁盘上的文件都是清单记录的输出（首次提交时还要求输入未变化），无需合并
+        boolean unchanged = first
+            ? ShowdownMergeManifest.isUpToDate() && ShowdownMergeManifest.outputsUnchanged()
+            : !UniversalShowdownMerger.hasPendingContent() && ShowdownMergeManifest.outputsUnchanged();
+        if (unchanged) {
+            CobblemonExtra.LOGGER.info("📋 Showdown提交（{}）：没有新的贡献，跳过合并", reason);
+            return true;
+        }
+        return mergeAndRecord(reason);
+    }
+
+    private static boolean mergeAndRecord(String reason) {
+        ShowdownJfrEvents.InjectionEvent jfrEvent = ShowdownJfrEvents.beginInjection("pipeline:" + reason, CobblemonExtra.MOD_ID);
+        try {
+            commitCount++;
+            CobblemonExtra.LOGGER.info("🚚 Showdown提交 #{}（{}）：统一合并并写出所有文件", commitCount, reason);
+            // 启用共享缓存时，相同输入只有第一个实例合并，其他实例直接解压缓存中的结果
+            String cacheKey = ShowdownSharedCache.key();
+            // 没有启用共享缓存、无法加锁或等待超时时为null，照常合并（可能与其他实例同时合并）
+            ShowdownSharedCache.KeyLock keyLock = ShowdownSharedCache.lock(cacheKey);
+            try {
+                if (ShowdownSharedCache.materialize(cacheKey, reason)) {
+                    return true;
+                }
+                // 合并期间的写入先暂存到合并日志，全部合并完成后一起写到位；只有全部成功时才记录清单
+                ShowdownMergeJournal.begin(reason);
+                boolean success = UniversalShowdownMerger.mergeAll();
+                success = ShowdownMergeJournal.commit(success) && success;
+                if (success) {
+                    ShowdownSharedCache.store(cacheKey);
+                }
+                return success;
+            } finally {
+                if (keyLock != null) {
+                    keyLock.release();
+                }
+            }
+        } catch (Exception e) {
+            CobblemonExtra.LOGGER.error("Showdown提交失败", e);
+            ShowdownMergeJournal.abort();
+            return false;
+        } finally {
+            ShowdownJfrEvents.commitInjection(jfrEvent, false);
+        }
+    }
+
+    /**
+     * 提交之后才到达的贡献：在静默期（append_quiet_period_ms）后批量提交一次
+     * 静默期内每到达一个新的贡献都会重新计时，M个mod只触发一次合并
+     */
+    public static void scheduleCommit(String source) {
+        synchronized (SCHEDULE_LOCK) {
+            scheduledSources.add(source);
+            if (scheduledCommit != null) {
+                scheduledCommit.cancel(false);
+            }
+            if (scheduler == null) {
+                scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "CobblemonExtra-Showdown-Commit");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            long delay = CobblemonExtraConfig.getAppendQuietPeriodMillis();
+            scheduledCommit = scheduler.schedule(ShowdownStartupPipeline::commitScheduled, delay, TimeUnit.MILLISECONDS);
+            CobblemonExtra.LOGGER.info("⏳ {} 的 Showdown 内容将在 {} ms 静默期后与其他贡献一起提交", source, delay);
+        }
+    }
+
+    /**
+     * 生命周期屏障：立即执行等待中的批量提交（例如服务器启动前）
+     */
+    public static void flush() {
+        ScheduledFuture<?> future;
+        synchronized (SCHEDULE_LOCK) {
+            future = scheduledCommit;
+        }
+        if (future == null) {
+            return;
+        }
+        if (!future.cancel(false)) {
+            // 已经在提交线程上执行，等待它完成
+            try {
+                future.get();
+            } catch (Exception e) {
+                CobblemonExtra.LOGGER.debug("等待Showdown批量提交时发生错误: {}", e.getMessage());
+            }
+            return;
+        }
+        commitScheduled();
+    }
+
+    private static void commitScheduled() {
+        String reason;
+        synchronized (SCHEDULE_LOCK) {
+            if (scheduledSources.isEmpty()) {
+                return;
+            }
+            reason = "late:" + String.join(",", scheduledSources);
+            scheduledSources.clear();
+            scheduledCommit = null;
+        }
+        commit(reason);
+    }
+
+    /**
+     * 配置加载或热重载：把新的配置值原地写入已合并的文件，不重新合并
+     * 还没有提交时只刷新清单输入中的配置值，提交时按新的配置值检查清单并合并
+     */
+    public static void reloadConfig() {
+        if (!committed) {
+            CobblemonExtra.LOGGER.info("⚙️ 配置已加载，Showdown文件尚未提交，提交时将使用新的配置值");
+            ShowdownMergeManifest.refreshConfigInputs();
+            return;
+        }
+        ShowdownWriteExecutor.run("config_reload", ShowdownStartupPipeline::patchConfig);
+    }
+
+    private static void patchConfig() {
+        try {
+            ShowdownMergeManifest.refreshConfigInputs();
+            int patched = ShowdownConfigTemplate.patchOutputs();
+            if (patched < 0) {
+                mergeAndRecord("config_reload");
+            } else if (patched > 0) {
+                ShowdownMergeManifest.record();
+                CobblemonExtra.LOGGER.info("⚙️ 配置已热重载，原地更新了Showdown文件中的 {} 处配置值", patched);
+            } else {
+                CobblemonExtra.LOGGER.debug("配置已重新加载，Showdown文件中的配置值没有变化");
+            }
+        } catch (Exception e) {
+            CobblemonExtra.LOGGER.error("原地更新Showdown配置值失败，重新合并", e);
+            mergeAndRecord("config_reload");
+        } finally {
+            UniversalShowdownMerger.releaseReadCache();
+        }
+    }
+
+    /**
+     * 读取磁盘上由其他mod写入的文件；文件不存在或是清单记录的我们自己的输出时返回null
+     */
+    static String readForeignDiskContent(String fileName) {
+        Path path = foreignDiskFile(fileName);
+        if (path == null) {
+            return null;
+        }
+        try (ShowdownMergeMetrics.Timer timer = ShowdownMergeMetrics.time(ShowdownMergeMetrics.Phase.LOOKUP, fileName, DISK_CONTRIBUTOR)) {
+            byte[] data = Files.readAllBytes(path);
+            timer.bytes(data.length);
+            ShowdownMergeMetrics.recordBytesIn(fileName, DISK_CONTRIBUTOR, data.length);
+            CobblemonExtra.LOGGER.info("📄 {} 已被其他mod写入（{} 字节），作为基础内容参与合并", fileName, data.length);
+            return new String(data, StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            CobblemonExtra.LOGGER.warn("读取磁盘上的 {} 失败: {}", fileName, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 磁盘上由其他mod写入的文件（不读取内容）；文件不存在或是清单记录的我们自己的输出时返回null
+     */
+    static Path foreignDiskFile(String fileName) {
+        Path path = Paths.get(ShowdownDataManager.getShowdownFolder(), fileName);
+        if (!Files.isRegularFile(path) || ShowdownMergeManifest.isRecordedOutput(fileName)) {
+            return null;
+        }
+        return path;
+    }
+
+    /**
+     * 重置状态（用于测试或重新加载）
+     */
+    public static void reset() {
+        synchronized (SCHEDULE_LOCK) {
+            if (scheduledCommit != null) {
+                scheduledCommit.cancel(false);
+                scheduledCommit = null;
+            }
+            scheduledSources.clear();
+        }
+        // 提交状态只在写入线程上修改
+        ShowdownWriteExecutor.run("reset", () -> {
+            committed = false;
+            commitCount = 0;
+        });
+    }
+}
@@ -0,0 +1,323 @@
+package com.johnson.cobblemonextra.showdown;
+
+import com.johnson.cobblemonextra.CobblemonExtra;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 流式合并：内存峰值固定的合并模式
+ * 优先级最低的贡献者（框架，通常是GEB或其他mod写入磁盘的大文件）通过固定大小的缓冲区边读边扫描边写出，
+ * 不读入整个文件；优先级更高的贡献者（通常是我们自己较小的文件）在内存中解析为覆盖表
+ *
+ * 输出与 ShowdownPriorityMerger 相同：框架中被覆盖的条目原地替换，框架中没有的新条目追加在对象末尾，
+ * Learnsets中多个mod都定义的物种做结构化合并。唯一的区别是框架自身重复的键按原样保留（JS中后出现的生效）
+ */
+public class ShowdownStreamingMerger {
+
+    private static final int READ_CHUNK = 16 * 1024;
+    private static final int IO_BUFFER = 8 * 1024;
+
+    /**
+     * 流式合并并写入目标文件
+     * @param frameFile 框架内容所在的文件
+     * @param overrides 按优先级升序排列的其他贡献者（都比框架优先）
+     * @param bufferChars 滑动窗口的字符数，单个条目超过窗口时放弃流式合并
+     * @return 写入结果；框架中没有该对象、格式错误或条目超过窗口时返回null，由调用方退回到普通合并
+     */
+    public static ShowdownFileWriter.WriteResult merge(Path target, String fileName, String objectName, Path frameFile,
+                                                       List<ShowdownPriorityMerger.Contributor> overrides, int bufferChars) throws IOException {
+        Overrides table = Overrides.build(overrides, objectName, fileName);
+        // 读取、合并和写出交织在一起，耗时统一计入写入阶段
+        try {
+            return ShowdownFileWriter.write(target, channel -> {
+                Writer out = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), IO_BUFFER);
+                Session session = new Session(out, objectName, table, bufferChars);
+                session.run(frameFile);
+                out.flush();
+                return channel.position();
+            });
+        } catch (Abort e) {
+            CobblemonExtra.LOGGER.warn("⚠️ {} 无法流式合并（{}），退回到普通合并", fileName, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 放弃流式合并（写了一半的临时文件由 ShowdownFileWriter 删除）
+     */
+    private static class Abort extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        Abort(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 高优先级贡献者的覆盖表
+     */
+    private static class Overrides {
+        private final String objectName;
+        private final Map<String, Selection> winners = new LinkedHashMap<>();
+        private final Map<String, List<Selection>> overlaps = new LinkedHashMap<>();
+
+        private Overrides(String objectName) {
+            this.objectName = objectName;
+        }
+
+        static Overrides build(List<ShowdownPriorityMerger.Contributor> contributors, String objectName, String fileName) {
+            Overrides table = new Overrides(objectName);
+            boolean learnsets = ShowdownLearnsetMerger.OBJECT_NAME.equals(objectName);
+            for (int i = 0; i < contributors.size(); i++) {
+                ShowdownPriorityMerger.Contributor contributor = contributors.get(i);
+                ShowdownObjectScanner.ObjectLiteral object = ShowdownBundledIndex.find(fileName, contributor.getContent(), objectName);
+                if (object == null) {
+                    continue;
+                }
+                List<ShowdownObjectScanner.Entry> entries = object.getEntries();
+                for (int e = 0; e < entries.size(); e++) {
+                    ShowdownObjectScanner.Entry entry = entries.get(e);
+                    // 无法识别键名的条目（例如计算属性）各自保留
+                    String key = entry.getKey() != null ? entry.getKey() : "\u0000" + i + ":" + e;
+                    Selection selection = new Selection(contributor.getContent(), entry);
+                    Selection previous = table.winners.put(key, selection);
+                    if (learnsets && previous != null) {
+                        table.overlaps.computeIfAbsent(key, k -> new ArrayList<>(List.of(previous))).add(selection);
+                    }
+                }
+            }
+            return table;
+        }
+
+        /**
+         * 框架中的条目被覆盖时的输出
+         */
+        String replace(String key, CharSequence frameContent, ShowdownObjectScanner.Entry frameEntry) {
+            Selection winner = winners.get(key);
+            if (ShowdownLearnsetMerger.OBJECT_NAME.equals(objectName)) {
+                List<CharSequence> mergeContents = new ArrayList<>();
+                List<ShowdownObjectScanner.Entry> mergeEntries = new ArrayList<>();
+                mergeContents.add(frameContent);
+                mergeEntries.add(frameEntry);
+                for (Selection selection : overlaps.getOrDefault(key, List.of(winner))) {
+                    mergeContents.add(selection.content);
+                    mergeEntries.add(selection.entry);
+                }
+                String merged = ShowdownLearnsetMerger.merge(mergeContents, mergeEntries);
+                if (merged != null) {
+                    return merged;
+                }
+            }
+            return winner.entry.text(winner.content);
+        }
+
+        /**
+         * 框架中没有的条目的输出
+         */
+        String append(String key) {
+            List<Selection> overlap = overlaps.get(key);
+            if (overlap != null) {
+                List<CharSequence> mergeContents = new ArrayList<>();
+                List<ShowdownObjectScanner.Entry> mergeEntries = new ArrayList<>();
+                for (Selection selection : overlap) {
+                    mergeContents.add(selection.content);
+                    mergeEntries.add(selection.entry);
+                }
+                String merged = ShowdownLearnsetMerger.merge(mergeContents, mergeEntries);
+                if (merged != null) {
+                    return merged;
+                }
+            }
+            Selection winner = winners.get(key);
+            return winner.entry.text(winner.content);
+        }
+    }
+
+    /**
+     * 覆盖表中的一个条目
+     */
+    private static class Selection {
+        private final CharSequence content;
+        private final ShowdownObjectScanner.Entry entry;
+
+        Selection(CharSequence content, ShowdownObjectScanner.Entry entry) {
+            this.content = content;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * 一次流式合并：窗口中保存从上一个已输出位置到当前读取位置的内容
+     */
+    private static class Session implements ShowdownObjectScanner.Listener {
+        private static final int BEFORE = 0;
+        private static final int INSIDE = 1;
+        private static final int AFTER = 2;
+
+        private final Writer out;
+        private final String objectName;
+        private final Overrides overrides;
+        private final char[] window;
+        private final CharBuffer view;
+        private final Set<String> replaced = new HashSet<>();
+
+        // window[0] 在整个框架文件中的位置、窗口中的字符数、已输出到的位置
+        private int base = 0;
+        private int length = 0;
+        private int emitted = 0;
+
+        private int state = BEFORE;
+        private int entries = 0;
+        private IOException failure;
+
+        Session(Writer out, String objectName, Overrides overrides, int bufferChars) {
+            this.out = out;
+            this.objectName = objectName;
+            this.overrides = overrides;
+            this.window = new char[Math.max(bufferChars, READ_CHUNK * 2)];
+            this.view = CharBuffer.wrap(window);
+        }
+
+        void run(Path frameFile) throws IOException {
+            ShowdownObjectScanner scanner = new ShowdownObjectScanner(this);
+            try (Reader reader = new InputStreamReader(Files.newInputStream(frameFile), StandardCharsets.UTF_8)) {
+                while (true) {
+                    if (window.length - length < READ_CHUNK) {
+                        compact();
+                    }
+                    int read = reader.read(window, length, Math.min(READ_CHUNK, window.length - length));
+                    if (read < 0) {
+                        break;
+                    }
+                    int from = length;
+                    length += read;
+                    scanner.feed(view, from, length, base + from);
+                    checkFailure();
+                    if (state != INSIDE) {
+                        emit(base + length);
+                    }
+                }
+            }
+            scanner.finish(base + length);
+            checkFailure();
+            if (scanner.isMalformed()) {
+                throw new Abort("括号、字符串或注释没有正确闭合");
+            }
+            if (state != AFTER) {
+                throw new Abort("框架中没有找到 " + objectName + " 对象");
+            }
+            emit(base + length);
+        }
+
+        @Override
+        public void objectStart(String name, int declarationStart, int openBrace) {
+            if (state == BEFORE && objectName.equals(name)) {
+                guard(() -> emit(openBrace + 1));
+                state = INSIDE;
+            }
+        }
+
+        @Override
+        public void entry(String name, String key, int start, int end) {
+            if (state != INSIDE || !objectName.equals(name)) {
+                return;
+            }
+            guard(() -> {
+                emit(start);
+                if (key != null && overrides.winners.containsKey(key)) {
+                    replaced.add(key);
+                    ShowdownObjectScanner.Entry local = new ShowdownObjectScanner.Entry(key, start - base, end - base);
+                    out.write(overrides.replace(key, view, local));
+                    emitted = end;
+                } else {
+                    emit(end);
+                }
+            });
+            entries++;
+        }
+
+        @Override
+        public void objectEnd(String name, int closeBrace, int statementEnd) {
+            if (state != INSIDE || !objectName.equals(name)) {
+                return;
+            }
+            // 新条目追加在最后一个条目之后（空对象时直接写在 { 之后），此时正好已经输出到这个位置
+            guard(() -> {
+                int added = 0;
+                for (String key : overrides.winners.keySet()) {
+                    if (replaced.contains(key)) {
+                        continue;
+                    }
+                    out.write(entries == 0 && added == 0 ? "\n  " : ",\n  ");
+                    out.write(overrides.append(key));
+                    added++;
+                }
+                if (entries == 0 && added > 0) {
+                    out.write("\n");
+                }
+                CobblemonExtra.LOGGER.debug("🔀 {} 流式合并：替换 {} 项，新增 {} 项", objectName, replaced.size(), added);
+            });
+            state = AFTER;
+        }
+
+        /**
+         * 输出窗口中 [emitted, position) 的原始内容
+         */
+        private void emit(int position) throws IOException {
+            if (position > emitted) {
+                out.write(window, emitted - base, position - emitted);
+                emitted = position;
+            }
+        }
+
+        /**
+         * 丢弃已输出的内容，为下一块腾出空间；腾不出空间说明单个条目超过了窗口
+         */
+        private void compact() throws IOException {
+            int drop = emitted - base;
+            if (drop > 0) {
+                System.arraycopy(window, drop, window, 0, length - drop);
+                length -= drop;
+                base = emitted;
+            }
+            if (window.length - length < READ_CHUNK) {
+                throw new Abort("单个条目超过 " + window.length + " 字符的流式缓冲区");
+            }
+        }
+
+        private void guard(IoAction action) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                action.run();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        private void checkFailure() throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private interface IoAction {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,171 @@
+package com.johnson.cobblemonextra.showdown;
+
+import java.util.Arrays;
+
+/**
+ * Showdown JS的结构字符位图索引（simdjson 风格），每个字符在两张位图中各占一位：
+ * - 字面量位图：可能结束字符串、注释或模板字符串的字符（引号、反引号、反斜杠、换行、* 和 /、$ 和 {）
+ * - 代码位图：条目值内部的代码中会改变扫描状态的字符（括号、引号、反引号、/）
+ * ShowdownObjectScanner 直接跳到下一个置位的位置，不再逐个字符处理
+ *
+ * 启动参数带有 --add-modules jdk.incubator.vector 时使用 ShowdownVectorClassifier 按向量块分类，否则使用逐字符的标量分类，
+ * 两者生成完全相同的位图
+ *
+ * 构建时的索引生成（ShowdownIndexFile）也会用到这个类，所以这里不能依赖日志
+ */
+public final class ShowdownStructuralIndex {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_CLASSIFIER = "com.johnson.cobblemonextra.showdown.ShowdownVectorClassifier";
+
+    private static final Classifier SCALAR = new ScalarClassifier();
+    private static final Classifier VECTOR = loadVectorClassifier();
+
+    private final long[] literal;
+    private final long[] code;
+    private final int length;
+
+    private ShowdownStructuralIndex(long[] literal, long[] code, int length) {
+        this.literal = literal;
+        this.code = code;
+        this.length = length;
+    }
+
+    /**
+     * 使用可用的最快分类器建立索引
+     */
+    public static ShowdownStructuralIndex build(CharSequence content) {
+        return build(content, VECTOR != null ? VECTOR : SCALAR);
+    }
+
+    /**
+     * 使用指定的分类器建立索引（供基准测试比较）
+     */
+    public static ShowdownStructuralIndex build(CharSequence content, Classifier classifier) {
+        int length = content.length();
+        long[] literal = new long[(length + 63) >>> 6];
+        long[] code = new long[literal.length];
+        classifier.classify(content, literal, code);
+        return new ShowdownStructuralIndex(literal, code, length);
+    }
+
+    /**
+     * 标量分类器
+     */
+    public static Classifier scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * 向量分类器，没有启用 jdk.incubator.vector 模块时返回null
+     */
+    public static Classifier vector() {
+        return VECTOR;
+    }
+
+    /**
+     * from 及之后第一个可能结束字符串、注释或模板字符串的字符的位置，没有时返回内容长度
+     */
+    public int nextLiteral(int from) {
+        return next(literal, from);
+    }
+
+    /**
+     * from 及之后第一个代码结构字符的位置，没有时返回内容长度
+     */
+    public int nextCode(int from) {
+        return next(code, from);
+    }
+
+    private int next(long[] bits, int from) {
+        if (from >= length) {
+            return length;
+        }
+        int word = from >>> 6;
+        long current = bits[word] & (-1L << (from & 63));
+        while (current == 0) {
+            if (++word >= bits.length) {
+                return length;
+            }
+            current = bits[word];
+        }
+        return Math.min((word << 6) + Long.numberOfTrailingZeros(current), length);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * 与另一个索引的位图是否完全相同
+     */
+    public boolean sameAs(ShowdownStructuralIndex other) {
+        return length == other.length && Arrays.equals(literal, other.literal) && Arrays.equals(code, other.code);
+    }
+
+    static boolean isLiteralStop(char c) {
+        return switch (c) {
+            case '"', '\'', '`', '\\', '\n', '\r', '*', '/', '$', '{' -> true;
+            default -> false;
+        };
+    }
+
+    static boolean isCodeStop(char c) {
+        return switch (c) {
+            case '{', '}', '[', ']', '(', ')', '"', '\'', '`', '/' -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * 当前使用的分类器名称（用于日志）
+     */
+    public static String describe() {
+        return (VECTOR != null ? VECTOR : SCALAR).toString();
+    }
+
+    /**
+     * ShowdownVectorClassifier 单独编译（只有它需要启用孵化模块），这里通过反射加载
+     */
+    private static Classifier loadVectorClassifier() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return null;
+        }
+        try {
+            return Class.forName(VECTOR_CLASSIFIER).asSubclass(Classifier.class).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 结构字符分类器：把 content 中每个结构字符在对应位图中的位置1
+     */
+    public interface Classifier {
+        void classify(CharSequence content, long[] literal, long[] code);
+    }
+
+    /**
+     * 逐字符分类
+     */
+    private static class ScalarClassifier implements Classifier {
+        @Override
+        public void classify(CharSequence content, long[] literal, long[] code) {
+            int length = content.length();
+            for (int i = 0; i < length; i++) {
+                char c = content.charAt(i);
+                if (isLiteralStop(c)) {
+                    literal[i >>> 6] |= 1L << i;
+                }
+                if (isCodeStop(c)) {
+                    code[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "scalar";
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.johnson.cobblemonextra.showdown;
+
+import com.johnson.cobblemonextra.CobblemonExtra;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Showdown目录的唯一写入线程
+ * 所有会写入或需要一致地读取Showdown目录的工作（合并日志恢复、清单检查、提交、配置热重载、智能追加）
+ * 都提交到这个串行执行器上依次执行，不同线程（模组构造、GEB mixin 的调用线程、目录监听线程、批量提交线程）之间不会交错写入
+ *
+ * 每个任务执行期间持有Showdown目录中锁文件的 FileLock，共用同一个游戏目录的多个进程也按顺序执行，
+ * 不会读到另一个进程写了一半的文件；等待其他进程超过上限时不加进程锁执行，不会无限阻塞写入线程
+ */
+final class ShowdownWriteExecutor {
+
+    private static final String LOCK_FILE = ".cobblemonextra.lock";
+    private static final long LOCK_WAIT_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    private static final long LOCK_POLL_MILLIS = 100;
+
+    // 上一次等待进程锁超时：之后的任务只尝试一次，不再逐个等待，直到重新拿到锁
+    private static volatile boolean lockTimedOut;
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CobblemonExtra-Showdown-Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 写入线程本身（任务内部再提交的任务直接执行，不重复加锁）
+    private static volatile Thread writerThread;
+
+    private ShowdownWriteExecutor() {
+    }
+
+    /**
+     * 在写入线程上执行任务并等待结果；已经在写入线程上时直接执行
+     * 调用线程被中断时仍然等待任务完成（不会留下执行了一半的写入），之后恢复中断标记
+     */
+    static <T> T call(String name, Supplier<T> task) {
+        if (Thread.currentThread() == writerThread) {
+            return task.get();
+        }
+        Future<T> future = EXECUTOR.submit(() -> {
+            writerThread = Thread.currentThread();
+            // 无法加锁时为null，任务仍然执行（只有本进程内的串行保证）
+            ProcessLock lock = ProcessLock.acquire(name);
+            try {
+                return task.get();
+            } finally {
+                if (lock != null) {
+                    lock.release();
+                }
+            }
+        });
+
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Showdown写入任务失败: " + name, e.getCause());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 在写入线程上执行任务并等待完成
+     */
+    static void run(String name, Runnable task) {
+        call(name, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Showdown目录中锁文件上的进程间锁
+     */
+    private static class ProcessLock {
+        private final FileChannel channel;
+        private final FileLock lock;
+
+        private ProcessLock(FileChannel channel, FileLock lock) {
+            this.channel = channel;
+            this.lock = lock;
+        }
+
+        /**
+         * 获取锁；其他进程持有锁时轮询等待它释放
+         * 无法创建锁文件或等待超时时返回null，不加锁执行（只有本进程内的串行保证）
+         */
+        static ProcessLock acquire(String name) {
+            FileChannel channel = null;
+            try {
+                Path folder = Paths.get(ShowdownDataManager.getShowdownFolder());
+                Files.createDirectories(folder);
+                channel = FileChannel.open(folder.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                long deadline = System.currentTimeMillis() + (lockTimedOut ? 0 : LOCK_WAIT_MILLIS);
+                boolean waited = false;
+                while (true) {
+                    FileLock lock = channel.tryLock();
+                    if (lock != null) {
+                        lockTimedOut = false;
+                        return new ProcessLock(channel, lock);
+                    }
+                    if (System.currentTimeMillis() >= deadline) {
+                        CobblemonExtra.LOGGER.warn("⚠️ 等待其他进程写入Showdown目录超时，{} 不加进程锁执行", name);
+                        lockTimedOut = true;
+                        break;
+                    }
+                    if (!waited) {
+                        waited = true;
+                        CobblemonExtra.LOGGER.info("🔒 另一个进程正在写入Showdown目录，等待它完成后执行 {}", name);
+                    }
+                    Thread.sleep(LOCK_POLL_MILLIS);
+                }
+            } catch (IOException | OverlappingFileLockException e) {
+                CobblemonExtra.LOGGER.warn("⚠️ 无法锁定Showdown目录，{} 不加进程锁执行: {}", name, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // 已经在放弃加锁
+                }
+            }
+            return null;
+        }
+
+        void release() {
+            try {
+                lock.release();
+                channel.close();
+            } catch (IOException e) {
+                CobblemonExtra.LOGGER.debug("释放Showdown目录锁失败: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -1,17 +1,19 @@
 package com.johnson.cobblemonextra.showdown;
 
 import com.johnson.cobblemonextra.CobblemonExtra;
+import com.johnson.cobblemonextra.config.CobblemonExtraConfig;
 import com.johnson.cobblemonextra.config.ShowdownInterceptionConfig;
-import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 通用Showdown合并器
@@ -22,19 +24,34 @@ public class UniversalShowdownMerger {
     // 记录已处理的mod，避免重复处理
     private static final Set<String> processedMods = ConcurrentHashMap.newKeySet();
     
-    // 存储各个mod的Showdown内容
+    // 各个mod的Showdown内容：modId → 文件名 → 内容哈希（内容本身在 ShowdownContentStore 中，提交后移出内存）
     private static final Map<String, Map<String, String>> modShowdownContent = new ConcurrentHashMap<>();
     
+    // 启动期间读取过的mod文件（清单检查和收集共用一次读取），提交后释放
+    private static final Map<String, Optional<String>> readCache = new ConcurrentHashMap<>();
+    
+    // 流式合并模式下mod文件的内容哈希（内容以流的形式直接写入内容缓存，不经过 readCache）
+    private static final Map<String, Optional<String>> hashCache = new ConcurrentHashMap<>();
+    
+    // 上次提交之后是否收集到了新的内容
+    private static final AtomicBoolean pendingContent = new AtomicBoolean(false);
+    
     // 我们的Showdown文件列表
     private static final List<String> SHOWDOWN_FILES = Arrays.asList(
         "abilities.js", "conditions.js", "items.js", "moves.js", 
         "pokedex.js", "scripts.js", "tags.js", "learnsets.js"
     );
     
+    // 合并线程数：不超过文件数和CPU核数
+    private static final int MERGE_PARALLELISM = Math.max(1,
+        Math.min(SHOWDOWN_FILES.size(), Runtime.getRuntime().availableProcessors()));
+    private static final AtomicInteger MERGE_THREAD_COUNTER = new AtomicInteger();
+    
     /**
      * 处理任何mod的Showdown注入
      */
     public static void handleShowdownInjection(String modId) {
+        ShowdownJfrEvents.InjectionEvent jfrEvent = ShowdownJfrEvents.beginInjection("interceptor", modId);
         try {
             CobblemonExtra.LOGGER.info("🔄 开始处理 {} 的 Showdown 注入", modId);
 
@@ -44,26 +61,43 @@ public class UniversalShowdownMerger {
                 return;
             }
 
-            // 检查是否已经处理过这个mod
-            if (processedMods.contains(modId)) {
+            // 原子地标记为已处理，同一个mod并发调用时只有一个会继续
+            if (!processedMods.add(modId)) {
                 CobblemonExtra.LOGGER.info("⚠️ {} 已经处理过，跳过", modId);
                 return;
             }
 
+            // 后台预取还没有完成时不在其他mod的构造线程上等待，提交时会补充收集这个mod
+            if (!ShowdownStartupPipeline.isCommitted() && !ShowdownStartupPipeline.isPrefetched()) {
+                CobblemonExtra.LOGGER.info("🧺 {} 的 Showdown 内容将在提交时收集", modId);
+                return;
+            }
+
+            // 输入和输出都与清单一致时，磁盘上已经是合并结果
+            if (ShowdownMergeManifest.isUpToDate()) {
+                CobblemonExtra.LOGGER.info("📋 {} 的 Showdown 内容未变化，沿用已合并的文件", modId);
+                return;
+            }
+
             // 收集这个mod的Showdown内容
             collectModShowdownContent(modId);
 
-            // 执行通用合并
-            performUniversalMerge();
-
-            // 标记为已处理
-            processedMods.add(modId);
+            // 启动期间只收集，由启动流水线在加载完成后统一写出；
+            // 提交之后才到达的mod在静默期后批量重新提交一次，而不是每个mod各合并一次
+            if (ShowdownStartupPipeline.isCommitted()) {
+                ShowdownStartupPipeline.scheduleCommit(modId);
+            } else {
+                CobblemonExtra.LOGGER.info("🧺 已收集 {} 的 Showdown 内容，等待启动流水线统一写出", modId);
+            }
 
             CobblemonExtra.LOGGER.info("✅ 成功处理 {} 的 Showdown 注入", modId);
 
         } catch (Exception e) {
             CobblemonExtra.LOGGER.error("❌ 处理 {} 的 Showdown 注入时发生错误", modId, e);
             throw e;
+        } finally {
+            // 注入本身只收集内容，合并记录在流水线的提交事件中
+            ShowdownJfrEvents.commitInjection(jfrEvent, true);
         }
     }
     
@@ -71,13 +105,20 @@ public class UniversalShowdownMerger {
      * 收集指定mod的Showdown内容
      */
     private static void collectModShowdownContent(String modId) {
-        Map<String, String> modContent = new HashMap<>();
+        Map<String, String> modContent = new ConcurrentHashMap<>();
         
         for (String fileName : SHOWDOWN_FILES) {
+            if (isStreaming()) {
+                String hash = modShowdownFileHash(modId, fileName);
+                if (hash != null) {
+                    modContent.put(fileName, hash);
+                }
+                continue;
+            }
             try {
                 String content = readModShowdownFile(modId, fileName);
                 if (content != null && !content.trim().isEmpty()) {
-                    modContent.put(fileName, content);
+                    modContent.put(fileName, ShowdownContentStore.put(content));
                     CobblemonExtra.LOGGER.debug("📄 收集到 {} 的 {} (大小: {} 字节)", 
                         modId, fileName, content.length());
                 }
@@ -88,47 +129,59 @@ public class UniversalShowdownMerger {
         
         if (!modContent.isEmpty()) {
             modShowdownContent.put(modId, modContent);
-            CobblemonExtra.LOGGER.info("📦 成功收集 {} 的 {} 个 Showdown 文件", modId, modContent.size());
+            pendingContent.set(true);
+            CobblemonExtra.LOGGER.info("📦 成功收集 {} 的 {} 个 Showdown 文件，{}", modId, modContent.size(),
+                ShowdownResourceIndex.getStats());
         }
     }
     
     /**
      * 读取指定mod的Showdown文件
+     * 通过资源索引直接定位到该mod自己jar中的文件
      */
-    private static String readModShowdownFile(String modId, String fileName) {
-        try {
-            // 从配置中获取mod的资源路径
-            List<String> configuredPaths = ShowdownInterceptionConfig.getModResourcePaths(modId);
+    static String readModShowdownFile(String modId, String fileName) {
+        return readCache.computeIfAbsent(modId + "/" + fileName,
+            key -> Optional.ofNullable(readModShowdownFileUncached(modId, fileName))).orElse(null);
+    }
 
-            // 构建完整的可能路径列表
-            List<String> possiblePaths = new ArrayList<>();
+    /**
+     * 指定mod的Showdown文件内容的哈希（合并清单使用），不存在时返回null
+     * 流式合并模式下文件以流的形式直接写入内容缓存，不读入内存
+     */
+    static String modShowdownFileHash(String modId, String fileName) {
+        if (isStreaming()) {
+            return hashCache.computeIfAbsent(modId + "/" + fileName,
+                key -> Optional.ofNullable(storeModShowdownFile(modId, fileName))).orElse(null);
+        }
+        String content = readModShowdownFile(modId, fileName);
+        return content != null ? ShowdownMergeManifest.sha256(content.getBytes(StandardCharsets.UTF_8)) : null;
+    }
 
-            // 添加配置的路径
-            for (String basePath : configuredPaths) {
-                possiblePaths.add(basePath + fileName);
-            }
+    private static String storeModShowdownFile(String modId, String fileName) {
+        try {
+            return ShowdownContentStore.putStreaming(out -> ShowdownResourceIndex.transfer(modId, fileName, out));
+        } catch (Exception e) {
+            CobblemonExtra.LOGGER.debug("❌ 读取 {} 的 {} 时发生错误: {}", modId, fileName, e.getMessage());
+            return null;
+        }
+    }
 
-            // 添加默认的备用路径
-            possiblePaths.addAll(Arrays.asList(
-                "/" + modId.replace("_", "") + "/" + fileName,
-                "/" + modId + "/" + fileName,
-                "/drai/dev/" + modId + "/" + fileName,
-                "/showdown/" + fileName,
-                "/data/" + fileName
-            ));
-
-            for (String path : possiblePaths) {
-                try (InputStream inputStream = UniversalShowdownMerger.class.getResourceAsStream(path)) {
-                    if (inputStream != null) {
-                        String content = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
-                        CobblemonExtra.LOGGER.debug("✅ 成功从路径 {} 读取 {} 的 {}", path, modId, fileName);
-                        return content;
-                    }
-                }
-            }
+    /**
+     * 是否使用流式合并（配置了流式合并的缓冲区大小）
+     */
+    static boolean isStreaming() {
+        return CobblemonExtraConfig.getStreamingMergeBufferBytes() > 0;
+    }
 
-            CobblemonExtra.LOGGER.debug("⚠️ 未找到 {} 的 {} 文件", modId, fileName);
-            return null;
+    private static String readModShowdownFileUncached(String modId, String fileName) {
+        try {
+            byte[] data = ShowdownResourceIndex.read(modId, fileName);
+            if (data == null) {
+                CobblemonExtra.LOGGER.debug("⚠️ 未找到 {} 的 {} 文件", modId, fileName);
+                return null;
+            }
+            CobblemonExtra.LOGGER.debug("✅ 成功从 {} 读取 {} 的 {}", ShowdownResourceIndex.locate(modId, fileName), modId, fileName);
+            return new String(data, StandardCharsets.UTF_8);
 
         } catch (Exception e) {
             CobblemonExtra.LOGGER.debug("❌ 读取 {} 的 {} 时发生错误: {}", modId, fileName, e.getMessage());
@@ -136,72 +189,253 @@ public class UniversalShowdownMerger {
         }
     }
     
+    /**
+     * 上次提交之后是否有新收集的内容
+     */
+    static boolean hasPendingContent() {
+        return pendingContent.get();
+    }
+
+    /**
+     * 合并所有贡献并写出（由启动流水线在提交点调用）
+     * 因合并清单命中而跳过收集的mod在这里补充收集
+     */
+    static boolean mergeAll() {
+        for (String modId : processedMods) {
+            if (!modShowdownContent.containsKey(modId)) {
+                collectModShowdownContent(modId);
+            }
+        }
+        pendingContent.set(false);
+        return performUniversalMerge();
+    }
+
+    /**
+     * 释放启动期间缓存的mod文件读取结果，并把收集到的内容移出内存
+     */
+    static void releaseReadCache() {
+        readCache.clear();
+        hashCache.clear();
+        ShowdownContentStore.release();
+    }
+    
     /**
      * 执行通用合并
+     * 各文件互相独立，在有界线程池上并发执行；每个文件的 读取 → 合并 → 写入 作为流水线阶段依次提交，
+     * 不同文件的阶段互相重叠。单个文件失败只记录该文件，不影响其他文件
+     * 流式合并模式下逐个文件合并，同一时间只有一个缓冲区
      */
-    private static void performUniversalMerge() {
+    private static boolean performUniversalMerge() {
+        boolean streaming = isStreaming();
+        CobblemonExtra.LOGGER.info(streaming ? "🔄 开始执行通用 Showdown 合并（流式）..." : "🔄 开始执行通用 Showdown 合并...");
+        long startTime = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(streaming ? 1 : MERGE_PARALLELISM, runnable -> {
+            Thread thread = new Thread(runnable, "CobblemonExtra-Showdown-Merge-" + MERGE_THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
         try {
-            CobblemonExtra.LOGGER.info("🔄 开始执行通用 Showdown 合并...");
-            
+            // 按固定的文件顺序提交和汇总，保证日志和结果的确定性
+            Map<String, CompletableFuture<Integer>> futures = new LinkedHashMap<>();
             for (String fileName : SHOWDOWN_FILES) {
-                mergeFileFromAllMods(fileName);
+                CompletableFuture<Integer> future = streaming
+                    ? CompletableFuture.supplyAsync(() -> mergeFileStreaming(fileName), executor)
+                    : CompletableFuture
+                        .supplyAsync(() -> collectFileContents(fileName), executor)
+                        .thenApplyAsync(contents -> mergeCollected(contents, fileName), executor)
+                        .thenApplyAsync(merged -> writeMerged(fileName, merged), executor);
+                futures.put(fileName, future);
             }
-            
-            CobblemonExtra.LOGGER.info("✅ 通用 Showdown 合并完成！");
-            
-        } catch (Exception e) {
-            CobblemonExtra.LOGGER.error("❌ 通用合并失败", e);
-            throw e;
+
+            List<String> failedFiles = new ArrayList<>();
+            for (Map.Entry<String, CompletableFuture<Integer>> entry : futures.entrySet()) {
+                try {
+                    entry.getValue().join();
+                } catch (CompletionException e) {
+                    failedFiles.add(entry.getKey());
+                    CobblemonExtra.LOGGER.error("❌ 合并 {} 失败", entry.getKey(), e.getCause());
+                }
+            }
+
+            long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+            if (failedFiles.isEmpty()) {
+                CobblemonExtra.LOGGER.info("✅ 通用 Showdown 合并完成！耗时 {} ms，{}", elapsedMs, ShowdownFileWriter.getStats());
+            } else {
+                CobblemonExtra.LOGGER.warn("⚠️ 通用 Showdown 合并完成，{} 个文件失败: {}，耗时 {} ms",
+                    failedFiles.size(), failedFiles, elapsedMs);
+            }
+            return failedFiles.isEmpty();
+        } finally {
+            executor.shutdown();
         }
     }
     
     /**
-     * 合并所有mod的指定文件
+     * 合并阶段：没有任何内容时返回null
      */
-    private static void mergeFileFromAllMods(String fileName) {
-        try {
-            // 收集所有mod的这个文件内容
-            List<ModFileContent> allContents = new ArrayList<>();
-            
-            // 添加我们的内容（最高优先级）
-            String ourContent = readOurShowdownFile(fileName);
-            if (ourContent != null) {
-                allContents.add(new ModFileContent("cobblemonextra", ourContent, 1000));
+    private static MergedFile mergeCollected(List<ModFileContent> contents, String fileName) {
+        if (contents.isEmpty()) {
+            CobblemonExtra.LOGGER.debug("⚠️ 没有找到任何 {} 内容，跳过", fileName);
+            return null;
+        }
+        ShowdownPriorityMerger.MergePlan plan = planContents(contents, fileName);
+        return plan != null
+            ? new MergedFile(plan, contents, contents.size())
+            : new MergedFile(smartMergeContents(contents, fileName), contents.size());
+    }
+
+    /**
+     * 写入阶段：返回参与合并的mod数
+     */
+    private static int writeMerged(String fileName, MergedFile merged) {
+        if (merged == null) {
+            return 0;
+        }
+        if (merged.getPlan() != null) {
+            spliceShowdownFile(fileName, merged.getPlan(), merged.getSources());
+        } else {
+            writeShowdownFile(fileName, merged.getContent());
+        }
+        CobblemonExtra.LOGGER.info("✅ 成功合并 {} ({} 个mod的内容)", fileName, merged.getContributors());
+        return merged.getContributors();
+    }
+
+    /**
+     * 流式合并单个文件：优先级最低的贡献者作为框架从磁盘流式读取，其他贡献者在内存中作为覆盖表
+     * 缓冲区的一半用作滑动窗口，覆盖内容不能超过另一半；框架不在磁盘上、覆盖内容过大或无法流式合并时退回到普通合并
+     */
+    private static int mergeFileStreaming(String fileName) {
+        long budget = CobblemonExtraConfig.getStreamingMergeBufferBytes();
+        List<StreamedContribution> contributions = new ArrayList<>();
+
+        Path diskFile = ShowdownStartupPipeline.foreignDiskFile(fileName);
+        if (diskFile != null) {
+            contributions.add(new StreamedContribution(ShowdownStartupPipeline.DISK_CONTRIBUTOR, ShowdownStartupPipeline.DISK_PRIORITY, diskFile, null));
+        }
+        for (Map.Entry<String, Map<String, String>> modEntry : modShowdownContent.entrySet()) {
+            String hash = modEntry.getValue().get(fileName);
+            if (hash != null) {
+                contributions.add(new StreamedContribution(modEntry.getKey(), getModPriority(modEntry.getKey()), null, hash));
             }
-            
-            // 添加其他mod的内容
-            for (Map.Entry<String, Map<String, String>> modEntry : modShowdownContent.entrySet()) {
-                String modId = modEntry.getKey();
-                Map<String, String> modFiles = modEntry.getValue();
-                
-                if (modFiles.containsKey(fileName)) {
-                    String content = modFiles.get(fileName);
-                    int priority = getModPriority(modId);
-                    allContents.add(new ModFileContent(modId, content, priority));
+        }
+        contributions.sort(Comparator.comparingInt(StreamedContribution::getPriority).thenComparing(StreamedContribution::getModId));
+
+        String ourContent = readOurShowdownFile(fileName);
+        Path frameFile = contributions.isEmpty() ? null : contributions.getFirst().getFile();
+        if (frameFile == null || ourContent == null) {
+            return writeMerged(fileName, mergeCollected(collectFileContents(fileName), fileName));
+        }
+
+        // 覆盖表：框架之外的所有mod，加上我们的内容（最高优先级）
+        List<ShowdownPriorityMerger.Contributor> overrides = new ArrayList<>();
+        long overrideBytes = ourContent.length();
+        for (StreamedContribution contribution : contributions.subList(1, contributions.size())) {
+            overrideBytes += ShowdownContentStore.length(contribution.getHash());
+        }
+        if (overrideBytes > budget / 2) {
+            CobblemonExtra.LOGGER.info("📏 {} 的高优先级内容（{} 字节）超过流式缓冲区的一半，使用普通合并", fileName, overrideBytes);
+            return writeMerged(fileName, mergeCollected(collectFileContents(fileName), fileName));
+        }
+        for (StreamedContribution contribution : contributions.subList(1, contributions.size())) {
+            String content = loadModContent(contribution.getModId(), fileName, contribution.getHash());
+            if (content != null) {
+                overrides.add(new ShowdownPriorityMerger.Contributor(contribution.getModId(), contribution.getPriority(), content));
+            }
+        }
+        String appliedContent = ShowdownDataManager.applyConfig(fileName, ourContent);
+        overrides.add(new ShowdownPriorityMerger.Contributor(CobblemonExtra.MOD_ID, 1000, appliedContent));
+
+        String objectName = detectObjectName(fileName, appliedContent);
+        if (objectName != null) {
+            try {
+                Path outputPath = Paths.get(ShowdownDataManager.getShowdownFolder(), fileName);
+                ShowdownFileWriter.WriteResult result = ShowdownStreamingMerger.merge(
+                    outputPath, fileName, objectName, frameFile, overrides, (int) Math.min(budget / 4, Integer.MAX_VALUE));
+                if (result != null) {
+                    CobblemonExtra.LOGGER.info("✅ 成功流式合并 {} ({} 个mod的内容，{} 字节)", fileName, overrides.size() + 1, result.getBytes());
+                    return overrides.size() + 1;
                 }
+            } catch (Exception e) {
+                CobblemonExtra.LOGGER.warn("⚠️ 流式合并 {} 失败，使用普通合并: {}", fileName, e.getMessage());
             }
-            
-            if (allContents.isEmpty()) {
-                CobblemonExtra.LOGGER.debug("⚠️ 没有找到任何 {} 内容，跳过", fileName);
-                return;
+        }
+        return writeMerged(fileName, mergeCollected(collectFileContents(fileName), fileName));
+    }
+
+    /**
+     * 收集所有mod的指定文件内容，按优先级排序（优先级高的在后面，这样会覆盖前面的）
+     */
+    private static List<ModFileContent> collectFileContents(String fileName) {
+        List<ModFileContent> allContents = new ArrayList<>();
+        
+        // 其他mod直接写到磁盘上的内容（最低优先级，作为基础）
+        String diskContent = ShowdownStartupPipeline.readForeignDiskContent(fileName);
+        if (diskContent != null) {
+            Path diskPath = Paths.get(ShowdownDataManager.getShowdownFolder(), fileName);
+            allContents.add(new ModFileContent(ShowdownStartupPipeline.DISK_CONTRIBUTOR, diskContent, ShowdownStartupPipeline.DISK_PRIORITY,
+                ShowdownSpliceWriter.Source.file(diskPath, diskContent)));
+        }
+        
+        // 添加我们的内容（最高优先级）
+        String ourContent = readOurShowdownFile(fileName);
+        if (ourContent != null) {
+            allContents.add(new ModFileContent("cobblemonextra", ShowdownDataManager.applyConfig(fileName, ourContent), 1000));
+        }
+        
+        // 添加其他mod的内容
+        for (Map.Entry<String, Map<String, String>> modEntry : modShowdownContent.entrySet()) {
+            String modId = modEntry.getKey();
+            String hash = modEntry.getValue().get(fileName);
+            String content = hash != null ? loadModContent(modId, fileName, hash) : null;
+            if (content != null) {
+                allContents.add(new ModFileContent(modId, content, getModPriority(modId),
+                    ShowdownContentStore.source(modEntry.getValue().get(fileName), content)));
             }
-            
-            // 按优先级排序（优先级高的在后面，这样会覆盖前面的）
-            allContents.sort(Comparator.comparingInt(ModFileContent::getPriority));
-            
-            // 执行智能合并
-            String mergedContent = smartMergeContents(allContents, fileName);
-            
-            // 写入最终文件
-            writeShowdownFile(fileName, mergedContent);
-            
-            CobblemonExtra.LOGGER.info("✅ 成功合并 {} ({} 个mod的内容)", fileName, allContents.size());
-            
-        } catch (Exception e) {
-            CobblemonExtra.LOGGER.error("❌ 合并 {} 失败", fileName, e);
         }
+        
+        // 优先级相同时按modId排序，结果与mod收集顺序无关
+        allContents.sort(Comparator.comparingInt(ModFileContent::getPriority).thenComparing(ModFileContent::getModId));
+        return allContents;
     }
     
+    /**
+     * 读取收集到的内容；缓存文件丢失或损坏时重新从mod的jar中读取
+     */
+    private static String loadModContent(String modId, String fileName, String hash) {
+        String content = ShowdownContentStore.get(hash);
+        if (content != null) {
+            return content;
+        }
+        content = readModShowdownFileUncached(modId, fileName);
+        if (content != null) {
+            modShowdownContent.get(modId).put(fileName, ShowdownContentStore.put(content));
+            CobblemonExtra.LOGGER.info("📄 {} 的 {} 缓存不可用，已重新从mod中读取", modId, fileName);
+        }
+        return content;
+    }
+
+    /**
+     * 合并已经收集好的内容，不读取资源也不写文件（供基准测试等离线调用）
+     */
+    static String mergeContents(List<ModFileContent> contents, String fileName) {
+        List<ModFileContent> sorted = new ArrayList<>(contents);
+        sorted.sort(Comparator.comparingInt(ModFileContent::getPriority).thenComparing(ModFileContent::getModId));
+        return smartMergeContents(sorted, fileName);
+    }
+
+    /**
+     * 生成合并计划（供拼接写入）；只有一个贡献者或无法按对象合并时返回null，由 smartMergeContents 处理
+     */
+    private static ShowdownPriorityMerger.MergePlan planContents(List<ModFileContent> contents, String fileName) {
+        if (contents.size() == 1) {
+            return null;
+        }
+        String objectName = detectObjectName(fileName, contents.getLast().getContent());
+        return objectName != null ? ShowdownPriorityMerger.plan(toContributors(contents), objectName, fileName) : null;
+    }
+
     /**
      * 智能合并多个mod的内容
      */
@@ -211,8 +445,8 @@ public class UniversalShowdownMerger {
             return contents.getFirst().getContent();
         }
         
-        // 检测对象名称
-        String objectName = detectObjectName(contents.getFirst().getContent());
+        // 检测对象名称（以最高优先级的内容为准，通常是我们自己较小的文件）
+        String objectName = detectObjectName(fileName, contents.getLast().getContent());
         if (objectName == null) {
             // 如果无法检测对象名称，使用简单拼接
             CobblemonExtra.LOGGER.warn("⚠️ 无法检测 {} 的对象名称，使用简单合并", fileName);
@@ -236,58 +470,46 @@ public class UniversalShowdownMerger {
     
     /**
      * 智能对象合并
+     * 每个mod的内容只扫描一次，按优先级一次性解决键冲突后输出，不再逐个mod两两重建整个文件
      */
     @SuppressWarnings("unused")
     private static String smartObjectMerge(List<ModFileContent> contents, String objectName, String fileName) {
-        // 使用现有的合并逻辑
-        String baseContent = contents.getFirst().getContent();
-        
-        for (int i = 1; i < contents.size(); i++) {
-            ModFileContent current = contents.get(i);
-            baseContent = GravelsShowdownMerger.mergeJavaScriptContent(
-                current.getContent(), baseContent, fileName);
-            
-            CobblemonExtra.LOGGER.debug("🔄 合并 {} 到基础内容中", current.getModId());
+        String merged = ShowdownPriorityMerger.merge(toContributors(contents), objectName, fileName);
+        if (merged == null) {
+            CobblemonExtra.LOGGER.warn("⚠️ 所有mod的 {} 中都没有找到 {} 对象，使用简单合并", fileName, objectName);
+            return simpleContentMerge(contents);
         }
-        
-        return baseContent;
+        return merged;
     }
     
+    private static List<ShowdownPriorityMerger.Contributor> toContributors(List<ModFileContent> contents) {
+        List<ShowdownPriorityMerger.Contributor> contributors = new ArrayList<>(contents.size());
+        for (ModFileContent content : contents) {
+            contributors.add(new ShowdownPriorityMerger.Contributor(content.getModId(), content.getPriority(), content.getContent()));
+        }
+        return contributors;
+    }
+
     /**
      * 自动检测JavaScript文件中的对象名称
      */
-    private static String detectObjectName(String content) {
-        try {
-            Pattern pattern = Pattern.compile("const\\s+(\\w+)\\s*=\\s*\\{");
-            Matcher matcher = pattern.matcher(content);
-
-            if (matcher.find()) {
-                String objectName = matcher.group(1);
-                CobblemonExtra.LOGGER.debug("🔍 自动检测到对象名称: {}", objectName);
-                return objectName;
-            }
-
-            return null;
-
-        } catch (Exception e) {
-            CobblemonExtra.LOGGER.debug("❌ 检测对象名称时发生错误", e);
+    private static String detectObjectName(String fileName, String content) {
+        ShowdownObjectScanner.ObjectLiteral object = ShowdownBundledIndex.indexed(fileName, content);
+        if (object == null) {
+            object = ShowdownObjectScanner.scan(content).first();
+        }
+        if (object == null) {
             return null;
         }
+        CobblemonExtra.LOGGER.debug("🔍 自动检测到对象名称: {}", object.getName());
+        return object.getName();
     }
 
     /**
      * 读取我们的Showdown文件
      */
     private static String readOurShowdownFile(String fileName) {
-        try (InputStream inputStream = UniversalShowdownMerger.class.getResourceAsStream("/showdown/" + fileName)) {
-            if (inputStream != null) {
-                return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
-            }
-            return null;
-        } catch (Exception e) {
-            CobblemonExtra.LOGGER.debug("⚠️ 读取我们的 {} 失败: {}", fileName, e.getMessage());
-            return null;
-        }
+        return ShowdownBundledIndex.content(fileName);
     }
 
     /**
@@ -307,12 +529,11 @@ public class UniversalShowdownMerger {
      */
     private static void writeShowdownFile(String fileName, String content) {
         try {
-            Path outputPath = Paths.get("run/showdown/data/mods/cobblemon/" + fileName);
-            Files.createDirectories(outputPath.getParent());
-            Files.writeString(outputPath, content, StandardCharsets.UTF_8,
-                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            Path outputPath = Paths.get(ShowdownDataManager.getShowdownFolder(), fileName);
+            ShowdownFileWriter.WriteResult result = ShowdownFileWriter.write(outputPath, content);
 
-            CobblemonExtra.LOGGER.debug("✅ 成功写入: {} (大小: {} 字节)", fileName, content.length());
+            CobblemonExtra.LOGGER.debug(result.isSkipped() ? "✅ 内容未变化，跳过写入: {} (大小: {} 字节)" : "✅ 成功写入: {} (大小: {} 字节)",
+                fileName, result.getBytes());
 
         } catch (Exception e) {
             CobblemonExtra.LOGGER.error("❌ 写入 {} 失败", fileName, e);
@@ -320,6 +541,23 @@ public class UniversalShowdownMerger {
         }
     }
 
+    /**
+     * 按合并计划拼接写入Showdown文件；源文件在合并期间被修改时退回到生成完整内容后写入
+     */
+    private static void spliceShowdownFile(String fileName, ShowdownPriorityMerger.MergePlan plan, List<ShowdownSpliceWriter.Source> sources) {
+        try {
+            Path outputPath = Paths.get(ShowdownDataManager.getShowdownFolder(), fileName);
+            ShowdownFileWriter.WriteResult result = ShowdownSpliceWriter.write(outputPath, plan, sources);
+
+            CobblemonExtra.LOGGER.debug(result.isSkipped() ? "✅ 内容未变化，跳过写入: {} (大小: {} 字节)" : "✅ 成功拼接写入: {} (大小: {} 字节)",
+                fileName, result.getBytes());
+
+        } catch (Exception e) {
+            CobblemonExtra.LOGGER.warn("⚠️ 拼接写入 {} 失败，改为完整写入: {}", fileName, e.getMessage());
+            writeShowdownFile(fileName, plan.render());
+        }
+    }
+
     /**
      * 重置处理状态（用于测试或重新加载）
      */
@@ -327,6 +565,11 @@ public class UniversalShowdownMerger {
     public static void reset() {
         processedMods.clear();
         modShowdownContent.clear();
+        pendingContent.set(false);
+        readCache.clear();
+        hashCache.clear();
+        ShowdownContentStore.reset();
+        ShowdownResourceIndex.reset();
         CobblemonExtra.LOGGER.info("🔄 已重置通用Showdown合并器状态");
     }
 
@@ -340,19 +583,81 @@ public class UniversalShowdownMerger {
     /**
      * Mod文件内容包装类
      */
-    private static class ModFileContent {
+    static class ModFileContent {
         private final String modId;
         private final String content;
         private final int priority;
+        private final ShowdownSpliceWriter.Source source;
 
         public ModFileContent(String modId, String content, int priority) {
+            this(modId, content, priority, ShowdownSpliceWriter.Source.text(content));
+        }
+
+        public ModFileContent(String modId, String content, int priority, ShowdownSpliceWriter.Source source) {
             this.modId = modId;
             this.content = content;
             this.priority = priority;
+            this.source = source;
         }
 
         public String getModId() { return modId; }
         public String getContent() { return content; }
         public int getPriority() { return priority; }
+        public ShowdownSpliceWriter.Source getSource() { return source; }
+    }
+
+    /**
+     * 流式合并中的一个贡献：磁盘上的文件，或内容缓存中的mod文件
+     */
+    private static class StreamedContribution {
+        private final String modId;
+        private final int priority;
+        private final Path file;
+        private final String hash;
+
+        StreamedContribution(String modId, int priority, Path file, String hash) {
+            this.modId = modId;
+            this.priority = priority;
+            this.file = file;
+            this.hash = hash;
+        }
+
+        String getModId() { return modId; }
+        int getPriority() { return priority; }
+        String getHash() { return hash; }
+
+        /**
+         * 内容所在的文件，内容仍在内存中时返回null
+         */
+        Path getFile() { return file != null ? file : ShowdownContentStore.file(hash); }
+    }
+
+    /**
+     * 单个文件的合并结果：合并计划（拼接写入）或完整内容
+     */
+    private static class MergedFile {
+        private final String content;
+        private final ShowdownPriorityMerger.MergePlan plan;
+        private final List<ShowdownSpliceWriter.Source> sources;
+        private final int contributors;
+
+        public MergedFile(String content, int contributors) {
+            this.content = content;
+            this.plan = null;
+            this.sources = null;
+            this.contributors = contributors;
+        }
+
+        public MergedFile(ShowdownPriorityMerger.MergePlan plan, List<ModFileContent> contents, int contributors) {
+            this.content = null;
+            this.plan = plan;
+            this.sources = contents.stream().map(ModFileContent::getSource).toList();
+            this.contributors = contributors;
+        }
+
+        public String getContent() { return content; }
+        public ShowdownPriorityMerger.MergePlan getPlan() { return plan; }
+        public List<ShowdownSpliceWriter.Source> getSources() { return sources; }
+        public int getContributors() { return contributors; }
     }
 }
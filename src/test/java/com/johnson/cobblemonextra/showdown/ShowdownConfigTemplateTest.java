@@ -0,0 +1,71 @@
+package com.johnson.cobblemonextra.showdown;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * ShowdownConfigTemplate 的固定宽度渲染和原地更新：比宽度更长的值不能留下多余的字符
+ */
+class ShowdownConfigTemplateTest {
+
+    private static final ShowdownConfigTemplate.Binding POWER = ShowdownConfigTemplate.BINDINGS.getFirst();
+    private static final String MARKER = "/*@ACTION_HERO_MASK_POWER_CONFIG*/";
+    private static final String SOURCE = "const Items = {\n  mask: {onBasePower() { return this.chainModify(ACTION_HERO_MASK_POWER_CONFIG); }}\n};\n";
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void valueIsPaddedAndPatchedInPlace() throws IOException {
+        Path file = render("1.5");
+        assertEquals(rendered(" 1.5"), Files.readString(file));
+        assertEquals(1, ShowdownConfigTemplate.patchFile(file, Map.of(POWER, "10.0")));
+        assertEquals(rendered("10.0"), Files.readString(file));
+    }
+
+    @Test
+    void longerValueIsRoundedToTheSlot() throws IOException {
+        Path file = render("2.125");
+        assertEquals(rendered("2.13"), Files.readString(file));
+        assertEquals(1, ShowdownConfigTemplate.patchFile(file, Map.of(POWER, "1.5")));
+        assertEquals(rendered(" 1.5"), Files.readString(file));
+    }
+
+    @Test
+    void valueThatCannotFitNeedsFullMerge() throws IOException {
+        Path file = render("12345");
+        assertEquals(rendered("12345"), Files.readString(file));
+        assertEquals(-1, ShowdownConfigTemplate.patchFile(file, Map.of(POWER, "1.5")));
+        assertEquals(rendered("12345"), Files.readString(file));
+
+        Path other = render("1.5");
+        assertEquals(-1, ShowdownConfigTemplate.patchFile(other, Map.of(POWER, "12345")));
+        assertEquals(rendered(" 1.5"), Files.readString(other));
+    }
+
+    @Test
+    void longerValueInFileIsNotPatched() throws IOException {
+        // 旧版本渲染的文件：标记后面的值比固定宽度长
+        Path file = folder.resolve("items.js");
+        Files.writeString(file, rendered("2.125"));
+        assertEquals(-1, ShowdownConfigTemplate.patchFile(file, Map.of(POWER, "1.5")));
+        assertEquals(rendered("2.125"), Files.readString(file));
+    }
+
+    private Path render(String value) throws IOException {
+        Path file = folder.resolve("items.js");
+        Files.writeString(file, ShowdownConfigTemplate.compile(SOURCE).render(Map.of(POWER, value)));
+        return file;
+    }
+
+    private static String rendered(String value) {
+        return SOURCE.replace("ACTION_HERO_MASK_POWER_CONFIG", MARKER + value);
+    }
+}
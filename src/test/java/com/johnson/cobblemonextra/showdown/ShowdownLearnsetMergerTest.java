@@ -0,0 +1,80 @@
+package com.johnson.cobblemonextra.showdown;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * ShowdownLearnsetMerger 的来源并集和优先级规则
+ */
+class ShowdownLearnsetMergerTest {
+
+    @Test
+    void sourcesAreUnionedAndDeduplicated() {
+        String low = "bulbasaur: {learnset: {tackle: [\"9L1\", \"9M\"], growl: [\"9L3\"]}}";
+        String high = "bulbasaur: {learnset: {tackle: [\"9T\", \"9M\"], vinewhip: [\"9L7\"]}}";
+        assertEquals("""
+            bulbasaur: {
+                learnset: {
+                  tackle: ["9T", "9M", "9L1"],
+                  vinewhip: ["9L7"],
+                  growl: ["9L3"]
+                }
+              }""", merge(low, high));
+    }
+
+    @Test
+    void higherPriorityWinsLevelUpOfSameGeneration() {
+        String low = "pikachu: {learnset: {thunderbolt: [\"9L50\", \"8L50\", \"9M\"]}}";
+        String high = "pikachu: {learnset: {thunderbolt: [\"9L20\"]}}";
+        assertEquals("""
+            pikachu: {
+                learnset: {
+                  thunderbolt: ["9L20", "8L50", "9M"]
+                }
+              }""", merge(low, high));
+    }
+
+    @Test
+    void otherFieldsComeFromHigherPriority() {
+        String low = "eevee: {learnset: {bite: ['9L5']}, eventData: [{generation: 8}], encounters: [{level: 3}]}";
+        String high = "eevee: {eventData: [{generation: 9}], learnset: {bite: ['9M']}}";
+        assertEquals("""
+            eevee: {
+                eventData: [{generation: 9}],
+                learnset: {
+                  bite: ['9M', '9L5']
+                },
+                encounters: [{level: 3}]
+              }""", merge(low, high));
+    }
+
+    @Test
+    void unparseableEntryFallsBack() {
+        String low = "mew: {learnset: {psychic: [\"9L1\"]}}";
+        String high = "mew: {learnset: {psychic: SOURCES}}";
+        assertNull(merge(low, high));
+    }
+
+    /**
+     * 按优先级升序合并同一物种的条目，每段内容包装成 Learnsets 对象后扫描
+     */
+    private static String merge(String... speciesEntries) {
+        List<CharSequence> contents = new ArrayList<>();
+        List<ShowdownObjectScanner.Entry> entries = new ArrayList<>();
+        for (String speciesEntry : speciesEntries) {
+            String content = "const Learnsets = {\n  " + speciesEntry + "\n};\n";
+            ShowdownObjectScanner.ObjectLiteral object = ShowdownObjectScanner.scan(content).find(ShowdownLearnsetMerger.OBJECT_NAME);
+            assertNotNull(object);
+            assertEquals(1, object.getEntries().size());
+            contents.add(content);
+            entries.add(object.getEntries().getFirst());
+        }
+        return ShowdownLearnsetMerger.merge(contents, entries);
+    }
+}
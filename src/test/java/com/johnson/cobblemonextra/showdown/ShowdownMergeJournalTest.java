@@ -0,0 +1,122 @@
+package com.johnson.cobblemonextra.showdown;
+
+import net.neoforged.fml.loading.FMLPaths;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ShowdownMergeJournal 的提交和启动恢复：中断发生在提交点之前回滚，之后前滚
+ */
+class ShowdownMergeJournalTest {
+
+    private static final String HEADER = "const Items = {\n  a: 1";
+    private static final String OLD_TAIL = "\n};\n";
+    private static final String NEW_TAIL = ",\n  b: 2\n};\n";
+
+    @TempDir
+    Path gameDir;
+
+    private Path showdownFolder;
+    private Path moves;
+    private Path items;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        FMLPaths.loadAbsolutePaths(gameDir);
+        showdownFolder = Paths.get(ShowdownDataManager.getShowdownFolder());
+        Files.createDirectories(showdownFolder);
+        moves = showdownFolder.resolve("moves.js");
+        items = showdownFolder.resolve("items.js");
+        Files.writeString(moves, "old moves");
+        Files.writeString(items, HEADER + OLD_TAIL);
+    }
+
+    @Test
+    void commitAppliesStagedWrites() throws IOException {
+        ShowdownMergeJournal.begin("test");
+        ShowdownFileWriter.write(moves, "new moves");
+        byte[] oldTail = OLD_TAIL.getBytes(StandardCharsets.UTF_8);
+        ShowdownFileWriter.writeTail(items, Files.size(items), oldTail, HEADER.length(), NEW_TAIL.getBytes(StandardCharsets.UTF_8));
+
+        // 提交之前输出文件保持不变
+        assertEquals("old moves", Files.readString(moves));
+        assertEquals(HEADER + OLD_TAIL, Files.readString(items));
+
+        assertTrue(ShowdownMergeJournal.commit(false));
+        assertEquals("new moves", Files.readString(moves));
+        assertEquals(HEADER + NEW_TAIL, Files.readString(items));
+        assertFalse(Files.exists(ShowdownMergeJournal.getJournalFolder()));
+    }
+
+    @Test
+    void recoverWithoutIndexRollsBack() throws IOException {
+        ShowdownMergeJournal.begin("test");
+        ShowdownFileWriter.write(moves, "new moves");
+        // 在提交点之前中断：日志目录中只有暂存的文件，没有索引
+        Path crashed = gameDir.resolve("crashed-journal");
+        copyFolder(ShowdownMergeJournal.getJournalFolder(), crashed);
+        ShowdownMergeJournal.abort();
+        copyFolder(crashed, ShowdownMergeJournal.getJournalFolder());
+
+        ShowdownMergeJournal.recover();
+        assertEquals("old moves", Files.readString(moves));
+        assertFalse(Files.exists(ShowdownMergeJournal.getJournalFolder()));
+    }
+
+    @Test
+    void recoverWithIndexRollsForward() throws IOException {
+        Path journal = ShowdownMergeJournal.getJournalFolder();
+        Files.createDirectories(journal);
+        byte[] newMoves = "new moves".getBytes(StandardCharsets.UTF_8);
+        Files.write(journal.resolve("moves.js.new"), newMoves);
+        byte[] newTail = NEW_TAIL.getBytes(StandardCharsets.UTF_8);
+        Files.write(journal.resolve("items.js.tail"), newTail);
+
+        Properties index = new Properties();
+        index.setProperty("format", "1");
+        index.setProperty("reason", "test");
+        index.setProperty("record", "false");
+        index.setProperty("file.moves.js.kind", "replace");
+        index.setProperty("file.moves.js.size", String.valueOf(newMoves.length));
+        index.setProperty("file.moves.js.sha256", ShowdownMergeManifest.sha256(newMoves));
+        index.setProperty("file.items.js.kind", "tail");
+        index.setProperty("file.items.js.size", String.valueOf(HEADER.length() + newTail.length));
+        index.setProperty("file.items.js.sha256", ShowdownMergeManifest.sha256(newTail));
+        index.setProperty("file.items.js.position", String.valueOf(HEADER.length()));
+        index.setProperty("file.items.js.guardStart", "0");
+        index.setProperty("file.items.js.guardSha256", ShowdownMergeManifest.sha256(HEADER.getBytes(StandardCharsets.UTF_8)));
+        try (Writer writer = Files.newBufferedWriter(journal.resolve("journal.properties"), StandardCharsets.UTF_8)) {
+            index.store(writer, null);
+        }
+        // 在提交点之后中断：尾部只写了一半
+        Files.writeString(items, HEADER + NEW_TAIL.substring(0, 4));
+
+        ShowdownMergeJournal.recover();
+        assertEquals("new moves", Files.readString(moves));
+        assertEquals(HEADER + NEW_TAIL, Files.readString(items));
+        assertFalse(Files.exists(journal));
+    }
+
+    private static void copyFolder(Path source, Path target) throws IOException {
+        Files.createDirectories(target);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(source)) {
+            for (Path path : stream) {
+                Files.copy(path, target.resolve(path.getFileName()));
+            }
+        }
+    }
+}
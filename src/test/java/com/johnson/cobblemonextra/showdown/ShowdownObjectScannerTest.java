@@ -0,0 +1,97 @@
+package com.johnson.cobblemonextra.showdown;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ShowdownObjectScanner 的边界情况：逐字符扫描和按结构索引扫描的结果必须一致
+ */
+class ShowdownObjectScannerTest {
+
+    @Test
+    void bracketsInStringsAreIgnored() {
+        String content = "const Moves = {\n  a: {desc: \"} , \\\" {\"},\n  'b-c': {desc: 'it\\'s ,'},\n  d: 1\n};\n";
+        assertEquals(List.of("a:a: {desc: \"} , \\\" {\"}", "b-c:'b-c': {desc: 'it\\'s ,'}", "d:d: 1"), entries(content, "Moves"));
+    }
+
+    @Test
+    void templateExpressionsAreTracked() {
+        String content = "const Moves = {\n  a: {desc: `x ${ {y: 1}.y } }, ${`${'}'}`}`},\n  b: 2\n};\n";
+        assertEquals(List.of("a:a: {desc: `x ${ {y: 1}.y } }, ${`${'}'}`}`}", "b:b: 2"), entries(content, "Moves"));
+    }
+
+    @Test
+    void regexAndCommentsAreSkipped() {
+        String content = "const Moves = {\n  a: {test: /[}{,]/.test(s) && x / 2 > 1},\n  // b: }\n  c: /* } */ 3,\n  d: [1, 2].map(n => n / 2)\n};\n";
+        assertEquals(List.of("a:a: {test: /[}{,]/.test(s) && x / 2 > 1}", "c:c: /* } */ 3", "d:d: [1, 2].map(n => n / 2)"),
+            entries(content, "Moves"));
+    }
+
+    @Test
+    void methodsAndModifiersUseTheirName() {
+        String content = "const Items = {\n  onStart(pokemon) { return {}; },\n  async onEnd() {},\n  get name() { return 'x'; }\n};\n";
+        assertEquals(List.of("onStart:onStart(pokemon) { return {}; }", "onEnd:async onEnd() {}", "name:get name() { return 'x'; }"),
+            entries(content, "Items"));
+    }
+
+    @Test
+    void objectEndAndFollowingCode() {
+        String content = "const Moves = {\n  a: 1\n};\nconst Other = {b: '}'};\nexports.Moves = Moves;\n";
+        ShowdownObjectScanner.ScanResult result = ShowdownObjectScanner.scanScalar(content);
+        assertFalse(result.isMalformed());
+        assertEquals(2, result.getObjects().size());
+        assertEquals(content.indexOf("};") + 2, result.find("Moves").getStatementEnd());
+        assertEquals(List.of("b:b: '}'"), entries(content, "Other"));
+    }
+
+    @Test
+    void unclosedStringIsMalformed() {
+        assertTrue(ShowdownObjectScanner.scanScalar("const Moves = {\n  a: 'x\n};\n").isMalformed());
+    }
+
+    @Test
+    void computedKeyHasNoKey() {
+        String content = "const Moves = {\n  [x]: v,\n  v: {num: 1}\n};\n";
+        assertEquals(List.of("<null>:[x]: v", "v:v: {num: 1}"), entries(content, "Moves"));
+    }
+
+    @Test
+    void spreadHasNoKey() {
+        String content = "const Items = {\n  ...base,\n  base: {num: 2}\n};\n";
+        assertEquals(List.of("<null>:...base", "base:base: {num: 2}"), entries(content, "Items"));
+    }
+
+    @Test
+    void quotedComputedKeyHasNoKey() {
+        String content = "const Items = {\n  ['a' + b]: 1,\n  a: 2\n};\n";
+        assertEquals(List.of("<null>:['a' + b]: 1", "a:a: 2"), entries(content, "Items"));
+    }
+
+    /**
+     * 扫描指定对象，每个条目格式化为 "key:条目文本"，两种扫描路径的结果相同时才返回
+     */
+    static List<String> entries(String content, String objectName) {
+        List<String> scalar = format(ShowdownObjectScanner.scanScalar(content), content, objectName);
+        List<String> indexed = format(ShowdownObjectScanner.scan(content, ShowdownStructuralIndex.build(content)), content, objectName);
+        assertEquals(scalar, indexed);
+        return scalar;
+    }
+
+    private static List<String> format(ShowdownObjectScanner.ScanResult result, String content, String objectName) {
+        assertFalse(result.isMalformed());
+        ShowdownObjectScanner.ObjectLiteral object = result.find(objectName);
+        assertNotNull(object);
+        List<String> entries = new ArrayList<>();
+        for (ShowdownObjectScanner.Entry entry : object.getEntries()) {
+            entries.add((entry.getKey() != null ? entry.getKey() : "<null>") + ":" + entry.text(content));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,53 @@
+package com.johnson.cobblemonextra.showdown;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * ShowdownPresenceVerifier 只把处在key位置的匹配算作存在
+ */
+class ShowdownPresenceVerifierTest {
+
+    private static final ShowdownPresenceVerifier VERIFIER = ShowdownPresenceVerifier.of(Map.of(
+        "moves.js", List.of("hypermove", "megapunch", "shadowclaw"),
+        "items.js", List.of("heromask")
+    ));
+
+    @Test
+    void keyOnlyInsideStringIsMissing() {
+        String content = "const Moves = {\n"
+            + "  tackle: {desc: \"Stronger than hypermove: megapunch(1) and 'shadowclaw': x.\"},\n"
+            + "  pound: {shortDesc: `megapunch: ${1}`}\n"
+            + "};\n";
+        assertEquals(List.of("hypermove", "megapunch", "shadowclaw"), VERIFIER.missing("moves.js", content));
+    }
+
+    @Test
+    void keyOnlyInsideCommentIsMissing() {
+        String content = "const Moves = {\n  // hypermove: {num: 1},\n  /* megapunch: {num: 2}, */\n  shadowclaw: {num: 3}\n};\n";
+        assertEquals(List.of("hypermove", "megapunch"), VERIFIER.missing("moves.js", content));
+    }
+
+    @Test
+    void quotedKeyIsFound() {
+        String content = "const Moves = {\n  \"hypermove\": {num: 1},\n  'megapunch' : {num: 2},\n  shadowclaw() {}\n};\n";
+        assertEquals(List.of(), VERIFIER.missing("moves.js", content));
+    }
+
+    @Test
+    void prefixOfLongerKeyIsMissing() {
+        String content = "const Items = {\n  heromaskx: {num: 1},\n  superheromask: {num: 2},\n  'heromask-alt': {num: 3}\n};\n";
+        assertEquals(List.of("heromask"), VERIFIER.missing("items.js", content));
+    }
+
+    @Test
+    void onlyMissingKeysAreReported() {
+        String content = "const Moves = {\n  megapunch: {num: 2, desc: \"It's 'tough'\"},\n  other: {num: 4}\n};\n";
+        assertEquals(List.of("hypermove", "shadowclaw"), VERIFIER.missing("moves.js", content));
+        assertEquals(List.of(), VERIFIER.missing("abilities.js", content));
+    }
+}
@@ -0,0 +1,92 @@
+package com.johnson.cobblemonextra.showdown;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 使用 jdk.incubator.vector 的结构字符分类器
+ * 每次比较一个向量宽度的字符（AVX2 为16个，AVX-512 为32个），把两张位图的比较掩码直接写入对应的 long
+ * 只能在启用了 jdk.incubator.vector 模块时加载，由 ShowdownStructuralIndex 负责检查
+ */
+final class ShowdownVectorClassifier implements ShowdownStructuralIndex.Classifier {
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+    // 每次复制到临时数组的字符数，必须是64的倍数，保证每块的掩码不跨越位图中的 long
+    private static final int BLOCK = 4096;
+
+    ShowdownVectorClassifier() {
+        // 触发向量类的加载，模块不可用时在这里失败
+        if (64 % SPECIES.length() != 0) {
+            throw new IllegalStateException("不支持的向量宽度: " + SPECIES.length());
+        }
+    }
+
+    @Override
+    public void classify(CharSequence content, long[] literal, long[] code) {
+        int length = content.length();
+        char[] buffer = new char[Math.min(BLOCK, length)];
+        int lanes = SPECIES.length();
+        for (int blockStart = 0; blockStart < length; blockStart += BLOCK) {
+            int count = Math.min(BLOCK, length - blockStart);
+            copy(content, blockStart, count, buffer);
+            int i = 0;
+            for (; i + lanes <= count; i += lanes) {
+                ShortVector chars = ShortVector.fromCharArray(SPECIES, buffer, i);
+                // 引号、反引号和 / 两张位图都需要，只比较一次
+                VectorMask<Short> shared = chars.eq((short) '"')
+                    .or(chars.eq((short) '\''))
+                    .or(chars.eq((short) '`'))
+                    .or(chars.eq((short) '/'));
+                int pos = blockStart + i;
+                literal[pos >>> 6] |= literalOnly(chars).or(shared).toLong() << (pos & 63);
+                code[pos >>> 6] |= codeOnly(chars).or(shared).toLong() << (pos & 63);
+            }
+            for (; i < count; i++) {
+                int pos = blockStart + i;
+                if (ShowdownStructuralIndex.isLiteralStop(buffer[i])) {
+                    literal[pos >>> 6] |= 1L << pos;
+                }
+                if (ShowdownStructuralIndex.isCodeStop(buffer[i])) {
+                    code[pos >>> 6] |= 1L << pos;
+                }
+            }
+        }
+    }
+
+    private static VectorMask<Short> literalOnly(ShortVector chars) {
+        return chars.eq((short) '\\')
+            .or(chars.eq((short) '\n'))
+            .or(chars.eq((short) '\r'))
+            .or(chars.eq((short) '*'))
+            .or(chars.eq((short) '$'))
+            .or(chars.eq((short) '{'));
+    }
+
+    private static VectorMask<Short> codeOnly(ShortVector chars) {
+        return chars.eq((short) '{')
+            .or(chars.eq((short) '}'))
+            .or(chars.eq((short) '['))
+            .or(chars.eq((short) ']'))
+            .or(chars.eq((short) '('))
+            .or(chars.eq((short) ')'));
+    }
+
+    private static void copy(CharSequence content, int start, int count, char[] buffer) {
+        if (content instanceof String string) {
+            string.getChars(start, start + count, buffer, 0);
+        } else if (content instanceof StringBuilder builder) {
+            builder.getChars(start, start + count, buffer, 0);
+        } else {
+            for (int i = 0; i < count; i++) {
+                buffer[i] = content.charAt(start + i);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "vector " + SPECIES.length() + "x16";
+    }
+}